@@ -19,7 +19,12 @@ package org.jboss.galleon.cli;
 import org.jboss.galleon.cli.config.mvn.MavenSettings;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.eclipse.aether.RepositoryListener;
@@ -32,6 +37,7 @@ import org.eclipse.aether.deployment.DeploymentException;
 import org.eclipse.aether.installation.InstallRequest;
 import org.eclipse.aether.installation.InstallationException;
 import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.ArtifactResult;
 import org.eclipse.aether.resolution.VersionRangeRequest;
 import org.eclipse.aether.resolution.VersionRangeResolutionException;
@@ -39,6 +45,7 @@ import org.eclipse.aether.resolution.VersionRangeResult;
 import org.jboss.galleon.ArtifactCoords;
 import org.jboss.galleon.ArtifactException;
 import org.jboss.galleon.ArtifactRepositoryManager;
+import org.jboss.galleon.ProvisioningException;
 import org.jboss.galleon.cli.config.mvn.MavenConfig;
 import org.jboss.galleon.maven.plugin.FpMavenErrors;
 
@@ -92,9 +99,51 @@ public class MavenArtifactRepositoryManager implements ArtifactRepositoryManager
         final ArtifactResult result;
         try {
             result = repoSystem.resolveArtifact(getSettings().getSession(), request);
-        } catch (org.eclipse.aether.resolution.ArtifactResolutionException e) {
+        } catch (ArtifactResolutionException e) {
             throw new ArtifactException(FpMavenErrors.artifactResolution(coords), e);
         }
+        return getPath(coords, result);
+    }
+
+    /**
+     * Passes all the artifacts to the repository system in a single request,
+     * which lets it download the missing ones in parallel.
+     */
+    @Override
+    public Map<String, Path> resolveAll(Collection<String> locations) throws ProvisioningException {
+        final List<ArtifactCoords> coordsList = new ArrayList<>(locations.size());
+        final List<ArtifactRequest> requests = new ArrayList<>(locations.size());
+        for(String location : locations) {
+            final ArtifactCoords coords = ArtifactCoords.fromString(location);
+            coordsList.add(coords);
+            final ArtifactRequest request = new ArtifactRequest();
+            request.setArtifact(new DefaultArtifact(coords.getGroupId(), coords.getArtifactId(), coords.getClassifier(),
+                    coords.getExtension(), coords.getVersion()));
+            request.setRepositories(getSettings().getRepositories());
+            requests.add(request);
+        }
+        List<ArtifactResult> results;
+        try {
+            results = repoSystem.resolveArtifacts(getSettings().getSession(), requests);
+        } catch (ArtifactResolutionException e) {
+            results = e.getResults();
+            for(int i = 0; i < coordsList.size(); ++i) {
+                if(!results.get(i).isResolved()) {
+                    throw new ArtifactException(FpMavenErrors.artifactResolution(coordsList.get(i)), e);
+                }
+            }
+            throw new ArtifactException(e.getLocalizedMessage(), e);
+        }
+        final Map<String, Path> paths = new HashMap<>(locations.size());
+        int i = 0;
+        for(String location : locations) {
+            paths.put(location, getPath(coordsList.get(i), results.get(i)));
+            ++i;
+        }
+        return paths;
+    }
+
+    private static Path getPath(ArtifactCoords coords, ArtifactResult result) throws ArtifactException {
         if (!result.isResolved()) {
             throw new ArtifactException(FpMavenErrors.artifactResolution(coords));
         }
@@ -27,7 +27,6 @@ import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import org.jboss.galleon.Errors;
 import org.jboss.galleon.ProvisioningException;
@@ -72,8 +71,7 @@ public class Configuration implements MavenChangeListener {
         Files.deleteIfExists(path);
         try (BufferedWriter bw = Files.newBufferedWriter(path,
                 StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
-            try (FormattingXmlStreamWriter writer = new FormattingXmlStreamWriter(XMLOutputFactory.newInstance()
-                    .createXMLStreamWriter(bw))) {
+            try (FormattingXmlStreamWriter writer = new FormattingXmlStreamWriter(XmlParsers.createXMLStreamWriter(bw))) {
                 writer.writeStartDocument();
                 writer.writeStartElement(ConfigXmlParser10.ROOT_1_0.getLocalPart());
                 writer.writeDefaultNamespace(ConfigXmlParser10.NAMESPACE_1_0);
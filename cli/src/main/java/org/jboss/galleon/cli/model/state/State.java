@@ -20,7 +20,6 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
-import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -112,7 +111,7 @@ public class State {
 
     private void init(PmSession pmSession, ProvisioningManager manager) throws ProvisioningException, IOException {
         config = builder.build();
-        runtime = manager.getRuntime(config, null, Collections.emptyMap());
+        runtime = manager.getRuntime(config, (ProvisioningRuntime) null);
         container = FeatureContainers.fromProvisioningRuntime(pmSession, manager, runtime);
         container.setEdit(true);
         path = "" + PathParser.PATH_SEPARATOR;
@@ -254,7 +253,8 @@ public class State {
         ProvisioningConfig tmp = builder.build();
         ProvisioningManager manager = ProvisioningManager.builder()
                 .addArtifactResolver(pmSession.getArtifactResolver()).build();
-        runtime = manager.getRuntime(tmp, null, Collections.emptyMap());
+        // the feature-packs loaded and the configs resolved for the current state are re-used
+        runtime = manager.getRuntime(tmp, runtime);
         Set<FeaturePackLocation.FPID> dependencies = new HashSet<>();
         for (FeaturePackConfig cf : tmp.getFeaturePackDeps()) {
             dependencies.add(cf.getLocation().getFPID());
@@ -26,6 +26,7 @@ public interface Constants {
     String CONTENT = "content";
     String FEATURE_GROUPS = "feature_groups";
     String FEATURES = "features";
+    String FEATURE_PACK_INDEX = "feature-pack.idx";
     String FEATURE_PACK_XML = "feature-pack.xml";
     String MODULES_XML = "module.xml";
     String PACKAGE_XML = "package.xml";
@@ -36,6 +37,7 @@ public interface Constants {
     String SPEC_XML = "spec.xml";
     String THIS = "this";
 
+    String CONTENT_MANIFEST = "content-manifest";
     String PROVISIONED_STATE_DIR = ".galleon";
     String PROVISIONED_STATE_XML = "provisioned.xml";
 
@@ -46,6 +48,24 @@ public interface Constants {
 
     // SYSTEM PROPERTIES
     String PROP_CONFIG_ARRANGER = "galleon.config.arranger";
+    String PROP_CONFIG_CACHE_DIR = "galleon.config.cache.dir";
+    String PROP_CONFIG_THREADS = "galleon.config.threads";
+    String PROP_CONTENT_MANIFEST = "galleon.content-manifest";
+    String PROP_DESCRIPTOR_CACHE_MAX_SIZE = "galleon.descriptor.cache.max-size";
+    String PROP_DIFF_THREADS = "galleon.diff.threads";
+    String PROP_FP_LOADER_THREADS = "galleon.fp-loader.threads";
+    String PROP_HASH_ALGORITHM = "galleon.hash.algorithm";
+    String PROP_INSTALL_HARD_LINKS = "galleon.install.hard-links";
+    String PROP_INSTALL_HARD_LINKS_EXTENSIONS = "galleon.install.hard-links.extensions";
+    String PROP_INSTALL_INCREMENTAL = "galleon.install.incremental";
+    String PROP_INSTALL_THREADS = "galleon.install.threads";
+    String PROP_LATEST_BUILD_CACHE_DIR = "galleon.latest-build.cache.dir";
+    String PROP_LATEST_BUILD_CACHE_MAX_STALE = "galleon.latest-build.cache.max-stale";
+    String PROP_LATEST_BUILD_CACHE_REFRESH = "galleon.latest-build.cache.refresh";
+    String PROP_LATEST_BUILD_CACHE_TTL = "galleon.latest-build.cache.ttl";
+    String PROP_LAYOUT_CACHE_DIR = "galleon.layout.cache.dir";
+    String PROP_LAYOUT_CACHE_MAX_SIZE = "galleon.layout.cache.max-size";
+    String PROP_LAYOUT_ZIP_BACKED = "galleon.layout.zip-backed";
 
     // CONFIG ARRANGERS
     String CONFIG_ARRANGER_SPEC_ONLY = "spec-only";
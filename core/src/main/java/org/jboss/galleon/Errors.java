@@ -217,6 +217,11 @@ public interface Errors {
         return fpid + " package " + pkgName + " references unknown feature-pack dependency " + depName;
     }
 
+    /**
+     * @deprecated  no longer used, a missing provider is reported along with the feature requiring the capability,
+     * see {@link #noCapabilityProvider(ResolvedFeature, CapabilitySpec, String)}
+     */
+    @Deprecated
     static String noCapabilityProvider(String capability) {
         return "No provider found for capability '" + capability + "'";
     }
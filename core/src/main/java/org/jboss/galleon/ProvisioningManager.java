@@ -534,6 +534,28 @@ public class ProvisioningManager {
         return builder.build();
     }
 
+    /**
+     * Builds a runtime for an edited provisioning configuration re-using the feature-packs
+     * loaded and the configs resolved for the previous version of the configuration.
+     * The returned runtime can in its turn be passed as the base runtime for the next edit.
+     *
+     * @param provisioningConfig  provisioning configuration
+     * @param baseRuntime  runtime built by this method for the previous version of the configuration or null
+     * @return  provisioning runtime
+     * @throws ProvisioningException  in case the runtime could not be built
+     */
+    public ProvisioningRuntime getRuntime(ProvisioningConfig provisioningConfig, ProvisioningRuntime baseRuntime)
+            throws ProvisioningException {
+        return ProvisioningRuntimeBuilder.newInstance(messageWriter)
+                .setUniverseResolver(universeResolver)
+                .setConfig(provisioningConfig)
+                .setEncoding(encoding)
+                .setInstallDir(installationHome)
+                .setReusable(true)
+                .setBaseRuntime(baseRuntime)
+                .build();
+    }
+
     private ProvisioningConfig.Builder getInstallationConfig() throws ProvisioningException {
         return ProvisioningConfig.builder(getProvisioningConfig());
     }
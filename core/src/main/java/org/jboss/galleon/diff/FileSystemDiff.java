@@ -23,15 +23,26 @@ import java.nio.charset.MalformedInputException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.ProviderException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiFunction;
 
+import org.jboss.galleon.Constants;
 import org.jboss.galleon.MessageWriter;
+import org.jboss.galleon.state.ContentManifest;
+import org.jboss.galleon.util.HashUtils;
 import org.jboss.galleon.util.PathFilter;
+import org.jboss.galleon.util.PathsUtils;
+import org.jboss.galleon.util.PropertyUtils;
 
 import java.util.Set;
 
@@ -46,6 +57,8 @@ public class FileSystemDiff {
     private final Path stagedInstallation;
     private final Path customizedInstallation;
     protected final MessageWriter messageWriter;
+    private int parallelism = getDefaultParallelism();
+    private boolean useContentManifest = Boolean.parseBoolean(PropertyUtils.getSystemProperty(Constants.PROP_CONTENT_MANIFEST));
 
     public FileSystemDiff(MessageWriter messageWriter, Path stagedInstallation, Path customizedInstallation) {
         this.stagedInstallation = stagedInstallation;
@@ -53,14 +66,75 @@ public class FileSystemDiff {
         this.messageWriter = messageWriter;
     }
 
+    private static int getDefaultParallelism() {
+        final String threads = PropertyUtils.getSystemProperty(Constants.PROP_DIFF_THREADS);
+        return threads == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(threads);
+    }
+
+    /**
+     * Sets the number of threads used to list and hash the content of the installations.
+     * Both installations are then listed concurrently and the files are hashed in parallel.
+     * If the parallelism is less than 2, the installations are listed one after the other
+     * on the calling thread. By default, the value of the {@link Constants#PROP_DIFF_THREADS}
+     * system property or the number of available processors is used.
+     *
+     * @param parallelism  the number of threads
+     * @return  this diff
+     */
+    public FileSystemDiff setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
     public FileSystemDiffResult diff() throws ProviderException {
         return this.diff(PathFilter.DEFAULT);
     }
 
-    public FileSystemDiffResult diff(final PathFilter filter) throws ProviderException {
+    /**
+     * Whether the content manifests recorded in the installations at install time should be used
+     * to avoid hashing the files that still have the recorded size and last modified time.
+     * By default, the value of the {@link Constants#PROP_CONTENT_MANIFEST} system property is used.
+     *
+     * @param useContentManifest  whether to use the recorded content manifests
+     * @return  this diff
+     */
+    public FileSystemDiff setUseContentManifest(boolean useContentManifest) {
+        this.useContentManifest = useContentManifest;
+        return this;
+    }
+
+    public FileSystemDiffResult diff(final PathFilter pathFilter) throws ProviderException {
+        // the content manifest is not part of the content
+        final Path manifestPath = PathsUtils.getContentManifest(Paths.get(""));
+        final PathFilter filter = path -> !path.equals(manifestPath) && pathFilter.accept(path);
         try {
-            final Map<Path, String> stagged = listContents(stagedInstallation, filter);
-            final Map<Path, String> custom = listContents(customizedInstallation, filter);
+            final BiFunction<Path, BasicFileAttributes, String> staggedHashes = getRecordedHashes(stagedInstallation);
+            final BiFunction<Path, BasicFileAttributes, String> customHashes = getRecordedHashes(customizedInstallation);
+            final Map<Path, String> stagged;
+            final Map<Path, String> custom;
+            if(parallelism < 2) {
+                stagged = listContents(stagedInstallation, filter, null, staggedHashes);
+                custom = listContents(customizedInstallation, filter, null, customHashes);
+            } else {
+                final ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    final ForkJoinTask<Map<Path, String>> staggedTask = pool.submit(() -> listContents(stagedInstallation, filter, pool, staggedHashes));
+                    custom = listContents(customizedInstallation, filter, pool, customHashes);
+                    try {
+                        stagged = staggedTask.get();
+                    } catch (ExecutionException e) {
+                        if(e.getCause() instanceof IOException) {
+                            throw (IOException) e.getCause();
+                        }
+                        throw new ProviderException(e.getCause());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new ProviderException(e);
+                    }
+                } finally {
+                    pool.shutdownNow();
+                }
+            }
             Changes changes = listChanges(stagged, custom);
             return new FileSystemDiffResult(
                     listDeletedFiles(stagged, custom),
@@ -72,6 +146,27 @@ public class FileSystemDiff {
         }
     }
 
+    private BiFunction<Path, BasicFileAttributes, String> getRecordedHashes(Path installation) {
+        if(!useContentManifest) {
+            return null;
+        }
+        final Path manifestFile = PathsUtils.getContentManifest(installation);
+        if(!Files.exists(manifestFile)) {
+            return null;
+        }
+        final ContentManifest manifest;
+        try {
+            manifest = ContentManifest.read(manifestFile);
+        } catch (IOException e) {
+            messageWriter.verbose(e, "Ignoring the content manifest %s", manifestFile);
+            return null;
+        }
+        if(!manifest.getAlgorithm().equals(HashUtils.getDefaultAlgorithm().getName())) {
+            return null;
+        }
+        return (path, attrs) -> manifest.getHash(PathsUtils.toForwardSlashSeparator(path.toString()), attrs);
+    }
+
     private Set<Path> listDeletedFiles(final Map<Path, String> stagged, final Map<Path, String> custom) {
         Set<Path> deletedFiles = new HashSet<>();
         for (Path path : stagged.keySet()) {
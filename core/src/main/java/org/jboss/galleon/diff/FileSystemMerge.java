@@ -28,6 +28,7 @@ import java.util.Map.Entry;
 import java.util.stream.Collectors;
 
 import org.jboss.galleon.MessageWriter;
+import org.jboss.galleon.util.IoUtils;
 
 import difflib.DiffUtils;
 import difflib.Patch;
@@ -75,7 +76,8 @@ public abstract class FileSystemMerge {
         try {
             Patch<String> patch = DiffUtils.parseUnifiedDiff(diff);
             List<String> updatedLines = DiffUtils.patch(Files.readAllLines(file, StandardCharsets.UTF_8), patch);
-            Files.write(file, updatedLines);
+            // the file may be hard-linked to a cached feature-pack layout, so it is replaced instead of being modified in place
+            IoUtils.writeLinesReplacing(file, updatedLines);
         } catch (PatchFailedException | IOException ex) {
             messageWriter.verbose(ex, "Couldn't patch file %s with %s because %s", file, unifiedDiff, ex.getMessage());
             patchFailure(path);
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.layout;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.util.PropertyUtils;
+
+/**
+ * Process-wide in-memory cache of the parsed feature-pack descriptors, i.e. the feature-pack,
+ * package, feature and feature group specs, so that they are not parsed again by every
+ * provisioning runtime built from the same feature-pack archives.
+ *
+ * <p>The descriptors of a feature-pack are keyed by the FPID and the path, the file key, the size
+ * and the last modified time of the archive the feature-pack was resolved to, so that a re-built
+ * feature-pack with the same FPID (e.g. a snapshot) is not confused with the previous build.
+ * Each descriptor is keyed by its path relative to the root of the feature-pack layout.
+ *
+ * <p>The cache holds the descriptors of at most the configured number of feature-packs,
+ * evicting the least recently used ones first. The descriptors of a feature-pack are
+ * softly reachable, i.e. they are also released by the garbage collector under memory
+ * pressure. The cached descriptors are shared by the runtimes and must not be modified.
+ */
+public class FeaturePackDescriptorCache {
+
+    public static final int DEFAULT_MAX_SIZE = 64;
+
+    /**
+     * Parsed descriptors of a feature-pack keyed by their paths relative to the root of the layout.
+     */
+    public static class Descriptors {
+
+        private final Map<String, Object> parsed = new ConcurrentHashMap<>();
+
+        private Descriptors() {
+        }
+
+        /**
+         * Returns the cached descriptor or null, if it has not been cached.
+         *
+         * @param path  path of the descriptor relative to the root of the layout
+         * @param type  type of the descriptor
+         * @return  the descriptor or null
+         */
+        public <T> T get(String path, Class<T> type) {
+            final Object descriptor = parsed.get(path);
+            return descriptor == null ? null : type.cast(descriptor);
+        }
+
+        public void put(String path, Object descriptor) {
+            parsed.put(path, descriptor);
+        }
+
+        public int size() {
+            return parsed.size();
+        }
+    }
+
+    private static class Key {
+
+        final FPID fpid;
+        final Path archive;
+        final Object fileKey;
+        final long size;
+        final FileTime lastModified;
+
+        Key(FPID fpid, Path archive, BasicFileAttributes attrs) {
+            this.fpid = fpid;
+            this.archive = archive;
+            this.fileKey = attrs.fileKey();
+            this.size = attrs.size();
+            this.lastModified = attrs.lastModifiedTime();
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + fpid.hashCode();
+            result = prime * result + archive.hashCode();
+            result = prime * result + ((fileKey == null) ? 0 : fileKey.hashCode());
+            result = prime * result + (int) (size ^ (size >>> 32));
+            result = prime * result + lastModified.hashCode();
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            final Key other = (Key) obj;
+            return size == other.size && lastModified.equals(other.lastModified) && fpid.equals(other.fpid)
+                    && archive.equals(other.archive) && Objects.equals(fileKey, other.fileKey);
+        }
+    }
+
+    private static final Map<Integer, FeaturePackDescriptorCache> instances = new HashMap<>();
+
+    /**
+     * Returns the cache limited to the number of feature-packs configured with
+     * the {@link Constants#PROP_DESCRIPTOR_CACHE_MAX_SIZE} system property
+     * or {@link #DEFAULT_MAX_SIZE}, if the property has not been set,
+     * or null, in case the property is set to 0, which disables the cache.
+     *
+     * @return  the configured descriptor cache or null
+     */
+    public static FeaturePackDescriptorCache getDefault() {
+        final String maxSizeStr = PropertyUtils.getSystemProperty(Constants.PROP_DESCRIPTOR_CACHE_MAX_SIZE);
+        final int maxSize = maxSizeStr == null ? DEFAULT_MAX_SIZE : Integer.parseInt(maxSizeStr);
+        return maxSize <= 0 ? null : getInstance(maxSize);
+    }
+
+    public static FeaturePackDescriptorCache getInstance(int maxSize) {
+        synchronized(instances) {
+            FeaturePackDescriptorCache cache = instances.get(maxSize);
+            if(cache == null) {
+                cache = new FeaturePackDescriptorCache(maxSize);
+                instances.put(maxSize, cache);
+            }
+            return cache;
+        }
+    }
+
+    private final int maxSize;
+    private final Map<Key, SoftReference<Descriptors>> entries;
+
+    private FeaturePackDescriptorCache(int maxSize) {
+        this.maxSize = maxSize;
+        entries = new LinkedHashMap<Key, SoftReference<Descriptors>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, SoftReference<Descriptors>> eldest) {
+                return size() > FeaturePackDescriptorCache.this.maxSize;
+            }
+        };
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the descriptors of the feature-pack resolved to the archive.
+     * If the archive is not a regular file or its attributes could not be read,
+     * the method returns null and the descriptors are not cached.
+     *
+     * @param fpid  feature-pack ID
+     * @param archive  feature-pack archive
+     * @return  the descriptors of the feature-pack or null
+     */
+    public Descriptors getDescriptors(FPID fpid, Path archive) {
+        final BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(archive, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+        if(!attrs.isRegularFile()) {
+            return null;
+        }
+        final Key key = new Key(fpid, archive.toAbsolutePath().normalize(), attrs);
+        synchronized(entries) {
+            final SoftReference<Descriptors> ref = entries.get(key);
+            Descriptors descriptors = ref == null ? null : ref.get();
+            if(descriptors == null) {
+                descriptors = new Descriptors();
+                entries.put(key, new SoftReference<>(descriptors));
+            }
+            return descriptors;
+        }
+    }
+
+    public void clear() {
+        synchronized(entries) {
+            entries.clear();
+        }
+    }
+}
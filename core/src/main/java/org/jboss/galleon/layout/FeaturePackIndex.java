@@ -0,0 +1,566 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.layout;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.Errors;
+import org.jboss.galleon.ProvisioningDescriptionException;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.spec.CapabilitySpec;
+import org.jboss.galleon.spec.FeatureAnnotation;
+import org.jboss.galleon.spec.FeatureDependencySpec;
+import org.jboss.galleon.spec.FeatureId;
+import org.jboss.galleon.spec.FeatureParameterSpec;
+import org.jboss.galleon.spec.FeatureReferenceSpec;
+import org.jboss.galleon.spec.FeatureSpec;
+import org.jboss.galleon.spec.PackageDependencySpec;
+import org.jboss.galleon.spec.PackageDepsSpec;
+import org.jboss.galleon.spec.PackageDepsSpecBuilder;
+import org.jboss.galleon.spec.PackageSpec;
+import org.jboss.galleon.util.CollectionUtils;
+import org.jboss.galleon.xml.FeatureSpecXmlParser;
+import org.jboss.galleon.xml.PackageXmlParser;
+
+/**
+ * Optional binary index of the feature and package specs of a feature-pack layout,
+ * which is written at build time next to the feature-pack.xml, so that the specs
+ * don't have to be parsed from the XML when the feature-pack is provisioned.
+ *
+ * <p>The index starts with a table of all the strings the specs consist of
+ * followed by an entry per spec.xml and package.xml of the layout. An entry records
+ * the path of the XML descriptor relative to the root of the layout, the size and the CRC32
+ * checksum of the descriptor at the time the index was built and the spec encoded as the string
+ * table indexes of its values. The entries are decoded only when their specs are requested.
+ *
+ * <p>The index is an optimization: the spec is parsed from the XML when the index
+ * is missing, has an unsupported version, can't be read, has no entry for the spec
+ * or the size or the checksum of the XML descriptor does not match the one recorded in the entry.
+ */
+public class FeaturePackIndex {
+
+    private static final int MAGIC = 0x676c6e69; // "glni"
+    private static final int VERSION = 2;
+
+    private static final byte FEATURE_SPEC = 1;
+    private static final byte PACKAGE_SPEC = 2;
+
+    private static final byte PARAM_ID = 1;
+    private static final byte PARAM_NILLABLE = 2;
+
+    private static class Entry {
+        final byte kind;
+        final long xmlSize;
+        final long xmlChecksum;
+        final int offset;
+        final int length;
+
+        Entry(byte kind, long xmlSize, long xmlChecksum, int offset, int length) {
+            this.kind = kind;
+            this.xmlSize = xmlSize;
+            this.xmlChecksum = xmlChecksum;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Writes the index of the feature and package specs found in the feature-pack layout
+     * to {@link Constants#FEATURE_PACK_INDEX} in the root of the layout.
+     * Specs which could not be encoded so that they are decoded exactly as they are
+     * parsed from the XML are left out of the index.
+     *
+     * @param fpDir  feature-pack layout directory
+     * @throws ProvisioningException  in case a descriptor could not be parsed or the index could not be written
+     */
+    public static void write(Path fpDir) throws ProvisioningException {
+        final Map<String, Object> specs = new TreeMap<>();
+        final Map<String, byte[]> xmls = new HashMap<>();
+        Path dir = fpDir.resolve(Constants.FEATURES);
+        if(Files.exists(dir)) {
+            for(Path featureDir : listDir(dir)) {
+                final Path specXml = featureDir.resolve(Constants.SPEC_XML);
+                if(!Files.exists(specXml)) {
+                    continue;
+                }
+                final String path = Constants.FEATURES + '/' + featureDir.getFileName() + '/' + Constants.SPEC_XML;
+                try {
+                    final byte[] xml = Files.readAllBytes(specXml);
+                    specs.put(path, FeatureSpecXmlParser.getInstance().parse(newReader(xml)));
+                    xmls.put(path, xml);
+                } catch (Exception e) {
+                    throw new ProvisioningException(Errors.parseXml(specXml), e);
+                }
+            }
+        }
+        dir = fpDir.resolve(Constants.PACKAGES);
+        if(Files.exists(dir)) {
+            for(Path pkgDir : listDir(dir)) {
+                final Path pkgXml = pkgDir.resolve(Constants.PACKAGE_XML);
+                if(!Files.exists(pkgXml)) {
+                    continue;
+                }
+                final String path = Constants.PACKAGES + '/' + pkgDir.getFileName() + '/' + Constants.PACKAGE_XML;
+                try {
+                    final byte[] xml = Files.readAllBytes(pkgXml);
+                    specs.put(path, PackageXmlParser.getInstance().parse(newReader(xml)));
+                    xmls.put(path, xml);
+                } catch (Exception e) {
+                    throw new ProvisioningException(Errors.parseXml(pkgXml), e);
+                }
+            }
+        }
+
+        final StringTable strings = new StringTable();
+        final List<Integer> paths = new ArrayList<>(specs.size());
+        final List<byte[]> xmlBytes = new ArrayList<>(specs.size());
+        final List<byte[]> encoded = new ArrayList<>(specs.size());
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            for (Map.Entry<String, Object> spec : specs.entrySet()) {
+                bytes.reset();
+                final DataOutputStream out = new DataOutputStream(bytes);
+                if (spec.getValue() instanceof FeatureSpec) {
+                    out.writeByte(FEATURE_SPEC);
+                    writeFeatureSpec(out, strings, (FeatureSpec) spec.getValue());
+                } else {
+                    out.writeByte(PACKAGE_SPEC);
+                    writePackageSpec(out, strings, (PackageSpec) spec.getValue());
+                }
+                out.flush();
+                final byte[] entry = bytes.toByteArray();
+                final Object decoded;
+                try {
+                    decoded = decode(strings.values, entry, 0, entry.length);
+                } catch (ProvisioningDescriptionException e) {
+                    continue;
+                }
+                if (!isSameSpec(spec.getValue(), decoded)) {
+                    continue;
+                }
+                paths.add(strings.add(spec.getKey()));
+                xmlBytes.add(xmls.get(spec.getKey()));
+                encoded.add(entry);
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.writeFile(fpDir.resolve(Constants.FEATURE_PACK_INDEX)), e);
+        }
+
+        final Path index = fpDir.resolve(Constants.FEATURE_PACK_INDEX);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(index)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(strings.values.size());
+            for (String str : strings.values) {
+                final byte[] utf8 = str.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+            out.writeInt(paths.size());
+            for (int i = 0; i < paths.size(); ++i) {
+                out.writeInt(paths.get(i));
+                out.writeLong(xmlBytes.get(i).length);
+                out.writeLong(checksum(xmlBytes.get(i)));
+                out.writeInt(encoded.get(i).length);
+            }
+            for (byte[] entry : encoded) {
+                out.write(entry);
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.writeFile(index), e);
+        }
+    }
+
+    /**
+     * Reads the index of the feature-pack layout.
+     *
+     * @param fpDir  feature-pack layout directory
+     * @return  the index or null, in case the layout does not include an index
+     * or the index could not be read
+     */
+    public static FeaturePackIndex read(Path fpDir) {
+        final Path index = fpDir.resolve(Constants.FEATURE_PACK_INDEX);
+        if(!Files.exists(index)) {
+            return null;
+        }
+        try {
+            final byte[] bytes = Files.readAllBytes(index);
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            final String[] strings = new String[in.readInt()];
+            for(int i = 0; i < strings.length; ++i) {
+                final byte[] utf8 = new byte[in.readInt()];
+                in.readFully(utf8);
+                strings[i] = new String(utf8, StandardCharsets.UTF_8);
+            }
+            final int entriesTotal = in.readInt();
+            final String[] paths = new String[entriesTotal];
+            final long[] xmlSizes = new long[entriesTotal];
+            final long[] xmlChecksums = new long[entriesTotal];
+            final int[] lengths = new int[entriesTotal];
+            for(int i = 0; i < entriesTotal; ++i) {
+                paths[i] = strings[in.readInt()];
+                xmlSizes[i] = in.readLong();
+                xmlChecksums[i] = in.readLong();
+                lengths[i] = in.readInt();
+            }
+            int offset = bytes.length - in.available();
+            final Map<String, Entry> entries = new HashMap<>(entriesTotal);
+            for(int i = 0; i < entriesTotal; ++i) {
+                if(offset + lengths[i] > bytes.length) {
+                    return null;
+                }
+                entries.put(paths[i], new Entry(bytes[offset], xmlSizes[i], xmlChecksums[i], offset, lengths[i]));
+                offset += lengths[i];
+            }
+            return new FeaturePackIndex(Arrays.asList(strings), bytes, entries);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private final List<String> strings;
+    private final byte[] bytes;
+    private final Map<String, Entry> entries;
+
+    private FeaturePackIndex(List<String> strings, byte[] bytes, Map<String, Entry> entries) {
+        this.strings = strings;
+        this.bytes = bytes;
+        this.entries = entries;
+    }
+
+    /**
+     * Returns the indexed feature spec or null, if the index does not include
+     * an up-to-date entry for the spec.
+     *
+     * @param name  feature spec name
+     * @param specXml  spec.xml of the feature spec in the layout
+     * @return  the feature spec or null
+     */
+    public FeatureSpec getFeatureSpec(String name, Path specXml) {
+        return (FeatureSpec) getSpec(FEATURE_SPEC, Constants.FEATURES + '/' + name + '/' + Constants.SPEC_XML, specXml);
+    }
+
+    /**
+     * Returns the indexed package spec or null, if the index does not include
+     * an up-to-date entry for the spec.
+     *
+     * @param name  package name
+     * @param pkgXml  package.xml of the package in the layout
+     * @return  the package spec or null
+     */
+    public PackageSpec getPackageSpec(String name, Path pkgXml) {
+        return (PackageSpec) getSpec(PACKAGE_SPEC, Constants.PACKAGES + '/' + name + '/' + Constants.PACKAGE_XML, pkgXml);
+    }
+
+    private Object getSpec(byte kind, String path, Path xml) {
+        final Entry entry = entries.get(path);
+        if(entry == null || entry.kind != kind) {
+            return null;
+        }
+        try {
+            if(Files.size(xml) != entry.xmlSize || checksum(Files.readAllBytes(xml)) != entry.xmlChecksum) {
+                return null;
+            }
+            return decode(strings, bytes, entry.offset, entry.length);
+        } catch (IOException | ProvisioningDescriptionException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static BufferedReader newReader(byte[] xml) {
+        return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(xml), StandardCharsets.UTF_8));
+    }
+
+    private static long checksum(byte[] xml) {
+        final CRC32 crc = new CRC32();
+        crc.update(xml, 0, xml.length);
+        return crc.getValue();
+    }
+
+    private static Collection<Path> listDir(Path dir) throws ProvisioningException {
+        final Map<String, Path> children = new TreeMap<>();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for(Path child : stream) {
+                children.put(child.getFileName().toString(), child);
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.readDirectory(dir), e);
+        }
+        return children.values();
+    }
+
+    private static boolean isSameSpec(Object parsed, Object decoded) {
+        if(!parsed.equals(decoded)) {
+            return false;
+        }
+        if(parsed instanceof FeatureSpec) {
+            // the order of the parameters determines the order of their values in the resolved features
+            return new ArrayList<>(((FeatureSpec) parsed).getParams().keySet()).equals(new ArrayList<>(((FeatureSpec) decoded).getParams().keySet()));
+        }
+        return true;
+    }
+
+    private static Object decode(List<String> strings, byte[] bytes, int offset, int length) throws IOException, ProvisioningDescriptionException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, offset, length));
+        final byte kind = in.readByte();
+        if(kind == FEATURE_SPEC) {
+            return readFeatureSpec(in, strings);
+        }
+        if(kind == PACKAGE_SPEC) {
+            return readPackageSpec(in, strings);
+        }
+        throw new IOException("Unexpected index entry kind " + kind);
+    }
+
+    private static void writePackageSpec(DataOutputStream out, StringTable strings, PackageSpec spec) throws IOException {
+        writeString(out, strings, spec.getName());
+        writePackageDeps(out, strings, spec);
+    }
+
+    private static PackageSpec readPackageSpec(DataInputStream in, List<String> strings) throws IOException {
+        final PackageSpec.Builder builder = PackageSpec.builder(readString(in, strings));
+        readPackageDeps(in, strings, builder);
+        return builder.build();
+    }
+
+    private static void writeFeatureSpec(DataOutputStream out, StringTable strings, FeatureSpec spec) throws IOException {
+        writeString(out, strings, spec.getName());
+        writePackageDeps(out, strings, spec);
+
+        out.writeInt(spec.hasAnnotations() ? spec.getAnnotations().size() : 0);
+        if(spec.hasAnnotations()) {
+            for(FeatureAnnotation annotation : spec.getAnnotations()) {
+                writeString(out, strings, annotation.getName());
+                writeStrings(out, strings, annotation.getElements());
+            }
+        }
+
+        out.writeInt(spec.hasFeatureDeps() ? spec.getFeatureDeps().size() : 0);
+        if(spec.hasFeatureDeps()) {
+            for(FeatureDependencySpec dep : spec.getFeatureDeps()) {
+                writeString(out, strings, dep.getFeatureId().getSpec().getName());
+                writeStrings(out, strings, dep.getFeatureId().getParams());
+                writeString(out, strings, dep.getOrigin());
+                out.writeBoolean(dep.isInclude());
+            }
+        }
+
+        out.writeInt(spec.hasFeatureRefs() ? spec.getFeatureRefs().size() : 0);
+        if(spec.hasFeatureRefs()) {
+            for(FeatureReferenceSpec ref : spec.getFeatureRefs()) {
+                writeString(out, strings, ref.getFeature().getName());
+                writeString(out, strings, ref.getName());
+                writeString(out, strings, ref.getOrigin());
+                out.writeBoolean(ref.isNillable());
+                out.writeBoolean(ref.isInclude());
+                writeStrings(out, strings, ref.getMappedParams());
+            }
+        }
+
+        out.writeInt(spec.getParamsTotal());
+        if(spec.hasParams()) {
+            for(FeatureParameterSpec param : spec.getParams().values()) {
+                writeString(out, strings, param.getName());
+                byte flags = 0;
+                if(param.isFeatureId()) {
+                    flags |= PARAM_ID;
+                }
+                if(param.isNillable()) {
+                    flags |= PARAM_NILLABLE;
+                }
+                out.writeByte(flags);
+                writeString(out, strings, param.getDefaultValue());
+                writeString(out, strings, param.getType());
+            }
+        }
+
+        writeCapabilities(out, strings, spec.providesCapabilities() ? spec.getProvidedCapabilities() : Collections.<CapabilitySpec>emptySet());
+        writeCapabilities(out, strings, spec.requiresCapabilities() ? spec.getRequiredCapabilities() : Collections.<CapabilitySpec>emptySet());
+    }
+
+    private static FeatureSpec readFeatureSpec(DataInputStream in, List<String> strings) throws IOException, ProvisioningDescriptionException {
+        final FeatureSpec.Builder builder = FeatureSpec.builder(readString(in, strings));
+        readPackageDeps(in, strings, builder);
+
+        int total = in.readInt();
+        for(int i = 0; i < total; ++i) {
+            final FeatureAnnotation annotation = new FeatureAnnotation(readString(in, strings));
+            for(Map.Entry<String, String> elem : readStrings(in, strings).entrySet()) {
+                annotation.setElement(elem.getKey(), elem.getValue());
+            }
+            builder.addAnnotation(annotation);
+        }
+
+        total = in.readInt();
+        for(int i = 0; i < total; ++i) {
+            final FeatureId id = new FeatureId(readString(in, strings), readStrings(in, strings));
+            final String origin = readString(in, strings);
+            builder.addFeatureDep(FeatureDependencySpec.create(id, origin, in.readBoolean()));
+        }
+
+        total = in.readInt();
+        for(int i = 0; i < total; ++i) {
+            final FeatureReferenceSpec.Builder refBuilder = FeatureReferenceSpec.builder(readString(in, strings))
+                    .setName(readString(in, strings))
+                    .setOrigin(readString(in, strings))
+                    .setNillable(in.readBoolean())
+                    .setInclude(in.readBoolean());
+            for(Map.Entry<String, String> mapping : readStrings(in, strings).entrySet()) {
+                refBuilder.mapParam(mapping.getKey(), mapping.getValue());
+            }
+            builder.addFeatureRef(refBuilder.build());
+        }
+
+        total = in.readInt();
+        for(int i = 0; i < total; ++i) {
+            final FeatureParameterSpec.Builder paramBuilder = FeatureParameterSpec.builder(readString(in, strings));
+            final byte flags = in.readByte();
+            if((flags & PARAM_ID) > 0) {
+                paramBuilder.setFeatureId();
+            }
+            if((flags & PARAM_NILLABLE) > 0) {
+                paramBuilder.setNillable();
+            }
+            paramBuilder.setDefaultValue(readString(in, strings));
+            paramBuilder.setType(readString(in, strings));
+            builder.addParam(paramBuilder.build());
+        }
+
+        total = in.readInt();
+        for(int i = 0; i < total; ++i) {
+            builder.providesCapability(readString(in, strings), in.readBoolean());
+        }
+        total = in.readInt();
+        for(int i = 0; i < total; ++i) {
+            builder.requiresCapability(readString(in, strings), in.readBoolean());
+        }
+        return builder.build();
+    }
+
+    private static void writeCapabilities(DataOutputStream out, StringTable strings, Collection<CapabilitySpec> caps) throws IOException {
+        out.writeInt(caps.size());
+        for(CapabilitySpec cap : caps) {
+            writeString(out, strings, cap.toString());
+            out.writeBoolean(cap.isOptional());
+        }
+    }
+
+    private static void writePackageDeps(DataOutputStream out, StringTable strings, PackageDepsSpec spec) throws IOException {
+        writePackageDeps(out, strings, spec.hasLocalPackageDeps() ? spec.getLocalPackageDeps() : Collections.<PackageDependencySpec>emptyList());
+        if(!spec.hasExternalPackageDeps()) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(spec.getPackageOrigins().size());
+        for(String origin : spec.getPackageOrigins()) {
+            writeString(out, strings, origin);
+            writePackageDeps(out, strings, spec.getExternalPackageDeps(origin));
+        }
+    }
+
+    private static void writePackageDeps(DataOutputStream out, StringTable strings, Collection<PackageDependencySpec> deps) throws IOException {
+        out.writeInt(deps.size());
+        for(PackageDependencySpec dep : deps) {
+            writeString(out, strings, dep.getName());
+            out.writeBoolean(dep.isOptional());
+        }
+    }
+
+    private static void readPackageDeps(DataInputStream in, List<String> strings, PackageDepsSpecBuilder<?> builder) throws IOException {
+        int total = in.readInt();
+        for(int i = 0; i < total; ++i) {
+            builder.addPackageDep(readString(in, strings), in.readBoolean());
+        }
+        final int origins = in.readInt();
+        for(int i = 0; i < origins; ++i) {
+            final String origin = readString(in, strings);
+            total = in.readInt();
+            for(int j = 0; j < total; ++j) {
+                builder.addPackageDep(origin, readString(in, strings), in.readBoolean());
+            }
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, StringTable strings, Map<String, String> map) throws IOException {
+        out.writeInt(map.size());
+        for(Map.Entry<String, String> entry : map.entrySet()) {
+            writeString(out, strings, entry.getKey());
+            writeString(out, strings, entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readStrings(DataInputStream in, List<String> strings) throws IOException {
+        final int size = in.readInt();
+        Map<String, String> map = Collections.emptyMap();
+        for(int i = 0; i < size; ++i) {
+            map = CollectionUtils.put(map, readString(in, strings), readString(in, strings));
+        }
+        return map;
+    }
+
+    private static void writeString(DataOutputStream out, StringTable strings, String str) throws IOException {
+        out.writeInt(str == null ? -1 : strings.add(str));
+    }
+
+    private static String readString(DataInputStream in, List<String> strings) throws IOException {
+        final int i = in.readInt();
+        return i < 0 ? null : strings.get(i);
+    }
+
+    /**
+     * Strings of the index in the order of their positions in the table.
+     */
+    private static class StringTable {
+
+        final Map<String, Integer> positions = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+
+        int add(String str) {
+            Integer i = positions.get(str);
+            if(i == null) {
+                i = values.size();
+                positions.put(str, i);
+                values.add(str);
+            }
+            return i;
+        }
+    }
+}
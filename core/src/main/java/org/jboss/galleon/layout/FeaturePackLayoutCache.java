@@ -0,0 +1,356 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.layout;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.Errors;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.util.HashUtils;
+import org.jboss.galleon.util.IoUtils;
+import org.jboss.galleon.util.PropertyUtils;
+import org.jboss.galleon.util.ZipUtils;
+
+/**
+ * Persistent on-disk cache of extracted feature-pack layouts.
+ *
+ * <p>Each cache entry is keyed by the FPID and the checksum of the feature-pack archive
+ * it was extracted from. Entries are extracted into a temporary directory and then
+ * atomically renamed into place, so several processes can share the same cache directory.
+ * Once an entry is in place it is never modified, only evicted when the total size
+ * of the cache exceeds its limit, least recently used entries first.
+ */
+public class FeaturePackLayoutCache {
+
+    public static final long DEFAULT_MAX_SIZE = 2L * 1024 * 1024 * 1024;
+
+    /**
+     * Entries used more recently than this are never evicted, since another
+     * provisioning process may still be reading them.
+     */
+    private static final long EVICTION_GRACE_PERIOD = TimeUnit.MINUTES.toMillis(30);
+
+    /**
+     * The cache keys don't depend on the default hash algorithm, which may differ between the processes sharing the cache.
+     */
+    private static final HashUtils.Algorithm CHECKSUM_ALGORITHM = HashUtils.Algorithm.SHA256;
+
+    private static final String ARCHIVE_STAMP = "archive";
+    private static final String LAYOUT = "layout";
+    private static final String LOCK = ".lock";
+    private static final String SIZE = "size";
+    private static final String TMP = ".tmp";
+
+    private static final Map<Path, FeaturePackLayoutCache> instances = new HashMap<>();
+
+    /**
+     * Returns the cache configured with the {@link Constants#PROP_LAYOUT_CACHE_DIR} and
+     * {@link Constants#PROP_LAYOUT_CACHE_MAX_SIZE} system properties or null, in case
+     * the cache directory has not been configured.
+     *
+     * @return  the configured layout cache or null
+     */
+    public static FeaturePackLayoutCache getDefault() {
+        final String dirStr = PropertyUtils.getSystemProperty(Constants.PROP_LAYOUT_CACHE_DIR);
+        if(dirStr == null || dirStr.isEmpty()) {
+            return null;
+        }
+        final String maxSizeStr = PropertyUtils.getSystemProperty(Constants.PROP_LAYOUT_CACHE_MAX_SIZE);
+        final long maxSize = maxSizeStr == null ? DEFAULT_MAX_SIZE : Long.parseLong(maxSizeStr);
+        return getInstance(Paths.get(dirStr), maxSize);
+    }
+
+    public static FeaturePackLayoutCache getInstance(Path dir, long maxSize) {
+        dir = dir.toAbsolutePath().normalize();
+        synchronized(instances) {
+            FeaturePackLayoutCache cache = instances.get(dir);
+            if(cache == null || cache.maxSize != maxSize) {
+                cache = new FeaturePackLayoutCache(dir, maxSize);
+                instances.put(dir, cache);
+            }
+            return cache;
+        }
+    }
+
+    private final Path dir;
+    private final long maxSize;
+
+    private FeaturePackLayoutCache(Path dir, long maxSize) {
+        this.dir = dir;
+        this.maxSize = maxSize;
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the directory containing the extracted layout of the feature-pack archive.
+     * If the archive has not been extracted into the cache yet, it will be extracted first.
+     * The returned directory must be treated as read-only.
+     *
+     * @param fpid  feature-pack ID
+     * @param archive  feature-pack archive
+     * @return  directory containing the extracted feature-pack layout
+     * @throws ProvisioningException  in case of a failure
+     */
+    public Path getLayout(FPID fpid, Path archive) throws ProvisioningException {
+        final Path fpDir;
+        try {
+            fpDir = dir.resolve(HashUtils.hash(fpid.toString(), CHECKSUM_ALGORITHM));
+        } catch (IOException e) {
+            throw new ProvisioningException("Failed to calculate the cache key for " + fpid, e);
+        }
+        final Path entryDir = fpDir.resolve(getArchiveChecksum(fpDir, archive));
+        if(Files.exists(entryDir)) {
+            touch(entryDir);
+            return entryDir.resolve(LAYOUT);
+        }
+
+        final Path tmpDir = dir.resolve(TMP).resolve(UUID.randomUUID().toString());
+        try {
+            final Path tmpLayout = tmpDir.resolve(LAYOUT);
+            ZipUtils.unzip(archive, tmpLayout);
+            IoUtils.writeFile(tmpDir.resolve(SIZE), String.valueOf(sizeOf(tmpLayout)));
+        } catch (IOException e) {
+            IoUtils.recursiveDelete(tmpDir);
+            throw new ProvisioningException("Failed to unzip " + archive + " to " + tmpDir, e);
+        }
+
+        try {
+            Files.createDirectories(fpDir);
+            Files.move(tmpDir, entryDir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            IoUtils.recursiveDelete(tmpDir);
+            // another process may have extracted the same archive in the meantime
+            if(!Files.exists(entryDir)) {
+                throw new ProvisioningException(Errors.moveFile(tmpDir, entryDir), e);
+            }
+            touch(entryDir);
+            return entryDir.resolve(LAYOUT);
+        }
+
+        evict(entryDir);
+        return entryDir.resolve(LAYOUT);
+    }
+
+    /**
+     * Removes all the entries from the cache.
+     *
+     * @throws ProvisioningException  in case the entries could not be removed
+     */
+    public void clear() throws ProvisioningException {
+        try {
+            withLock(() -> {
+                for(Path entry : listEntries()) {
+                    remove(entry);
+                }
+            });
+        } catch (IOException e) {
+            throw new ProvisioningException("Failed to clear the feature-pack layout cache " + dir, e);
+        }
+    }
+
+    /**
+     * The archive checksum is stored next to the extracted entries along with the algorithm,
+     * the size and the last modified time of the archive, so that it is re-calculated only
+     * when the archive has changed.
+     */
+    private String getArchiveChecksum(Path fpDir, Path archive) throws ProvisioningException {
+        final String stamp;
+        try {
+            stamp = CHECKSUM_ALGORITHM.getName() + ':' + Files.size(archive) + ':' + Files.getLastModifiedTime(archive).toMillis() + ':';
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.readFile(archive), e);
+        }
+        final Path stampFile = fpDir.resolve(ARCHIVE_STAMP);
+        if(Files.exists(stampFile)) {
+            try(BufferedReader reader = Files.newBufferedReader(stampFile)) {
+                final String line = reader.readLine();
+                if(line != null && line.startsWith(stamp) && line.length() > stamp.length()) {
+                    return line.substring(stamp.length());
+                }
+            } catch (IOException e) {
+                // re-calculate
+            }
+        }
+
+        final String checksum;
+        try {
+            checksum = HashUtils.hashFile(archive, CHECKSUM_ALGORITHM);
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.hashCalculation(archive), e);
+        }
+        final Path tmpStamp = fpDir.resolve(ARCHIVE_STAMP + '-' + UUID.randomUUID());
+        try {
+            Files.createDirectories(fpDir);
+            try(BufferedWriter writer = Files.newBufferedWriter(tmpStamp)) {
+                writer.write(stamp);
+                writer.write(checksum);
+            }
+            Files.move(tmpStamp, stampFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // the stamp is only an optimization
+            IoUtils.recursiveDelete(tmpStamp);
+        }
+        return checksum;
+    }
+
+    private void evict(Path keep) throws ProvisioningException {
+        if(maxSize < 0) {
+            return;
+        }
+        try {
+            withLock(() -> {
+                final List<Path> entries = listEntries();
+                long total = 0;
+                final Map<Path, Long> sizes = new HashMap<>(entries.size());
+                final Map<Path, Long> lastUsed = new HashMap<>(entries.size());
+                for(Path entry : entries) {
+                    final long size = readSize(entry);
+                    sizes.put(entry, size);
+                    lastUsed.put(entry, Files.getLastModifiedTime(entry).toMillis());
+                    total += size;
+                }
+                if(total <= maxSize) {
+                    return;
+                }
+                Collections.sort(entries, Comparator.comparing(lastUsed::get));
+                final long usedAfter = System.currentTimeMillis() - EVICTION_GRACE_PERIOD;
+                for(Path entry : entries) {
+                    if(entry.equals(keep) || lastUsed.get(entry) > usedAfter) {
+                        continue;
+                    }
+                    remove(entry);
+                    total -= sizes.get(entry);
+                    if(total <= maxSize) {
+                        break;
+                    }
+                }
+            });
+        } catch (IOException e) {
+            throw new ProvisioningException("Failed to evict entries from the feature-pack layout cache " + dir, e);
+        }
+    }
+
+    private interface LockedTask {
+        void run() throws IOException;
+    }
+
+    /**
+     * Runs the task holding a lock on the cache directory that excludes
+     * other threads as well as other processes.
+     */
+    private synchronized void withLock(LockedTask task) throws IOException {
+        Files.createDirectories(dir);
+        try (FileChannel channel = FileChannel.open(dir.resolve(LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            final FileLock lock = channel.lock();
+            try {
+                task.run();
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private List<Path> listEntries() throws IOException {
+        final List<Path> entries = new ArrayList<>();
+        if(!Files.exists(dir)) {
+            return entries;
+        }
+        try (DirectoryStream<Path> fpDirs = Files.newDirectoryStream(dir)) {
+            for (Path fpDir : fpDirs) {
+                if (!Files.isDirectory(fpDir) || fpDir.getFileName().toString().equals(TMP)) {
+                    continue;
+                }
+                try (DirectoryStream<Path> fpEntries = Files.newDirectoryStream(fpDir)) {
+                    for (Path entry : fpEntries) {
+                        if (Files.isDirectory(entry)) {
+                            entries.add(entry);
+                        }
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    private void remove(Path entry) throws IOException {
+        // move it out of sight first so that a partially deleted entry is never picked up
+        final Path tmpDir = dir.resolve(TMP);
+        Files.createDirectories(tmpDir);
+        final Path removed = tmpDir.resolve(UUID.randomUUID().toString());
+        Files.move(entry, removed, StandardCopyOption.ATOMIC_MOVE);
+        IoUtils.recursiveDelete(removed);
+    }
+
+    private static long readSize(Path entry) {
+        try {
+            return Long.parseLong(IoUtils.readFile(entry.resolve(SIZE)).trim());
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // it's only used to track the least recently used entries
+        }
+    }
+
+    private static long sizeOf(Path dir) throws IOException {
+        final long[] size = new long[1];
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                size[0] += attrs.size();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return size[0];
+    }
+}
@@ -18,6 +18,9 @@
 package org.jboss.galleon.repo;
 
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.jboss.galleon.ProvisioningException;
 
@@ -32,4 +35,22 @@ public interface RepositoryArtifactResolver {
     String getRepositoryId();
 
     Path resolve(String location) throws ProvisioningException;
+
+    /**
+     * Resolves a collection of artifacts at once. Implementations capable of
+     * resolving artifacts in a single pass (e.g. downloading them in parallel)
+     * are expected to override this method, by default the artifacts
+     * are resolved one by one.
+     *
+     * @param locations  locations of the artifacts
+     * @return  paths of the resolved artifacts keyed by their locations
+     * @throws ProvisioningException  in case any of the artifacts could not be resolved
+     */
+    default Map<String, Path> resolveAll(Collection<String> locations) throws ProvisioningException {
+        final Map<String, Path> paths = new HashMap<>(locations.size());
+        for(String location : locations) {
+            paths.put(location, resolve(location));
+        }
+        return paths;
+    }
 }
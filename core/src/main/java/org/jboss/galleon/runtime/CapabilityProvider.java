@@ -33,6 +33,10 @@ abstract class CapabilityProvider {
         capProviders = CollectionUtils.add(capProviders, providers);
     }
 
+    void releaseCapabilityProviders() {
+        capProviders = Collections.emptyList();
+    }
+
     void provided(ConfigFeatureBranch branch) {
         if(capProviders.isEmpty()) {
             return;
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.runtime;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.jboss.galleon.spec.CapabilitySpec;
+import org.jboss.galleon.util.CollectionUtils;
+
+/**
+ * Capability providers of a config indexed by the elements of the capability names.
+ *
+ * <p>A capability name is a path in a tree, each node of which corresponds to an element
+ * of the name, i.e. a part of the name between the dots. Every element is stored only once no matter how many capabilities it is a part of
+ * and the resolved capability names are never concatenated, except for error messages.
+ * The node of the static prefix of a dynamic capability spec (i.e. its elements preceding
+ * the first element resolved from a feature parameter) is looked up only once per spec.
+ */
+class CapabilityRegistry {
+
+    static class Node {
+
+        private final Node parent;
+        private final String elem;
+        private Map<String, Node> children = Collections.emptyMap();
+        private CapabilityProviders providers;
+
+        private Node(Node parent, String elem) {
+            this.parent = parent;
+            this.elem = elem;
+        }
+
+        /**
+         * Returns the node of the name composed of this node's name and the argument,
+         * which may consist of more than one element separated with dots.
+         */
+        Node child(String elem) {
+            int dot = elem.indexOf('.');
+            if(dot < 0) {
+                return getOrAddChild(elem);
+            }
+            Node node = this;
+            int start = 0;
+            while(dot >= 0) {
+                node = node.getOrAddChild(elem.substring(start, dot));
+                start = dot + 1;
+                dot = elem.indexOf('.', start);
+            }
+            return node.getOrAddChild(elem.substring(start));
+        }
+
+        private Node getOrAddChild(String elem) {
+            Node child = children.get(elem);
+            if(child == null) {
+                child = new Node(this, elem);
+                children = CollectionUtils.put(children, elem, child);
+            }
+            return child;
+        }
+
+        boolean isRoot() {
+            return parent == null;
+        }
+
+        @Override
+        public String toString() {
+            if(parent == null) {
+                return "";
+            }
+            if(parent.parent == null) {
+                return elem;
+            }
+            final StringBuilder buf = new StringBuilder();
+            appendName(buf);
+            return buf.toString();
+        }
+
+        private void appendName(StringBuilder buf) {
+            if(parent.parent != null) {
+                parent.appendName(buf);
+                buf.append('.');
+            }
+            buf.append(elem);
+        }
+    }
+
+    private final Node root = new Node(null, null);
+    private final Map<CapabilitySpec, Node> staticPrefixes = new IdentityHashMap<>();
+
+    Node getRoot() {
+        return root;
+    }
+
+    Node getStaticPrefix(CapabilitySpec spec) {
+        return staticPrefixes.get(spec);
+    }
+
+    void setStaticPrefix(CapabilitySpec spec, Node node) {
+        staticPrefixes.put(spec, node);
+    }
+
+    /**
+     * Returns the providers of the capability, adding them if they don't exist yet.
+     */
+    CapabilityProviders getOrAddProviders(Node cap) {
+        if(cap.providers == null) {
+            cap.providers = new CapabilityProviders();
+        }
+        return cap.providers;
+    }
+
+    /**
+     * Returns the providers of the capability or null, if the capability is not provided.
+     */
+    CapabilityProviders getProviders(Node cap) {
+        return cap.providers;
+    }
+}
@@ -32,34 +32,46 @@ import org.jboss.galleon.spec.CapabilitySpec;
  */
 public class CapabilityResolver {
 
-    private ArrayList<StringBuilder> capList = null;
-    private StringBuilder capBuf;
+    private final CapabilityRegistry registry;
+    private CapabilityRegistry.Node cap;
+    private ArrayList<CapabilityRegistry.Node> capList = null;
+    // whether the static elements are skipped because the node of the static prefix was found in the registry
+    private boolean skipStaticPrefix;
+    private boolean inStaticPrefix;
 
     private ResolvedFeature feature;
     private CapabilitySpec capSpec;
     private String currentElem;
 
-    List<String> resolve(CapabilitySpec capSpec, ResolvedFeature feature) throws ProvisioningException {
-        if(capSpec.isStatic()) {
-            return Collections.singletonList(capSpec.toString());
-        }
-        if(capBuf == null) {
-            capBuf = new StringBuilder();
+    CapabilityResolver(CapabilityRegistry registry) {
+        this.registry = registry;
+    }
+
+    List<CapabilityRegistry.Node> resolve(CapabilitySpec capSpec, ResolvedFeature feature) throws ProvisioningException {
+        final CapabilityRegistry.Node prefix = registry.getStaticPrefix(capSpec);
+        if(prefix != null && capSpec.isStatic()) {
+            return Collections.singletonList(prefix);
         }
         this.feature = feature;
         this.capSpec = capSpec;
+        if(prefix == null) {
+            cap = registry.getRoot();
+        } else {
+            cap = prefix;
+            skipStaticPrefix = true;
+        }
+        inStaticPrefix = true;
         try {
             if(!capSpec.resolve(this)) {
                 return Collections.emptyList();
             }
-            if(capList == null) {
-                return capBuf.length() == 0 ? Collections.emptyList() : Collections.singletonList(capBuf.toString());
+            if(inStaticPrefix) {
+                registry.setStaticPrefix(capSpec, cap);
             }
-            List<String> resolved = new ArrayList<>(capList.size());
-            for (int i = 0; i < capList.size(); ++i) {
-                resolved.add(capList.get(i).toString());
+            if(capList == null) {
+                return cap.isRoot() ? Collections.emptyList() : Collections.singletonList(cap);
             }
-            return resolved;
+            return capList;
         } catch(ProvisioningException e) {
             throw new ProvisioningException(Errors.failedToResolveCapability(feature, capSpec), e);
         } finally {
@@ -69,9 +81,10 @@ public class CapabilityResolver {
 
     void reset() {
         feature = null;
+        cap = null;
         capList = null;
-        capBuf.setLength(0);
         currentElem = null;
+        skipStaticPrefix = false;
     }
 
     public CapabilitySpec getSpec() {
@@ -84,43 +97,46 @@ public class CapabilityResolver {
 
     public boolean resolveElement(String elem, boolean isStatic) throws ProvisioningException {
         if(isStatic) {
-            add(elem);
+            if(!skipStaticPrefix) {
+                add(elem);
+            }
             return true;
         }
+        if(inStaticPrefix) {
+            if(!skipStaticPrefix) {
+                registry.setStaticPrefix(capSpec, cap);
+            }
+            inStaticPrefix = false;
+            skipStaticPrefix = false;
+        }
         this.currentElem = elem;
         return feature.spec.resolveCapabilityElement(feature, elem, this);
     }
 
     public CapabilityResolver add(Object elem) throws ProvisioningException {
+        final String str = toStringElem(elem);
         if(capList == null) {
-            if(capBuf.length() > 0) {
-                capBuf.append('.');
-            }
-            capBuf.append(toStringElem(elem));
+            cap = cap.child(str);
             return this;
         }
-        final String str = toStringElem(elem);
         for(int i = 0; i < capList.size(); ++i) {
-            capList.get(i).append('.').append(str);
+            capList.set(i, capList.get(i).child(str));
         }
         return this;
     }
 
     public CapabilityResolver multiply(Collection<?> elems) throws ProvisioningException {
         if(elems.isEmpty()) {
-            throw new ProvisioningException(Errors.illegalCapabilityElement(capSpec, elems.toString(), capBuf.toString()));
+            throw new ProvisioningException(Errors.illegalCapabilityElement(capSpec, elems.toString(), cap.toString()));
         }
         if(elems.size() == 1) {
             add(elems.iterator().next());
             return this;
         }
         if(capList == null) {
-            if(capBuf.length() > 0) {
-                capBuf.append('.');
-            }
             capList = new ArrayList<>(elems.size());
             for(Object o : elems) {
-                capList.add(capBuf.length() == 0 ? new StringBuilder(toStringElem(o)) : new StringBuilder(capBuf).append(toStringElem(o)));
+                capList.add(cap.child(toStringElem(o)));
             }
             return this;
         }
@@ -128,24 +144,24 @@ public class CapabilityResolver {
         capList.ensureCapacity(capList.size() * elems.size());
         final int capsTotal = capList.size();
         for (int i = 0; i < capsTotal; ++i) {
-            final StringBuilder capBuf = capList.get(i).append('.');
+            final CapabilityRegistry.Node cap = capList.get(i);
             final Iterator<?> elemI = elems.iterator();
             final Object firstElem = elemI.next();
             while(elemI.hasNext()) {
-                capList.add(new StringBuilder(capBuf).append(toStringElem(elemI.next())));
+                capList.add(cap.child(toStringElem(elemI.next())));
             }
-            capBuf.append(toStringElem(firstElem));
+            capList.set(i, cap.child(toStringElem(firstElem)));
         }
         return this;
     }
 
     private String toStringElem(Object elem) throws ProvisioningException {
         if(elem == null) {
-            throw new ProvisioningException(Errors.illegalCapabilityElement(capSpec, null, capBuf.toString()));
+            throw new ProvisioningException(Errors.illegalCapabilityElement(capSpec, null, cap.toString()));
         }
         final String str = elem.toString().trim();
         if(str.isEmpty()) {
-            throw new ProvisioningException(Errors.illegalCapabilityElement(capSpec, str, capBuf.toString()));
+            throw new ProvisioningException(Errors.illegalCapabilityElement(capSpec, str, cap.toString()));
         }
         return str;
     }
@@ -16,20 +16,25 @@
  */
 package org.jboss.galleon.runtime;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.jboss.galleon.Constants;
+import org.jboss.galleon.Errors;
 import org.jboss.galleon.ProvisioningDescriptionException;
 import org.jboss.galleon.ProvisioningException;
 import org.jboss.galleon.config.ConfigId;
 import org.jboss.galleon.config.ConfigModel;
 import org.jboss.galleon.config.FeatureGroupSupport;
 import org.jboss.galleon.spec.FeatureDependencySpec;
+import org.jboss.galleon.util.HashUtils;
 
 /**
  * @author Alexey Loubyansky
@@ -356,6 +361,21 @@ class ConfigModelStack {
         }
     }
 
+    /**
+     * Resolves the feature reference mappings of the feature specs used in this config.
+     * Unlike ordering the features, this may load the referenced feature specs
+     * from the feature-packs and so can't be done concurrently with other configs.
+     */
+    void resolveRefMappings() throws ProvisioningException {
+        try {
+            for(SpecFeatures features : specFeatures.values()) {
+                features.spec.resolveRefMappings(rt);
+            }
+        } catch (ProvisioningException e) {
+            throw new ProvisioningException(Errors.failedToBuildConfigSpec(id.getModel(), id.getName()), e);
+        }
+    }
+
     List<ResolvedFeature> orderFeatures() throws ProvisioningException {
         if(orderedFeatures != null) {
             return orderedFeatures;
@@ -363,6 +383,14 @@ class ConfigModelStack {
         if (features.isEmpty()) {
             orderedFeatures = Collections.emptyList();
         } else {
+            // the features without an ID may be shared with other configs, in which case they may still reference the spec features of another config
+            for(SpecFeatures sf : specFeatures.values()) {
+                for(ResolvedFeature feature : sf.getFeatures()) {
+                    if(feature.getSpecFeatures() != sf) {
+                        feature.setSpecFeatures(sf);
+                    }
+                }
+            }
             final String arranger = System.getProperty(Constants.PROP_CONFIG_ARRANGER);
             if(arranger == null) {
                 orderedFeatures = new DefaultBranchedConfigArranger(this).orderFeatures();
@@ -375,6 +403,70 @@ class ConfigModelStack {
         return orderedFeatures;
     }
 
+    /**
+     * Returns a hash of everything the order of the features of the config depends on,
+     * i.e. the config properties, some of which configure the feature arranger,
+     * and the features in the order they were included with their specs, parameters,
+     * unset and reset parameters and dependencies. The configs that have the same
+     * key in the runtimes built from the same feature-packs have the same features
+     * in the same order.
+     *
+     * @param prefix  the part of the key common for all the configs of the runtime
+     * @return  the key
+     * @throws ProvisioningException  in case the key could not be calculated
+     */
+    String getOrderingKey(String prefix) throws ProvisioningException {
+        final StringBuilder buf = new StringBuilder(prefix);
+        if(!props.isEmpty()) {
+            buf.append('\n').append(new TreeMap<>(props));
+        }
+        for(SpecFeatures sf : specFeatures.values()) {
+            buf.append('\n').append(sf.spec.id);
+            for(ResolvedFeature feature : sf.getFeatures()) {
+                buf.append('\n').append(feature.includeNo);
+                for(Map.Entry<String, Object> param : feature.getResolvedParams().entrySet()) {
+                    buf.append(' ').append(param.getKey());
+                    if(param.getValue() != null) {
+                        buf.append('=').append(sf.spec.paramToString(param.getKey(), param.getValue()));
+                    }
+                }
+                if(!feature.unsetParams.isEmpty()) {
+                    buf.append(" unset=").append(new TreeSet<>(feature.unsetParams));
+                }
+                if(!feature.resetParams.isEmpty()) {
+                    buf.append(" reset=").append(new TreeSet<>(feature.resetParams));
+                }
+                for(Map.Entry<ResolvedFeatureId, FeatureDependencySpec> dep : feature.deps.entrySet()) {
+                    buf.append(" dep=").append(dep.getKey()).append(dep.getValue().isInclude() ? "+" : "");
+                }
+            }
+        }
+        try {
+            return HashUtils.hash(buf.toString(), HashUtils.Algorithm.SHA256);
+        } catch (IOException e) {
+            throw new ProvisioningException("Failed to hash the features of config " + id, e);
+        }
+    }
+
+    /**
+     * Releases the state that was required to resolve and order the features of the config.
+     * The ordered features remain available but the config can't be modified or ordered again.
+     * The features shared with other configs should be released only after those configs have been ordered too.
+     */
+    void releaseOrderingState() {
+        for(SpecFeatures sf : specFeatures.values()) {
+            for(ResolvedFeature feature : sf.getFeatures()) {
+                feature.releaseOrderingState();
+            }
+        }
+        specFeatures = Collections.emptyMap();
+        fgFeatures = Collections.emptyList();
+        features = Collections.emptyMap();
+        configs = Collections.emptyList();
+        lastConfig = null;
+        lastProcessedScope = null;
+    }
+
 
     private void addToSpecFeatures(final ResolvedFeature feature) {
         getSpecFeatures(feature.spec).add(feature);
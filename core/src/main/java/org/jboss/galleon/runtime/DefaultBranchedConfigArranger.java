@@ -62,8 +62,8 @@ class DefaultBranchedConfigArranger {
     private final boolean isolateCircularDeps;
     private final boolean mergeIndependentBranches;
 
-    private CapabilityResolver capResolver = new CapabilityResolver();
-    private Map<String, CapabilityProviders> capProviders = Collections.emptyMap();
+    private CapabilityRegistry capRegistry = new CapabilityRegistry();
+    private CapabilityResolver capResolver = new CapabilityResolver(capRegistry);
 
     private List<ConfigFeatureBranch> featureBranches = Collections.emptyList();
     private Map<Object, ConfigFeatureBranch> branchesWithId = Collections.emptyMap();
@@ -255,15 +255,15 @@ class DefaultBranchedConfigArranger {
             if(specFeatures.spec.xmlSpec.providesCapabilities()) {
                 for(CapabilitySpec cap : specFeatures.spec.xmlSpec.getProvidedCapabilities()) {
                     if(cap.isStatic()) {
-                        getProviders(cap.toString(), true).add(specFeatures);
+                        capRegistry.getOrAddProviders(capResolver.resolve(cap, null).get(0)).add(specFeatures);
                     } else {
                         for(ResolvedFeature feature : specFeatures.getFeatures()) {
-                            final List<String> resolvedCaps = capResolver.resolve(cap, feature);
+                            final List<CapabilityRegistry.Node> resolvedCaps = capResolver.resolve(cap, feature);
                             if(resolvedCaps.isEmpty()) {
                                 continue;
                             }
-                            for(String resolvedCap : resolvedCaps) {
-                                getProviders(resolvedCap, true).add(feature);
+                            for(CapabilityRegistry.Node resolvedCap : resolvedCaps) {
+                                capRegistry.getOrAddProviders(resolvedCap).add(feature);
                             }
                         }
                     }
@@ -293,19 +293,6 @@ class DefaultBranchedConfigArranger {
         }
     }
 
-    private CapabilityProviders getProviders(String cap, boolean add) throws ProvisioningException {
-        CapabilityProviders providers = capProviders.get(cap);
-        if(providers != null) {
-            return providers;
-        }
-        if(!add) {
-            throw new ProvisioningException(Errors.noCapabilityProvider(cap));
-        }
-        providers = new CapabilityProviders();
-        capProviders = CollectionUtils.put(capProviders, cap, providers);
-        return providers;
-    }
-
     /**
      * Attempts to order the features of the spec.
      * Terminates immediately when a feature reference loop is detected.
@@ -630,16 +617,14 @@ class DefaultBranchedConfigArranger {
     private List<CircularRefInfo> orderCapabilityProviders(ResolvedFeature feature, List<CircularRefInfo> circularRefs)
             throws ProvisioningException {
         for (CapabilitySpec capSpec : feature.spec.xmlSpec.getRequiredCapabilities()) {
-            final List<String> resolvedCaps = capResolver.resolve(capSpec, feature);
+            final List<CapabilityRegistry.Node> resolvedCaps = capResolver.resolve(capSpec, feature);
             if (resolvedCaps.isEmpty()) {
                 continue;
             }
-            for (String resolvedCap : resolvedCaps) {
-                final CapabilityProviders providers;
-                try {
-                    providers = getProviders(resolvedCap, false);
-                } catch (ProvisioningException e) {
-                    throw new ProvisioningException(Errors.noCapabilityProvider(feature, capSpec, resolvedCap));
+            for (CapabilityRegistry.Node resolvedCap : resolvedCaps) {
+                final CapabilityProviders providers = capRegistry.getProviders(resolvedCap);
+                if(providers == null) {
+                    throw new ProvisioningException(Errors.noCapabilityProvider(feature, capSpec, resolvedCap.toString()));
                 }
                 circularRefs = CollectionUtils.addAll(circularRefs, orderProviders(providers));
                 if(providers.isProvided()) {
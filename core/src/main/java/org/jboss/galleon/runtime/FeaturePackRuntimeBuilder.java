@@ -33,16 +33,15 @@ import org.jboss.galleon.Errors;
 import org.jboss.galleon.ProvisioningDescriptionException;
 import org.jboss.galleon.ProvisioningException;
 import org.jboss.galleon.config.FeatureGroup;
+import org.jboss.galleon.layout.FeaturePackDescriptorCache;
+import org.jboss.galleon.layout.FeaturePackIndex;
 import org.jboss.galleon.spec.FeaturePackSpec;
 import org.jboss.galleon.spec.FeatureSpec;
+import org.jboss.galleon.spec.PackageSpec;
 import org.jboss.galleon.type.ParameterTypeProvider;
 import org.jboss.galleon.type.builtin.BuiltInParameterTypeProvider;
-import org.jboss.galleon.universe.FeaturePackLocation;
 import org.jboss.galleon.universe.FeaturePackLocation.FPID;
-import org.jboss.galleon.universe.Universe;
-import org.jboss.galleon.universe.UniverseResolver;
 import org.jboss.galleon.util.LayoutUtils;
-import org.jboss.galleon.util.ZipUtils;
 import org.jboss.galleon.util.CollectionUtils;
 import org.jboss.galleon.xml.FeatureGroupXmlParser;
 import org.jboss.galleon.xml.FeaturePackXmlParser;
@@ -57,39 +56,84 @@ class FeaturePackRuntimeBuilder {
 
     final FPID fpid;
     final Path dir;
+    // the archive the layout comes from or null, if it is not known
+    final Path archive;
     final FeaturePackSpec spec;
     boolean ordered;
     Map<String, ResolvedFeatureSpec> featureSpecs = null;
     private Map<String, FeatureGroup> fgSpecs = null;
+    // feature specs parsed by the runtime this one is based on
+    private Map<String, FeatureSpec> loadedSpecs = Collections.emptyMap();
+    private final FeaturePackDescriptorCache.Descriptors descriptors;
+    private FeaturePackIndex index;
+    private boolean indexRead;
 
     Map<String, PackageRuntime.Builder> pkgBuilders = Collections.emptyMap();
     List<String> pkgOrder = new ArrayList<>();
 
     private ParameterTypeProvider featureParamTypeProvider = BuiltInParameterTypeProvider.getInstance();
 
-    FeaturePackRuntimeBuilder(UniverseResolver universeResolver, FPID fpid, Path dir) throws ProvisioningException {
-
-        final FeaturePackLocation fpl = fpid.getLocation();
-        final Universe<?> universe = universeResolver.getUniverse(fpl.getUniverse());
-        final Path artifactPath = universe.getProducer(fpl.getProducerName()).getChannel(fpl.getChannelName()).resolve(fpl);
-        try {
-            ZipUtils.unzip(artifactPath, dir);
-        } catch (IOException e) {
-            throw new ProvisioningException("Failed to unzip " + artifactPath + " to " + dir, e);
-        }
+    FeaturePackRuntimeBuilder(FPID fpid, Path dir) throws ProvisioningException {
+        this(fpid, dir, null, null);
+    }
 
+    /**
+     * @param fpid  feature-pack ID
+     * @param dir  feature-pack layout directory
+     * @param archive  feature-pack archive the layout comes from or null, if it is not known
+     * @param descriptors  cached descriptors of the feature-pack or null, if the descriptors are not cached
+     */
+    FeaturePackRuntimeBuilder(FPID fpid, Path dir, Path archive, FeaturePackDescriptorCache.Descriptors descriptors) throws ProvisioningException {
         this.fpid = fpid;
         this.dir = dir;
+        this.archive = archive;
+        this.descriptors = descriptors;
 
-        final Path fpXml = dir.resolve(Constants.FEATURE_PACK_XML);
-        if (!Files.exists(fpXml)) {
-            throw new ProvisioningDescriptionException(Errors.pathDoesNotExist(fpXml));
+        FeaturePackSpec spec = descriptors == null ? null : descriptors.get(Constants.FEATURE_PACK_XML, FeaturePackSpec.class);
+        if(spec == null) {
+            final Path fpXml = dir.resolve(Constants.FEATURE_PACK_XML);
+            if (!Files.exists(fpXml)) {
+                throw new ProvisioningDescriptionException(Errors.pathDoesNotExist(fpXml));
+            }
+            try (BufferedReader reader = Files.newBufferedReader(fpXml)) {
+                spec = FeaturePackXmlParser.getInstance().parse(reader);
+            } catch (IOException | XMLStreamException e) {
+                throw new ProvisioningException(Errors.parseXml(fpXml), e);
+            }
+            if(descriptors != null) {
+                descriptors.put(Constants.FEATURE_PACK_XML, spec);
+            }
         }
+        this.spec = spec;
+    }
 
-        try (BufferedReader reader = Files.newBufferedReader(fpXml)) {
-            this.spec = FeaturePackXmlParser.getInstance().parse(reader);
-        } catch (IOException | XMLStreamException e) {
-            throw new ProvisioningException(Errors.parseXml(fpXml), e);
+    /**
+     * Creates a builder for the feature-pack loaded by another runtime re-using its layout
+     * and the feature-pack, feature and feature group specs that have already been parsed.
+     * The feature specs are resolved again since their references may target
+     * feature-packs of different versions in this runtime.
+     *
+     * @param loaded  feature-pack builder of another runtime
+     */
+    FeaturePackRuntimeBuilder(FeaturePackRuntimeBuilder loaded) {
+        this.fpid = loaded.fpid;
+        this.dir = loaded.dir;
+        this.archive = loaded.archive;
+        this.spec = loaded.spec;
+        this.descriptors = loaded.descriptors;
+        this.index = loaded.index;
+        this.indexRead = loaded.indexRead;
+        if(loaded.fgSpecs != null) {
+            fgSpecs = new HashMap<>(loaded.fgSpecs);
+        }
+        if(loaded.featureSpecs != null) {
+            loadedSpecs = new HashMap<>(loaded.featureSpecs.size() + loaded.loadedSpecs.size());
+            loadedSpecs.putAll(loaded.loadedSpecs);
+            for(Map.Entry<String, ResolvedFeatureSpec> entry : loaded.featureSpecs.entrySet()) {
+                loadedSpecs.put(entry.getKey(), entry.getValue().xmlSpec);
+            }
+        } else {
+            loadedSpecs = loaded.loadedSpecs;
         }
     }
 
@@ -99,20 +143,30 @@ class FeaturePackRuntimeBuilder {
         }
 
         final Path pkgDir = LayoutUtils.getPackageDir(dir, pkgName, false);
-        if(!Files.exists(pkgDir)) {
-            return false;
-        }
-        final Path pkgXml = pkgDir.resolve(Constants.PACKAGE_XML);
-        if(!Files.exists(pkgXml)) {
-            throw new ProvisioningDescriptionException(Errors.pathDoesNotExist(pkgXml));
-        }
-
-        final PackageRuntime.Builder pkgBuilder;
-        try(BufferedReader reader = Files.newBufferedReader(pkgXml)) {
-            pkgBuilder = PackageRuntime.builder(PackageXmlParser.getInstance().parse(reader), pkgDir);
-        } catch (IOException | XMLStreamException e) {
-            throw new ProvisioningException(Errors.parseXml(pkgXml), e);
+        final String pkgPath = descriptors == null ? null : Constants.PACKAGES + '/' + pkgName + '/' + Constants.PACKAGE_XML;
+        PackageSpec pkgSpec = pkgPath == null ? null : descriptors.get(pkgPath, PackageSpec.class);
+        if(pkgSpec == null) {
+            if(!Files.exists(pkgDir)) {
+                return false;
+            }
+            final Path pkgXml = pkgDir.resolve(Constants.PACKAGE_XML);
+            final FeaturePackIndex index = getIndex();
+            pkgSpec = index == null ? null : index.getPackageSpec(pkgName, pkgXml);
+            if(pkgSpec == null) {
+                if(!Files.exists(pkgXml)) {
+                    throw new ProvisioningDescriptionException(Errors.pathDoesNotExist(pkgXml));
+                }
+                try(BufferedReader reader = Files.newBufferedReader(pkgXml)) {
+                    pkgSpec = PackageXmlParser.getInstance().parse(reader);
+                } catch (IOException | XMLStreamException e) {
+                    throw new ProvisioningException(Errors.parseXml(pkgXml), e);
+                }
+            }
+            if(pkgPath != null) {
+                descriptors.put(pkgPath, pkgSpec);
+            }
         }
+        final PackageRuntime.Builder pkgBuilder = PackageRuntime.builder(pkgSpec, pkgDir);
         pkgBuilders = CollectionUtils.put(pkgBuilders, pkgName, pkgBuilder);
 
         if(pkgBuilder.spec.hasPackageDeps()) {
@@ -140,20 +194,27 @@ class FeaturePackRuntimeBuilder {
                 return fgSpec;
             }
         }
-        final Path specXml = dir.resolve(Constants.FEATURE_GROUPS).resolve(name + ".xml");
-        if (Files.exists(specXml)) {
+        final String fgPath = descriptors == null ? null : Constants.FEATURE_GROUPS + '/' + name + ".xml";
+        FeatureGroup fgSpec = fgPath == null ? null : descriptors.get(fgPath, FeatureGroup.class);
+        if(fgSpec == null) {
+            final Path specXml = dir.resolve(Constants.FEATURE_GROUPS).resolve(name + ".xml");
+            if (!Files.exists(specXml)) {
+                return null;
+            }
             try (BufferedReader reader = Files.newBufferedReader(specXml)) {
-                final FeatureGroup fgSpec = FeatureGroupXmlParser.getInstance().parse(reader);
-                if (fgSpecs == null) {
-                    fgSpecs = new HashMap<>();
-                }
-                fgSpecs.put(name, fgSpec);
-                return fgSpec;
+                fgSpec = FeatureGroupXmlParser.getInstance().parse(reader);
             } catch (Exception e) {
                 throw new ProvisioningException(Errors.parseXml(specXml), e);
             }
+            if(fgPath != null) {
+                descriptors.put(fgPath, fgSpec);
+            }
         }
-        return null;
+        if (fgSpecs == null) {
+            fgSpecs = new HashMap<>();
+        }
+        fgSpecs.put(name, fgSpec);
+        return fgSpec;
     }
 
     ResolvedFeatureSpec getFeatureSpec(String name) throws ProvisioningException {
@@ -163,16 +224,32 @@ class FeaturePackRuntimeBuilder {
                 return resolvedSpec;
             }
         }
+        FeatureSpec xmlSpec = loadedSpecs.get(name);
+        if(xmlSpec != null) {
+            return addFeatureSpec(name, xmlSpec);
+        }
+        final String specPath = descriptors == null ? null : Constants.FEATURES + '/' + name + '/' + Constants.SPEC_XML;
+        xmlSpec = specPath == null ? null : descriptors.get(specPath, FeatureSpec.class);
+        if(xmlSpec != null) {
+            return addFeatureSpec(name, xmlSpec);
+        }
         final Path specXml = dir.resolve(Constants.FEATURES).resolve(name).resolve(Constants.SPEC_XML);
+        final FeaturePackIndex index = getIndex();
+        xmlSpec = index == null ? null : index.getFeatureSpec(name, specXml);
+        if(xmlSpec != null) {
+            final ResolvedFeatureSpec resolvedSpec = addFeatureSpec(name, xmlSpec);
+            if(specPath != null) {
+                descriptors.put(specPath, xmlSpec);
+            }
+            return resolvedSpec;
+        }
         if (Files.exists(specXml)) {
             try (BufferedReader reader = Files.newBufferedReader(specXml)) {
-                final FeatureSpec xmlSpec = FeatureSpecXmlParser.getInstance().parse(reader);
-                final ResolvedFeatureSpec resolvedSpec = new ResolvedFeatureSpec(
-                        new ResolvedSpecId(fpid.getProducer(), xmlSpec.getName()), featureParamTypeProvider, xmlSpec);
-                if(featureSpecs == null) {
-                    featureSpecs = new HashMap<>();
+                xmlSpec = FeatureSpecXmlParser.getInstance().parse(reader);
+                final ResolvedFeatureSpec resolvedSpec = addFeatureSpec(name, xmlSpec);
+                if(specPath != null) {
+                    descriptors.put(specPath, xmlSpec);
                 }
-                featureSpecs.put(name, resolvedSpec);
                 return resolvedSpec;
             } catch (Exception e) {
                 throw new ProvisioningDescriptionException(Errors.parseXml(specXml), e);
@@ -181,6 +258,35 @@ class FeaturePackRuntimeBuilder {
         return null;
     }
 
+    /**
+     * Returns the binary index of the feature-pack layout or null, in case the layout
+     * does not include an index or it could not be read. The index is read once
+     * per feature-pack archive, when the first spec that hasn't been cached is requested.
+     */
+    private synchronized FeaturePackIndex getIndex() {
+        if(!indexRead) {
+            index = descriptors == null ? null : descriptors.get(Constants.FEATURE_PACK_INDEX, FeaturePackIndex.class);
+            if(index == null) {
+                index = FeaturePackIndex.read(dir);
+                if(index != null && descriptors != null) {
+                    descriptors.put(Constants.FEATURE_PACK_INDEX, index);
+                }
+            }
+            indexRead = true;
+        }
+        return index;
+    }
+
+    private ResolvedFeatureSpec addFeatureSpec(String name, FeatureSpec xmlSpec) throws ProvisioningException {
+        final ResolvedFeatureSpec resolvedSpec = new ResolvedFeatureSpec(
+                new ResolvedSpecId(fpid.getProducer(), xmlSpec.getName()), featureParamTypeProvider, xmlSpec);
+        if(featureSpecs == null) {
+            featureSpecs = new HashMap<>();
+        }
+        featureSpecs.put(name, resolvedSpec);
+        return resolvedSpec;
+    }
+
     FeaturePackRuntime build(ProvisioningRuntime runtime) throws ProvisioningException {
         return new FeaturePackRuntime(this, runtime);
     }
@@ -51,6 +51,13 @@ public class FpVersionsResolver {
         if(!fp.spec.hasFeaturePackDeps()) {
             return collected;
         }
+        List<FPID> toLoad = Collections.emptyList();
+        for(FeaturePackConfig fpConfig : fp.spec.getFeaturePackDeps()) {
+            if(fpConfig.getLocation().getBuild() != null && !collected.containsKey(fpConfig.getLocation().getProducer())) {
+                toLoad = CollectionUtils.add(toLoad, fpConfig.getLocation().getFPID());
+            }
+        }
+        rt.prefetchFpBuilders(toLoad);
         for(FeaturePackConfig fpConfig : fp.spec.getFeaturePackDeps()) {
             final int size = collected.size();
             collected = CollectionUtils.put(collected, fpConfig.getLocation().getProducer(), fpConfig.getLocation().getFPID());
@@ -128,6 +135,14 @@ public class FpVersionsResolver {
         }
         final int branchSize = branch.size();
         final Collection<FeaturePackConfig> fpDeps = fpDepsConfig.getFeaturePackDeps();
+        List<FPID> toLoad = Collections.emptyList();
+        for(FeaturePackConfig fpConfig : fpDeps) {
+            final FeaturePackLocation fpl = fpConfig.getLocation();
+            if(fpl.getBuild() != null && !loaded.containsKey(fpl.getProducer())) {
+                toLoad = CollectionUtils.add(toLoad, fpl.getFPID());
+            }
+        }
+        rt.prefetchFpBuilders(toLoad);
         Set<FPID> skip = Collections.emptySet();
         for(FeaturePackConfig fpConfig : fpDeps) {
             final FeaturePackLocation fpl = fpConfig.getLocation();
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.runtime;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.jboss.galleon.Errors;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.state.ContentManifest;
+import org.jboss.galleon.util.HashUtils;
+import org.jboss.galleon.util.IoUtils;
+import org.jboss.galleon.util.PathsUtils;
+
+/**
+ * Applies the staged installation to the installation directory by touching
+ * only the files that were added, removed or modified since the previous install.
+ *
+ * <p>The previous install is described by the content manifest recorded in the
+ * provisioned state directory of the installation. A file of the installation is
+ * left untouched if its size and last modified time are still the ones recorded
+ * in the manifest and its recorded hash is the hash of the staged file.
+ * If the installation does not have a manifest, it is replaced with the staged
+ * directory as usual. Either way, the manifest describing the new content
+ * is written into the installation once it has been committed.
+ * The installer can also be used only to record the manifest, in which case
+ * the installation is always replaced with the staged directory.
+ *
+ * <p>If hard-linking is enabled, the added and modified files are hard-linked
+ * from the staged directory, which is deleted afterwards, instead of being copied.
+ * The staged files are linked to the layouts only if the plugins haven't modified them,
+ * see {@link PackageContentInstaller#linkUnchanged()}.
+ *
+ * <p>Unlike replacing the installation directory, the incremental update is not atomic.
+ */
+class IncrementalInstaller {
+
+    private final ProvisioningRuntime runtime;
+    private final Path stagedDir;
+    private final Path installDir;
+    private final Path manifestFile;
+    private final boolean incremental;
+    private final boolean hardLinks;
+
+    private final Map<String, String> stagedFiles = new TreeMap<>();
+    private final Set<String> stagedDirs = new HashSet<>();
+
+    private final Set<String> unchanged = new HashSet<>();
+    private int removed;
+    private int copied;
+
+    IncrementalInstaller(ProvisioningRuntime runtime, boolean incremental, boolean hardLinks) {
+        this.runtime = runtime;
+        this.stagedDir = runtime.getStagedDir();
+        this.installDir = runtime.getInstallDir();
+        this.manifestFile = PathsUtils.getContentManifest(installDir);
+        this.incremental = incremental;
+        this.hardLinks = hardLinks;
+    }
+
+    void install() throws ProvisioningException {
+        collectStaged();
+        final ContentManifest previous = incremental ? readManifest() : null;
+        if(previous == null || !Files.isDirectory(installDir)) {
+            runtime.commitStagedDir();
+        } else {
+            applyChanges(previous);
+            runtime.getMessageWriter().verbose("Updated %s: %d file(s) added or modified, %d removed, %d unchanged",
+                    installDir, copied, removed, unchanged.size());
+        }
+        writeManifest();
+    }
+
+    private void collectStaged() throws ProvisioningException {
+        try {
+            Files.walkFileTree(stagedDir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    stagedDirs.add(relativePath(stagedDir, dir));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    stagedFiles.put(relativePath(stagedDir, file), HashUtils.hashFile(file));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.hashCalculation(stagedDir), e);
+        }
+        stagedFiles.remove(relativePath(installDir, manifestFile));
+    }
+
+    private ContentManifest readManifest() {
+        if(!Files.exists(manifestFile)) {
+            return null;
+        }
+        final ContentManifest manifest;
+        try {
+            manifest = ContentManifest.read(manifestFile);
+        } catch (IOException e) {
+            runtime.getMessageWriter().verbose(e, "Ignoring the content manifest %s", manifestFile);
+            return null;
+        }
+        // the recorded hashes can't be compared to the new ones
+        return manifest.getAlgorithm().equals(HashUtils.getDefaultAlgorithm().getName()) ? manifest : null;
+    }
+
+    private void applyChanges(ContentManifest previous) throws ProvisioningException {
+        final String manifestPath = relativePath(installDir, manifestFile);
+        try {
+            Files.walkFileTree(installDir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    final String path = relativePath(installDir, file);
+                    if(path.equals(manifestPath)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    final String hash = stagedFiles.get(path);
+                    if(hash == null) {
+                        Files.delete(file);
+                        ++removed;
+                        return FileVisitResult.CONTINUE;
+                    }
+                    final ContentManifest.Entry entry = previous.getEntry(path);
+                    if(entry != null && entry.matches(attrs) && entry.getHash().equals(hash)) {
+                        unchanged.add(path);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    if(exc != null) {
+                        throw exc;
+                    }
+                    if(!stagedDirs.contains(relativePath(installDir, dir))) {
+                        Files.delete(dir);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.deletePath(installDir), e);
+        }
+
+        try {
+            Files.walkFileTree(stagedDir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    Files.createDirectories(installDir.resolve(stagedDir.relativize(dir).toString()));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    final String path = relativePath(stagedDir, file);
+                    if(!unchanged.contains(path)) {
+                        final Path target = installDir.resolve(stagedDir.relativize(file).toString());
+                        if(hardLinks) {
+                            IoUtils.linkOrCopy(file, target);
+                        } else {
+                            Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+                        }
+                        ++copied;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.copyFile(stagedDir, installDir), e);
+        }
+    }
+
+    private void writeManifest() throws ProvisioningException {
+        final ContentManifest.Builder builder = ContentManifest.builder();
+        try {
+            for(Map.Entry<String, String> entry : stagedFiles.entrySet()) {
+                final BasicFileAttributes attrs = Files.readAttributes(installDir.resolve(entry.getKey()), BasicFileAttributes.class);
+                builder.addEntry(entry.getKey(), entry.getValue(), attrs.size(), attrs.lastModifiedTime().toMillis());
+            }
+            builder.build().write(manifestFile);
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.writeFile(manifestFile), e);
+        }
+    }
+
+    private static String relativePath(Path root, Path path) {
+        return PathsUtils.toForwardSlashSeparator(root.relativize(path).toString());
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.runtime;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.Errors;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.util.FeaturePackInstallException;
+import org.jboss.galleon.util.IoUtils;
+import org.jboss.galleon.util.PropertyUtils;
+
+/**
+ * Copies the content of the resolved packages into the staged directory.
+ *
+ * <p>The packages are overlaid in the order they were resolved in, i.e. a file
+ * from a package that comes later overwrites the same file from the packages
+ * that come before it. When the installation is performed with more than one thread,
+ * the content trees are first merged into a single map of target paths to the files
+ * that win according to the order above, then the directories are created and the files
+ * are copied in parallel. Each target file is written exactly once.
+ *
+ * <p>If hard-linking is enabled, the files are still copied into the staged directory,
+ * since the plugins may modify them in place, which would also modify the layouts.
+ * Once the plugins have been executed, the files that still have the content
+ * of the layout files they were copied from are replaced with hard links to them,
+ * whenever the file system allows it, see {@link #linkUnchanged()}. Only the files
+ * that are not expected to be edited after the installation, by default the jars,
+ * are linked, since editing a linked file in place would also modify the layout.
+ * The extensions of the files to link can be configured with the
+ * {@link Constants#PROP_INSTALL_HARD_LINKS_EXTENSIONS} system property.
+ */
+class PackageContentInstaller {
+
+    private static class ContentFile {
+        final Path src;
+        final PackageRuntime pkg;
+
+        ContentFile(Path src, PackageRuntime pkg) {
+            this.src = src;
+            this.pkg = pkg;
+        }
+    }
+
+    static int getInstallThreads() {
+        final String threads = PropertyUtils.getSystemProperty(Constants.PROP_INSTALL_THREADS);
+        return threads == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(threads);
+    }
+
+    static Set<String> getHardLinkExtensions() {
+        final String value = PropertyUtils.getSystemProperty(Constants.PROP_INSTALL_HARD_LINKS_EXTENSIONS);
+        if(value == null) {
+            return Collections.singleton("jar");
+        }
+        final Set<String> extensions = new HashSet<>();
+        for(String ext : value.split(",")) {
+            ext = ext.trim();
+            if(!ext.isEmpty()) {
+                extensions.add(ext.charAt(0) == '.' ? ext.substring(1) : ext);
+            }
+        }
+        return extensions;
+    }
+
+    // the coarsest last modified time granularity of the common file systems, i.e. FAT
+    private static final long TIMESTAMP_GRANULARITY = 2000;
+
+    private final ProvisioningRuntime runtime;
+    private final Path target;
+    private final int threads;
+    private final boolean hardLinks;
+    private final Set<String> hardLinkExtensions;
+
+    private final Set<String> dirs = new LinkedHashSet<>();
+    private final Map<String, ContentFile> files = new LinkedHashMap<>();
+    private long copyStartTime;
+
+    PackageContentInstaller(ProvisioningRuntime runtime, Path target, int threads, boolean hardLinks) {
+        this.runtime = runtime;
+        this.target = target;
+        this.threads = threads;
+        this.hardLinks = hardLinks;
+        this.hardLinkExtensions = hardLinks ? getHardLinkExtensions() : Collections.emptySet();
+    }
+
+    void install() throws ProvisioningException {
+        if(threads < 2 && !hardLinks) {
+            for(FeaturePackRuntime fp : runtime.getFeaturePacks()) {
+                runtime.getMessageWriter().verbose("Installing %s", fp.getFPID());
+                for(PackageRuntime pkg : fp.getPackages()) {
+                    final Path pkgSrcDir = pkg.getContentDir();
+                    if (Files.exists(pkgSrcDir)) {
+                        try {
+                            IoUtils.copy(pkgSrcDir, target);
+                        } catch (IOException e) {
+                            throw new FeaturePackInstallException(Errors.packageContentCopyFailed(pkg.getName()), e);
+                        }
+                    }
+                }
+            }
+            return;
+        }
+
+        copyStartTime = System.currentTimeMillis();
+        for(FeaturePackRuntime fp : runtime.getFeaturePacks()) {
+            runtime.getMessageWriter().verbose("Installing %s", fp.getFPID());
+            for(PackageRuntime pkg : fp.getPackages()) {
+                final Path pkgSrcDir = pkg.getContentDir();
+                if (Files.exists(pkgSrcDir)) {
+                    try {
+                        collect(pkg, pkgSrcDir);
+                    } catch (IOException e) {
+                        throw new FeaturePackInstallException(Errors.packageContentCopyFailed(pkg.getName()), e);
+                    }
+                }
+            }
+        }
+
+        // parent directories are always collected before their children
+        for(String dir : dirs) {
+            final Path targetDir = target.resolve(dir);
+            try {
+                Files.createDirectories(targetDir);
+            } catch (FileAlreadyExistsException e) {
+                // not a directory, the failure will be reported by the copy of the conflicting file
+            } catch (IOException e) {
+                throw new ProvisioningException(Errors.mkdirs(targetDir), e);
+            }
+        }
+
+        if(files.isEmpty()) {
+            return;
+        }
+        final AtomicInteger threadIndex = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, files.size())), r -> {
+            final Thread thread = new Thread(r, "galleon-install-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<?>> copyTasks = new ArrayList<>(files.size());
+            final List<ContentFile> copied = new ArrayList<>(files.size());
+            for (Map.Entry<String, ContentFile> entry : files.entrySet()) {
+                final Path targetFile = target.resolve(entry.getKey());
+                final ContentFile file = entry.getValue();
+                copied.add(file);
+                copyTasks.add(executor.submit(() -> {
+                    if(hardLinks) {
+                        // the timestamp is preserved to tell whether the file was modified by the plugins
+                        Files.copy(file.src, targetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                    } else {
+                        Files.copy(file.src, targetFile, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    return null;
+                }));
+            }
+            // wait for all the copies and report the first failure in the install order
+            FeaturePackInstallException failure = null;
+            for (int i = 0; i < copyTasks.size(); ++i) {
+                try {
+                    copyTasks.get(i).get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = new FeaturePackInstallException(Errors.packageContentCopyFailed(copied.get(i).pkg.getName()), e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ProvisioningException("Interrupted while installing package content", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void collect(PackageRuntime pkg, Path contentDir) throws IOException {
+        Files.walkFileTree(contentDir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        dirs.add(contentDir.relativize(dir).toString());
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        files.put(contentDir.relativize(file).toString(), new ContentFile(file, pkg));
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+    }
+
+    /**
+     * Replaces the staged files that still have the content of the layout files
+     * they were copied from with hard links to the layout files. The staged files that were
+     * modified, replaced or deleted, e.g. by the plugins, are left as they are,
+     * so the layouts never share the content with the files that are modified in place.
+     * The files that could be edited after the installation, i.e. those whose extension
+     * is not one of the configured hard link extensions, are never linked.
+     *
+     * <p>A staged file is considered unchanged if its size and last modified time are the same
+     * as those of the layout file. Since a file written during the installation could get the same
+     * timestamp as a layout file extracted right before it on the file systems with a coarse
+     * timestamp granularity, the content of such recently extracted files is also compared.
+     *
+     * @throws ProvisioningException  in case a file could not be linked
+     */
+    void linkUnchanged() throws ProvisioningException {
+        if(!hardLinks) {
+            return;
+        }
+        for(Map.Entry<String, ContentFile> entry : files.entrySet()) {
+            final Path src = entry.getValue().src;
+            if(!isLinkable(entry.getKey()) || !src.getFileSystem().equals(target.getFileSystem())) {
+                continue;
+            }
+            final Path targetFile = target.resolve(entry.getKey());
+            try {
+                if(isUnchanged(src, targetFile)) {
+                    IoUtils.linkOrCopy(src, targetFile);
+                }
+            } catch (IOException e) {
+                throw new FeaturePackInstallException(Errors.packageContentCopyFailed(entry.getValue().pkg.getName()), e);
+            }
+        }
+    }
+
+    private boolean isLinkable(String path) {
+        final int dot = path.lastIndexOf('.');
+        return dot >= 0 && dot > Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\')) && hardLinkExtensions.contains(path.substring(dot + 1));
+    }
+
+    private boolean isUnchanged(Path src, Path targetFile) throws IOException {
+        final BasicFileAttributes targetAttrs;
+        try {
+            targetAttrs = Files.readAttributes(targetFile, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if(!targetAttrs.isRegularFile()) {
+            return false;
+        }
+        final BasicFileAttributes srcAttrs = Files.readAttributes(src, BasicFileAttributes.class);
+        // the copied timestamp may be truncated to the precision supported by the file system
+        final long srcTime = srcAttrs.lastModifiedTime().toMillis();
+        if(srcAttrs.size() != targetAttrs.size() || srcTime != targetAttrs.lastModifiedTime().toMillis()) {
+            return false;
+        }
+        if(srcTime < copyStartTime - TIMESTAMP_GRANULARITY) {
+            return true;
+        }
+        return IoUtils.contentEquals(src, targetFile);
+    }
+}
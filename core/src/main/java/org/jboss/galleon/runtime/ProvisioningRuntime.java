@@ -18,8 +18,10 @@ package org.jboss.galleon.runtime;
 
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -31,6 +33,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Stream;
 
 import javax.xml.stream.XMLStreamException;
@@ -78,46 +81,37 @@ public class ProvisioningRuntime implements FeaturePackSet<FeaturePackRuntime>,
     }
 
     public static void install(ProvisioningRuntime runtime) throws ProvisioningException {
+        final Path stagedDir = runtime.initStagedDir();
+
         // copy package content
-        for(FeaturePackRuntime fp : runtime.fpRuntimes.values()) {
-            runtime.messageWriter.verbose("Installing %s", fp.getFPID());
-            for(PackageRuntime pkg : fp.getPackages()) {
-                final Path pkgSrcDir = pkg.getContentDir();
-                if (Files.exists(pkgSrcDir)) {
-                    try {
-                        IoUtils.copy(pkgSrcDir, runtime.stagedDir);
-                    } catch (IOException e) {
-                        throw new FeaturePackInstallException(Errors.packageContentCopyFailed(pkg.getName()), e);
-                    }
-                }
-            }
-        }
+        final PackageContentInstaller contentInstaller = new PackageContentInstaller(runtime, stagedDir,
+                PackageContentInstaller.getInstallThreads(), runtime.hardLinkContent);
+        contentInstaller.install();
 
         // execute the plug-ins
         runtime.executePlugins();
 
         // save the config
         try {
-            ProvisioningXmlWriter.getInstance().write(runtime.config, PathsUtils.getProvisioningXml(runtime.stagedDir));
+            ProvisioningXmlWriter.getInstance().write(runtime.config, PathsUtils.getProvisioningXml(stagedDir));
         } catch (XMLStreamException | IOException e) {
-            throw new FeaturePackInstallException(Errors.writeFile(PathsUtils.getProvisioningXml(runtime.stagedDir)), e);
+            throw new FeaturePackInstallException(Errors.writeFile(PathsUtils.getProvisioningXml(stagedDir)), e);
         }
 
         // save the provisioned state
         try {
-            ProvisionedStateXmlWriter.getInstance().write(runtime, PathsUtils.getProvisionedStateXml(runtime.stagedDir));
+            ProvisionedStateXmlWriter.getInstance().write(runtime, PathsUtils.getProvisionedStateXml(stagedDir));
         } catch (XMLStreamException | IOException e) {
-            throw new FeaturePackInstallException(Errors.writeFile(PathsUtils.getProvisionedStateXml(runtime.stagedDir)), e);
+            throw new FeaturePackInstallException(Errors.writeFile(PathsUtils.getProvisionedStateXml(stagedDir)), e);
         }
+        // the content left unmodified by the plug-ins can now be shared with the layouts
+        contentInstaller.linkUnchanged();
+
         runtime.messageWriter.verbose("Moving the provisioned installation from the staged directory to %s", runtime.installDir);
-        // copy from the staged to the target installation directory
-        if (Files.exists(runtime.installDir)) {
-            IoUtils.recursiveDelete(runtime.installDir);
-        }
-        try {
-            IoUtils.copy(runtime.stagedDir, runtime.installDir);
-        } catch (IOException e) {
-            throw new ProvisioningException(Errors.copyFile(runtime.stagedDir, runtime.installDir));
+        if(runtime.incrementalInstall || runtime.recordContentManifest) {
+            new IncrementalInstaller(runtime, runtime.incrementalInstall, runtime.hardLinkContent).install();
+        } else {
+            runtime.commitStagedDir();
         }
     }
 
@@ -184,14 +178,20 @@ public class ProvisioningRuntime implements FeaturePackSet<FeaturePackRuntime>,
     private final UniverseResolver universeResolver;
     private ProvisioningConfig config;
     private Path installDir;
-    private final Path stagedDir;
+    private Path stagedDir;
     private final Path workDir;
     private final Path tmpDir;
     private final Path pluginsDir;
     private final Map<ProducerSpec, FeaturePackRuntime> fpRuntimes;
     private final Map<String, String> pluginOptions;
     private final MessageWriter messageWriter;
+    private final List<FileSystem> layoutFileSystems;
+    private final boolean hardLinkContent;
+    private final boolean incrementalInstall;
+    private final boolean recordContentManifest;
     private List<ProvisionedConfig> configs = Collections.emptyList();
+    // the loaded feature-packs, if the runtime is reusable, see ProvisioningRuntimeBuilder.setBaseRuntime()
+    final Map<ProducerSpec, FeaturePackRuntimeBuilder> loadedFps;
     private FileSystemDiffResult diff = FileSystemDiffResult.empty();
     private final String operation;
     private ClassLoader pluginsClassLoader;
@@ -204,20 +204,182 @@ public class ProvisioningRuntime implements FeaturePackSet<FeaturePackRuntime>,
         this.fpRuntimes = builder.getFpRuntimes(this);
         this.pluginsDir = builder.pluginsDir; // the pluginsDir is initialized during the getFpRuntimes() invocation, atm
         this.configs = builder.getResolvedConfigs();
+        this.loadedFps = builder.reusable ? builder.getLoadedFpBuilders() : Collections.emptyMap();
         pluginOptions = CollectionUtils.unmodifiable(builder.pluginOptions);
         this.operation = builder.operation;
 
+        this.layoutFileSystems = builder.layoutFileSystems;
+        this.hardLinkContent = builder.hardLinkContent;
+        this.incrementalInstall = builder.incrementalInstall;
+        this.recordContentManifest = builder.recordContentManifest;
         this.workDir = builder.workDir;
         this.installDir = builder.installDir;
-        this.stagedDir = workDir.resolve("staged");
+
+        this.tmpDir = workDir.resolve("tmp");
+        this.messageWriter = messageWriter;
+    }
+
+    /**
+     * Creates the staged directory, unless it has already been created. The staged directory
+     * is created only when the content is actually installed, so the runtimes that are used only
+     * to resolve the configs or the state don't leave the directories next to the installation.
+     */
+    private Path initStagedDir() throws ProvisioningException {
+        if(stagedDir == null) {
+            if(installDir != null) {
+                deleteStaleInstallDirSiblings();
+            }
+            stagedDir = createStagedDir();
+        }
+        return stagedDir;
+    }
+
+    /**
+     * Deletes the staged and the replaced installation directories left next to the installation
+     * directory by a provisioning that was interrupted before it could clean up after itself.
+     * A replaced installation is kept if the installation directory is missing, since in that case
+     * it is the only copy of the installation.
+     */
+    private void deleteStaleInstallDirSiblings() {
+        final Path installPath = installDir.toAbsolutePath();
+        final Path parent = installPath.getParent();
+        if(parent == null || !Files.isDirectory(parent)) {
+            return;
+        }
+        final String prefix = '.' + installPath.getFileName().toString() + ".galleon-";
+        final boolean installed = Files.exists(installPath);
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(parent, p -> p.getFileName().toString().startsWith(prefix))) {
+            for(Path p : stream) {
+                final String suffix = p.getFileName().toString().substring(prefix.length());
+                if(isInstallDirSibling(suffix, "staged") || installed && isInstallDirSibling(suffix, "old")) {
+                    IoUtils.recursiveDelete(p);
+                }
+            }
+        } catch(IOException e) {
+            // the stale directories will be deleted by the next provisioning
+        }
+    }
+
+    private static boolean isInstallDirSibling(String suffix, String type) {
+        if(!suffix.startsWith(type) || suffix.length() != type.length() + 37 || suffix.charAt(type.length()) != '-') {
+            return false;
+        }
+        try {
+            UUID.fromString(suffix.substring(type.length() + 1));
+            return true;
+        } catch(IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The staged directory is created next to the installation directory, if possible,
+     * so that the provisioned installation can be committed by renaming it.
+     * Otherwise, it is created in the work directory.
+     */
+    private Path createStagedDir() throws ProvisioningException {
+        if(installDir != null) {
+            final Path parent = installDir.toAbsolutePath().getParent();
+            if(parent != null && Files.isDirectory(parent)) {
+                final Path siblingDir = getInstallDirSibling("staged");
+                try {
+                    Files.createDirectory(siblingDir);
+                    return siblingDir;
+                } catch (IOException e) {
+                    // most probably the parent is not writable
+                }
+            }
+        }
+        final Path dir = workDir.resolve("staged");
         try {
-            Files.createDirectories(stagedDir);
+            Files.createDirectories(dir);
         } catch(IOException e) {
-            throw new ProvisioningException(Errors.mkdirs(stagedDir), e);
+            throw new ProvisioningException(Errors.mkdirs(dir), e);
         }
+        return dir;
+    }
 
-        this.tmpDir = workDir.resolve("tmp");
-        this.messageWriter = messageWriter;
+    private Path getInstallDirSibling(String suffix) {
+        final Path installPath = installDir.toAbsolutePath();
+        return installPath.getParent().resolve('.' + installPath.getFileName().toString() + ".galleon-" + suffix + '-' + UUID.randomUUID());
+    }
+
+    /**
+     * Replaces the installation directory with the staged directory.
+     *
+     * <p>If the staged directory is on the same file system as the installation directory,
+     * the installation is committed by renaming the current installation directory
+     * out of the way and renaming the staged directory into its place. Otherwise,
+     * the staged directory is first copied next to the installation directory
+     * and then committed the same way. The previous installation is deleted once the new
+     * one is in place. If the installation directory itself can't be renamed (e.g. it is
+     * a mount point), its content is deleted and replaced with a copy of the staged directory.
+     */
+    void commitStagedDir() throws ProvisioningException {
+        Path newDir = stagedDir;
+        try {
+            Files.createDirectories(installDir.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.mkdirs(installDir.toAbsolutePath().getParent()), e);
+        }
+        if(!stagedDir.toAbsolutePath().getParent().equals(installDir.toAbsolutePath().getParent())) {
+            newDir = getInstallDirSibling("staged");
+            try {
+                Files.move(stagedDir, newDir, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // most probably a different file system
+                try {
+                    IoUtils.copy(stagedDir, newDir);
+                } catch (IOException e1) {
+                    IoUtils.recursiveDelete(newDir);
+                    copyStagedDir();
+                    return;
+                }
+            }
+        }
+
+        Path oldDir = null;
+        if(Files.exists(installDir)) {
+            oldDir = getInstallDirSibling("old");
+            try {
+                Files.move(installDir, oldDir, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                if(newDir != stagedDir) {
+                    IoUtils.recursiveDelete(newDir);
+                }
+                copyStagedDir();
+                return;
+            }
+        }
+        try {
+            Files.move(newDir, installDir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if(newDir != stagedDir) {
+                IoUtils.recursiveDelete(newDir);
+            }
+            if(oldDir != null) {
+                try {
+                    Files.move(oldDir, installDir, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e1) {
+                    throw new ProvisioningException(Errors.moveFile(oldDir, installDir), e1);
+                }
+            }
+            throw new ProvisioningException(Errors.moveFile(newDir, installDir), e);
+        }
+        if(oldDir != null) {
+            IoUtils.recursiveDelete(oldDir);
+        }
+    }
+
+    private void copyStagedDir() throws ProvisioningException {
+        if (Files.exists(installDir)) {
+            IoUtils.recursiveDelete(installDir);
+        }
+        try {
+            IoUtils.copy(stagedDir, installDir);
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.copyFile(stagedDir, installDir));
+        }
     }
 
     private ClassLoader getPluginClassloader() throws ProvisioningException {
@@ -249,11 +411,20 @@ public class ProvisioningRuntime implements FeaturePackSet<FeaturePackRuntime>,
     }
 
     /**
-     * The target staged location
+     * The target staged location. The staged directory is created on the first call,
+     * unless the content has already been installed.
      *
      * @return the staged location
+     * @throws IllegalStateException  if the staged directory could not be created
      */
     public Path getStagedDir() {
+        if(stagedDir == null) {
+            try {
+                initStagedDir();
+            } catch (ProvisioningException e) {
+                throw new IllegalStateException(e.getLocalizedMessage(), e);
+            }
+        }
         return stagedDir;
     }
 
@@ -544,7 +715,11 @@ public class ProvisioningRuntime implements FeaturePackSet<FeaturePackRuntime>,
                 }
             }
         }
+        ProvisioningRuntimeBuilder.closeLayoutFileSystems(layoutFileSystems);
         IoUtils.recursiveDelete(workDir);
+        if(stagedDir != null && !stagedDir.startsWith(workDir)) {
+            IoUtils.recursiveDelete(stagedDir);
+        }
         //if (messageWriter.isVerboseEnabled()) {
             final long time = System.currentTimeMillis() - startTime;
             final long seconds = time / 1000;
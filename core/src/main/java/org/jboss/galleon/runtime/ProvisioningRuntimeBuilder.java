@@ -18,6 +18,8 @@ package org.jboss.galleon.runtime;
 
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -29,6 +31,16 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jboss.galleon.Constants;
 import org.jboss.galleon.DefaultMessageWriter;
@@ -47,6 +59,8 @@ import org.jboss.galleon.config.FeaturePackConfig;
 import org.jboss.galleon.config.FeaturePackDepsConfig;
 import org.jboss.galleon.config.PackageConfig;
 import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.layout.FeaturePackDescriptorCache;
+import org.jboss.galleon.layout.FeaturePackLayoutCache;
 import org.jboss.galleon.spec.FeatureDependencySpec;
 import org.jboss.galleon.spec.FeatureId;
 import org.jboss.galleon.spec.FeatureReferenceSpec;
@@ -60,7 +74,9 @@ import org.jboss.galleon.universe.FeaturePackLocation.ProducerSpec;
 import org.jboss.galleon.universe.UniverseResolver;
 import org.jboss.galleon.util.IoUtils;
 import org.jboss.galleon.util.LayoutUtils;
+import org.jboss.galleon.util.PropertyUtils;
 import org.jboss.galleon.util.CollectionUtils;
+import org.jboss.galleon.util.ZipUtils;
 
 
 /**
@@ -89,6 +105,16 @@ public class ProvisioningRuntimeBuilder {
     String encoding;
     String operation;
     UniverseResolver universeResolver;
+    FeaturePackLayoutCache layoutCache = FeaturePackLayoutCache.getDefault();
+    FeaturePackDescriptorCache descriptorCache = FeaturePackDescriptorCache.getDefault();
+    boolean zipBackedLayout = Boolean.parseBoolean(PropertyUtils.getSystemProperty(Constants.PROP_LAYOUT_ZIP_BACKED));
+    List<FileSystem> layoutFileSystems = Collections.emptyList();
+    boolean hardLinkContent = Boolean.parseBoolean(PropertyUtils.getSystemProperty(Constants.PROP_INSTALL_HARD_LINKS));
+    boolean incrementalInstall = Boolean.parseBoolean(PropertyUtils.getSystemProperty(Constants.PROP_INSTALL_INCREMENTAL));
+    boolean recordContentManifest = Boolean.parseBoolean(PropertyUtils.getSystemProperty(Constants.PROP_CONTENT_MANIFEST));
+    Path configCacheDir = ResolvedConfigsCache.getDefaultDir();
+    boolean reusable;
+    private ProvisioningRuntime baseRuntime;
     ProvisioningConfig config;
     private Map<ProducerSpec, FPID> uninstallFps = Collections.emptyMap();
     Path installDir;
@@ -99,6 +125,11 @@ public class ProvisioningRuntimeBuilder {
     private final MessageWriter messageWriter;
 
     private final Map<ProducerSpec, FeaturePackRuntimeBuilder> fpRtBuilders = new HashMap<>();
+    // feature-packs being loaded in the background, see prefetchFpBuilders()
+    private ExecutorService fpLoader;
+    private Map<FPID, Future<FeaturePackRuntimeBuilder>> fpLoadTasks;
+    // artifacts resolved in a single pass for the feature-packs being loaded, see prefetchFpArtifacts()
+    private Map<FPID, Path> prefetchedFpArtifacts;
     private List<FeaturePackRuntimeBuilder> fpRtBuildersOrdered = new ArrayList<>();
 
     List<ConfigModelStack> anonymousConfigs = Collections.emptyList();
@@ -138,6 +169,147 @@ public class ProvisioningRuntimeBuilder {
         return this;
     }
 
+    /**
+     * Sets the cache of extracted feature-pack layouts. By default, the cache configured with
+     * the system properties is used, see {@link FeaturePackLayoutCache#getDefault()}.
+     * If the cache is null, the feature-packs are extracted into the work directory
+     * of the runtime.
+     *
+     * @param layoutCache  feature-pack layout cache or null
+     * @return  this builder
+     */
+    public ProvisioningRuntimeBuilder setLayoutCache(FeaturePackLayoutCache layoutCache) {
+        this.layoutCache = layoutCache;
+        return this;
+    }
+
+    /**
+     * Sets the process-wide cache of the parsed feature-pack descriptors. By default, the cache
+     * configured with the system properties is used, see {@link FeaturePackDescriptorCache#getDefault()}.
+     * If the cache is null, the descriptors are parsed by every runtime.
+     *
+     * @param descriptorCache  feature-pack descriptor cache or null
+     * @return  this builder
+     */
+    public ProvisioningRuntimeBuilder setDescriptorCache(FeaturePackDescriptorCache descriptorCache) {
+        this.descriptorCache = descriptorCache;
+        return this;
+    }
+
+    /**
+     * Whether the feature-pack layouts should be read straight from the feature-pack
+     * archives instead of extracting them. In this case, the descriptors are parsed
+     * only when they are referenced and the package content is read from the archive
+     * at install time. The paths exposed by the runtime for the feature-pack resources
+     * and the package content will then belong to the zip file system of the archive.
+     * The layout cache, if configured, takes precedence over this setting.
+     *
+     * @param zipBackedLayout  whether to read the layouts from the archives
+     * @return  this builder
+     */
+    public ProvisioningRuntimeBuilder setZipBackedLayout(boolean zipBackedLayout) {
+        this.zipBackedLayout = zipBackedLayout;
+        return this;
+    }
+
+    /**
+     * Whether the package content files should be hard-linked from the extracted
+     * feature-pack layouts into the installation instead of being copied. This is mostly
+     * useful in combination with the layout cache, in which case all the installations
+     * provisioned from the same cached layouts share the content of the package files on disk.
+     * The files that could not be linked (e.g. the layout is on a different file store or is
+     * read from the archive) are copied. Only the files that have not been modified by the plugins
+     * are linked. The linked files must not be modified in place after the installation,
+     * since that would also modify the layout they were linked from.
+     *
+     * @param hardLinkContent  whether to hard-link the package content
+     * @return  this builder
+     */
+    public ProvisioningRuntimeBuilder setHardLinkContent(boolean hardLinkContent) {
+        this.hardLinkContent = hardLinkContent;
+        return this;
+    }
+
+    /**
+     * Whether an existing installation should be updated incrementally, i.e. only the files
+     * that were added, removed or modified since the previous install are written to
+     * the installation directory instead of replacing the whole installation.
+     * This requires the content manifest recorded by the previous incremental install.
+     *
+     * @param incrementalInstall  whether to update the installation incrementally
+     * @return  this builder
+     */
+    public ProvisioningRuntimeBuilder setIncrementalInstall(boolean incrementalInstall) {
+        this.incrementalInstall = incrementalInstall;
+        return this;
+    }
+
+    /**
+     * Whether the content manifest, i.e. the hash, the size and the last modified time
+     * of every file, should be recorded in the provisioned state directory of the installation.
+     * The manifest is then used by {@link org.jboss.galleon.diff.FileSystemDiff} to avoid
+     * re-hashing the files that have not changed since they were installed.
+     * The manifest is always recorded by the incremental install.
+     *
+     * @param recordContentManifest  whether to record the content manifest
+     * @return  this builder
+     */
+    public ProvisioningRuntimeBuilder setRecordContentManifest(boolean recordContentManifest) {
+        this.recordContentManifest = recordContentManifest;
+        return this;
+    }
+
+    /**
+     * Directory in which the resolved configs should be cached. When the same provisioning
+     * configuration is provisioned again from the same feature-pack layouts with the same
+     * plugin options, the features of the configs are not ordered again but are read from the cache.
+     * If the directory is null, which is the default unless the {@link Constants#PROP_CONFIG_CACHE_DIR}
+     * system property is set, the configs are not cached.
+     *
+     * @param configCacheDir  resolved config cache directory or null
+     * @return  this builder
+     */
+    public ProvisioningRuntimeBuilder setConfigCacheDir(Path configCacheDir) {
+        this.configCacheDir = configCacheDir;
+        return this;
+    }
+
+    /**
+     * Whether the runtime being built could be used as the base for another runtime,
+     * see {@link #setBaseRuntime(ProvisioningRuntime)}. In this case, the runtime keeps
+     * the loaded feature-pack descriptions and a hash of the features of every config.
+     *
+     * @param reusable  whether the runtime could be used as a base for another runtime
+     * @return  this builder
+     */
+    public ProvisioningRuntimeBuilder setReusable(boolean reusable) {
+        this.reusable = reusable;
+        return this;
+    }
+
+    /**
+     * Sets the runtime built for a previous version of the provisioning configuration,
+     * e.g. before adding a feature or excluding a package, which is meant for the interactive
+     * editing of the configuration. The feature-pack layouts and the feature-pack,
+     * feature and feature group specs loaded by the base runtime are re-used instead of
+     * being extracted and parsed again and the configs whose features are the same
+     * as in the base runtime are not ordered again.
+     *
+     * <p>The base runtime must have been built as {@link #setReusable(boolean) reusable}
+     * and should not be closed while this runtime is in use, otherwise the feature-packs
+     * are loaded again. The runtime being built is also reusable.
+     *
+     * @param baseRuntime  runtime built for a previous version of the configuration or null
+     * @return  this builder
+     */
+    public ProvisioningRuntimeBuilder setBaseRuntime(ProvisioningRuntime baseRuntime) {
+        this.baseRuntime = baseRuntime;
+        if(baseRuntime != null) {
+            reusable = true;
+        }
+        return this;
+    }
+
     public ProvisioningRuntimeBuilder setConfig(ProvisioningConfig config) {
         this.config = config;
         return this;
@@ -162,6 +334,8 @@ public class ProvisioningRuntimeBuilder {
         try {
             return doBuild();
         } catch(ProvisioningException | RuntimeException | Error e) {
+            stopFpLoader();
+            closeLayoutFileSystems(layoutFileSystems);
             IoUtils.recursiveDelete(workDir);
             throw e;
         }
@@ -230,12 +404,15 @@ public class ProvisioningRuntimeBuilder {
 
             if(!config.hasFeaturePackDeps()) {
                 emptyHomeDir();
+                stopFpLoader();
+                closeLayoutFileSystems(layoutFileSystems);
                 IoUtils.recursiveDelete(workDir);
                 return null;
             }
         }
 
         FpVersionsResolver.resolveFpVersions(this);
+        stopFpLoader();
 
         fpConfigStack = new FpStack(config);
 
@@ -799,14 +976,256 @@ public class ProvisioningRuntimeBuilder {
     FeaturePackRuntimeBuilder getOrLoadFpBuilder(FPID fpid) throws ProvisioningException {
         FeaturePackRuntimeBuilder fp = getFpBuilder(fpid.getProducer(), false);
         if(fp == null) {
-            final Path fpDir = LayoutUtils.getFeaturePackDir(layoutDir, fpid, false);
-            mkdirs(fpDir);
-            fp = new FeaturePackRuntimeBuilder(universeResolver, fpid, fpDir);
+            if(fpLoadTasks == null) {
+                fp = loadFpBuilder(fpid);
+            } else {
+                Future<FeaturePackRuntimeBuilder> loadTask = fpLoadTasks.get(fpid);
+                if(loadTask == null) {
+                    // registered before loading so that a background task never unpacks the same feature-pack concurrently
+                    final FutureTask<FeaturePackRuntimeBuilder> inlineTask = new FutureTask<>(() -> loadFpBuilder(fpid));
+                    loadTask = fpLoadTasks.putIfAbsent(fpid, inlineTask);
+                    if(loadTask == null) {
+                        inlineTask.run();
+                        loadTask = inlineTask;
+                    }
+                }
+                fp = getLoadedFpBuilder(loadTask);
+            }
             fpRtBuilders.put(fpid.getProducer(), fp);
         }
         return fp;
     }
 
+    /**
+     * Starts loading the feature-packs on the background threads. The caller is expected
+     * to pass only the feature-packs it is going to request next, the feature-pack dependency graph
+     * is still walked in the same order by the caller, {@link #getOrLoadFpBuilder(FPID)} just waits
+     * for the result of the background task and reports its failure, if any, so the errors are reported
+     * as if the feature-packs were loaded one by one.
+     *
+     * @param fpids  feature-packs to load
+     */
+    void prefetchFpBuilders(Collection<FPID> fpids) {
+        if(fpids.size() < 2) {
+            // nothing to load in parallel with
+            return;
+        }
+        if(fpLoadTasks == null) {
+            final int threads = getFpLoaderThreads();
+            if(threads < 2) {
+                return;
+            }
+            fpLoadTasks = new ConcurrentHashMap<>();
+            final AtomicInteger threadIndex = new AtomicInteger();
+            fpLoader = Executors.newFixedThreadPool(threads, r -> {
+                final Thread thread = new Thread(r, "galleon-fp-loader-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else if(fpLoader == null) {
+            return;
+        }
+        List<FPID> toLoad = Collections.emptyList();
+        for(FPID fpid : fpids) {
+            if(fpRtBuilders.containsKey(fpid.getProducer()) || fpLoadTasks.containsKey(fpid)) {
+                continue;
+            }
+            toLoad = CollectionUtils.add(toLoad, fpid);
+        }
+        prefetchFpArtifacts(toLoad);
+        for(FPID fpid : toLoad) {
+            final FutureTask<FeaturePackRuntimeBuilder> loadTask = new FutureTask<>(() -> loadFpBuilder(fpid));
+            if(fpLoadTasks.putIfAbsent(fpid, loadTask) == null) {
+                try {
+                    fpLoader.execute(loadTask);
+                } catch(RejectedExecutionException e) {
+                    // the loader has been stopped, the feature-pack will be loaded on demand
+                    fpLoadTasks.remove(fpid);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves the artifacts of the feature-packs about to be loaded in a single pass,
+     * so that the repository managers capable of it could download the missing ones in parallel.
+     * In case of a failure, the artifacts are resolved by the loading tasks one by one,
+     * so the errors are reported as if the artifacts were never prefetched.
+     *
+     * @param fpids  feature-packs to be loaded
+     */
+    private void prefetchFpArtifacts(List<FPID> fpids) {
+        List<FeaturePackLocation> fpls = Collections.emptyList();
+        for(FPID fpid : fpids) {
+            if(getBaseFpBuilder(fpid) == null) {
+                fpls = CollectionUtils.add(fpls, fpid.getLocation());
+            }
+        }
+        if(fpls.size() < 2) {
+            return;
+        }
+        final Map<FeaturePackLocation, Path> paths;
+        try {
+            paths = universeResolver.resolveAll(fpls);
+        } catch (ProvisioningException e) {
+            return;
+        }
+        if(prefetchedFpArtifacts == null) {
+            prefetchedFpArtifacts = new ConcurrentHashMap<>();
+        }
+        for(Map.Entry<FeaturePackLocation, Path> entry : paths.entrySet()) {
+            if(entry.getValue() != null) {
+                prefetchedFpArtifacts.put(entry.getKey().getFPID(), entry.getValue());
+            }
+        }
+    }
+
+    private static int getFpLoaderThreads() {
+        final String threads = PropertyUtils.getSystemProperty(Constants.PROP_FP_LOADER_THREADS);
+        return threads == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(threads);
+    }
+
+    private static FeaturePackRuntimeBuilder getLoadedFpBuilder(Future<FeaturePackRuntimeBuilder> loadTask) throws ProvisioningException {
+        try {
+            return loadTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProvisioningException("Interrupted while loading a feature-pack", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if(cause instanceof ProvisioningException) {
+                throw (ProvisioningException) cause;
+            }
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ProvisioningException(cause);
+        }
+    }
+
+    /**
+     * Stops the background feature-pack loading. The tasks that haven't been requested
+     * by the time the feature-pack graph has been walked are not needed: the ones that haven't
+     * started yet are cancelled and the running ones are interrupted. The layouts loaded
+     * by the completed ones are released right away, the resources of the interrupted ones
+     * are released when the runtime is closed.
+     */
+    private void stopFpLoader() {
+        if(fpLoader == null) {
+            return;
+        }
+        fpLoader.shutdown();
+        List<Future<FeaturePackRuntimeBuilder>> unrequested = Collections.emptyList();
+        for(Map.Entry<FPID, Future<FeaturePackRuntimeBuilder>> entry : fpLoadTasks.entrySet()) {
+            final FeaturePackRuntimeBuilder fp = fpRtBuilders.get(entry.getKey().getProducer());
+            if(fp == null || !fp.fpid.equals(entry.getKey())) {
+                entry.getValue().cancel(true);
+                unrequested = CollectionUtils.add(unrequested, entry.getValue());
+            }
+        }
+        try {
+            while(!fpLoader.awaitTermination(1, TimeUnit.SECONDS)) {
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        fpLoader = null;
+        for(Future<FeaturePackRuntimeBuilder> task : unrequested) {
+            if(task.isCancelled()) {
+                continue;
+            }
+            try {
+                releaseFpLayout(task.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | ProvisioningException e) {
+                // the feature-pack was not needed, so neither is its failure
+            }
+        }
+    }
+
+    /**
+     * Releases the layout of a feature-pack that was loaded but is not going to be used.
+     * The layouts shared with the base runtime and the layout cache are left as they are.
+     */
+    private void releaseFpLayout(FeaturePackRuntimeBuilder fp) throws ProvisioningException {
+        if(zipBackedLayout) {
+            final FileSystem zipfs = fp.dir.getFileSystem();
+            final boolean owned;
+            synchronized(this) {
+                owned = layoutFileSystems.contains(zipfs);
+                if(owned) {
+                    layoutFileSystems = CollectionUtils.remove(layoutFileSystems, layoutFileSystems.indexOf(zipfs));
+                }
+            }
+            if(owned) {
+                closeLayoutFileSystems(Collections.singletonList(zipfs));
+            }
+        } else if(layoutCache == null && fp.dir.equals(LayoutUtils.getFeaturePackDir(layoutDir, fp.fpid, false))) {
+            IoUtils.recursiveDelete(fp.dir);
+        }
+    }
+
+    private FeaturePackRuntimeBuilder getBaseFpBuilder(FPID fpid) {
+        if(baseRuntime != null) {
+            final FeaturePackRuntimeBuilder loaded = baseRuntime.loadedFps.get(fpid.getProducer());
+            if(loaded != null && loaded.fpid.equals(fpid) && loaded.dir.getFileSystem().isOpen() && Files.exists(loaded.dir)) {
+                return loaded;
+            }
+        }
+        return null;
+    }
+
+    private FeaturePackRuntimeBuilder loadFpBuilder(FPID fpid) throws ProvisioningException {
+        final FeaturePackRuntimeBuilder loaded = getBaseFpBuilder(fpid);
+        if(loaded != null) {
+            return new FeaturePackRuntimeBuilder(loaded);
+        }
+        final Path artifactPath = resolveFpArtifact(fpid);
+        return new FeaturePackRuntimeBuilder(fpid, getFpLayoutDir(fpid, artifactPath), artifactPath,
+                descriptorCache == null ? null : descriptorCache.getDescriptors(fpid, artifactPath));
+    }
+
+    private Path resolveFpArtifact(FPID fpid) throws ProvisioningException {
+        if(prefetchedFpArtifacts != null) {
+            final Path path = prefetchedFpArtifacts.remove(fpid);
+            if(path != null) {
+                return path;
+            }
+        }
+        final FeaturePackLocation fpl = fpid.getLocation();
+        return universeResolver.getChannel(fpl).resolve(fpl);
+    }
+
+    private Path getFpLayoutDir(FPID fpid, Path artifactPath) throws ProvisioningException {
+        if(layoutCache != null) {
+            return layoutCache.getLayout(fpid, artifactPath);
+        }
+        if(zipBackedLayout) {
+            final FileSystem zipfs;
+            try {
+                zipfs = FileSystems.newFileSystem(artifactPath, (ClassLoader) null);
+            } catch (IOException e) {
+                throw new ProvisioningException(Errors.openFile(artifactPath), e);
+            }
+            synchronized(this) {
+                layoutFileSystems = CollectionUtils.add(layoutFileSystems, zipfs);
+            }
+            return zipfs.getPath("/");
+        }
+        final Path fpDir = LayoutUtils.getFeaturePackDir(layoutDir, fpid, false);
+        mkdirs(fpDir);
+        try {
+            ZipUtils.unzip(artifactPath, fpDir);
+        } catch (IOException e) {
+            throw new ProvisioningException("Failed to unzip " + artifactPath + " to " + fpDir, e);
+        }
+        return fpDir;
+    }
+
     private void resolvePackage(final String pkgName) throws ProvisioningException {
         if(resolvePackage(currentOrigin, pkgName, Collections.emptySet(), false)) {
             return;
@@ -903,7 +1322,7 @@ public class ProvisioningRuntimeBuilder {
             return Collections.emptyList();
         }
 
-        List<ProvisionedConfig> configList = new ArrayList<>(configsTotal);
+        final List<ConfigModelStack> configList = new ArrayList<>(configsTotal);
         if(!anonymousConfigs.isEmpty()) {
             for (ConfigModelStack config : anonymousConfigs) {
                 orderConfig(config, configList, Collections.emptySet());
@@ -927,12 +1346,103 @@ public class ProvisioningRuntimeBuilder {
                 }
             }
         }
-        return configList.size() > 0 ? Collections.unmodifiableList(configList) : configList;
+
+        final String[] orderingKeys = reusable ? getOrderingKeys(configList) : null;
+
+        final ResolvedConfigsCache cache = configCacheDir == null ? null : new ResolvedConfigsCache(this, messageWriter, configCacheDir, fpRtBuilders.values());
+        if(cache != null) {
+            final List<ProvisionedConfig> cachedConfigs = cache.read();
+            if(cachedConfigs != null) {
+                if(orderingKeys != null && cachedConfigs.size() == orderingKeys.length) {
+                    for(int i = 0; i < orderingKeys.length; ++i) {
+                        ((ResolvedConfig) cachedConfigs.get(i)).orderingKey = orderingKeys[i];
+                    }
+                }
+                return cachedConfigs;
+            }
+        }
+
+        final List<ProvisionedConfig> resolvedConfigs;
+        if(orderingKeys == null) {
+            resolvedConfigs = ResolvedConfigsBuilder.build(configList, ResolvedConfigsBuilder.getConfigThreads());
+        } else {
+            resolvedConfigs = buildChangedConfigs(configList, orderingKeys);
+        }
+        if(cache != null) {
+            cache.write(resolvedConfigs);
+        }
+        return resolvedConfigs.size() > 0 ? Collections.unmodifiableList(resolvedConfigs) : resolvedConfigs;
     }
 
-    private void orderConfig(ConfigModelStack config, List<ProvisionedConfig> configList, Set<ConfigId> scheduledIds) throws ProvisioningException {
+    private String[] getOrderingKeys(List<ConfigModelStack> configList) throws ProvisioningException {
+        final Set<String> fpids = new TreeSet<>();
+        for(FeaturePackRuntimeBuilder fp : fpRtBuilders.values()) {
+            fpids.add(fp.fpid.toString());
+        }
+        final StringBuilder buf = new StringBuilder();
+        for(String fpid : fpids) {
+            buf.append(fpid).append('\n');
+        }
+        buf.append(PropertyUtils.getSystemProperty(Constants.PROP_CONFIG_ARRANGER));
+        final String prefix = buf.toString();
+        final String[] keys = new String[configList.size()];
+        for(int i = 0; i < keys.length; ++i) {
+            keys[i] = configList.get(i).getOrderingKey(prefix);
+        }
+        return keys;
+    }
+
+    /**
+     * Orders the features of the configs that were not ordered by the base runtime
+     * from the same features and re-uses the features of the rest.
+     */
+    private List<ProvisionedConfig> buildChangedConfigs(List<ConfigModelStack> configList, String[] orderingKeys) throws ProvisioningException {
+        Map<String, ResolvedConfig> baseConfigs = Collections.emptyMap();
+        if(baseRuntime != null && baseRuntime.hasConfigs()) {
+            for(ProvisionedConfig config : baseRuntime.getConfigs()) {
+                final ResolvedConfig resolved = (ResolvedConfig) config;
+                if(resolved.orderingKey != null) {
+                    baseConfigs = CollectionUtils.put(baseConfigs, resolved.orderingKey, resolved);
+                }
+            }
+        }
+        final ResolvedConfig[] reused = new ResolvedConfig[configList.size()];
+        List<ConfigModelStack> changedConfigs = configList;
+        if(!baseConfigs.isEmpty()) {
+            changedConfigs = new ArrayList<>(configList.size());
+            for(int i = 0; i < reused.length; ++i) {
+                final ResolvedConfig baseConfig = baseConfigs.get(orderingKeys[i]);
+                if(baseConfig == null) {
+                    changedConfigs.add(configList.get(i));
+                } else {
+                    reused[i] = baseConfig.reuse(configList.get(i));
+                }
+            }
+            if(changedConfigs.size() < configList.size()) {
+                messageWriter.verbose("Re-using the features of %s out of %s configs", configList.size() - changedConfigs.size(), configList.size());
+            }
+        }
+        final List<ProvisionedConfig> orderedConfigs = ResolvedConfigsBuilder.build(changedConfigs, ResolvedConfigsBuilder.getConfigThreads());
+        final List<ProvisionedConfig> resolvedConfigs = new ArrayList<>(reused.length);
+        int ordered = 0;
+        for(int i = 0; i < reused.length; ++i) {
+            ResolvedConfig config = reused[i];
+            if(config == null) {
+                config = (ResolvedConfig) orderedConfigs.get(ordered++);
+                config.orderingKey = orderingKeys[i];
+            }
+            resolvedConfigs.add(config);
+        }
+        return resolvedConfigs;
+    }
+
+    Map<ProducerSpec, FeaturePackRuntimeBuilder> getLoadedFpBuilders() {
+        return fpRtBuilders.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(fpRtBuilders));
+    }
+
+    private void orderConfig(ConfigModelStack config, List<ConfigModelStack> configList, Set<ConfigId> scheduledIds) throws ProvisioningException {
         if(!config.hasConfigDeps()) {
-            configList.add(ResolvedConfig.build(config));
+            configList.add(config);
             return;
         }
         if(!config.id.isAnonymous()) {
@@ -975,13 +1485,13 @@ public class ProvisioningRuntimeBuilder {
             }
         }
         scheduledIds = CollectionUtils.remove(scheduledIds, config.id);
-        configList.add(ResolvedConfig.build(config));
+        configList.add(config);
     }
 
-    private boolean contains(List<ProvisionedConfig> configList, ConfigId depId) {
+    private boolean contains(List<ConfigModelStack> configList, ConfigId depId) {
         int i = 0;
         while(i < configList.size()) {
-            if(((ResolvedConfig)configList.get(i++)).id.equals(depId)) {
+            if(configList.get(i++).id.equals(depId)) {
                 return true;
             }
         }
@@ -1012,6 +1522,15 @@ public class ProvisioningRuntimeBuilder {
         }
     }
 
+    static void closeLayoutFileSystems(List<FileSystem> fileSystems) {
+        for(FileSystem fs : fileSystems) {
+            try {
+                fs.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
     public ProvisioningRuntimeBuilder setOption(String name, String param) {
         pluginOptions = CollectionUtils.put(pluginOptions, name, param);
         return this;
@@ -38,7 +38,9 @@ public class ResolvedConfig implements ProvisionedConfig {
     final ConfigId id;
     private final Map<String, String> props;
     private Map<String, ConfigId> configDeps;
-    private final List<ResolvedFeature> features;
+    final List<ResolvedFeature> features;
+    // the hash of the features the config was ordered from, see ConfigModelStack.getOrderingKey(String)
+    String orderingKey;
 
     private ResolvedConfig(ConfigModelStack configStack) throws ProvisioningException {
         this.id = configStack.id;
@@ -47,6 +49,29 @@ public class ResolvedConfig implements ProvisionedConfig {
         this.features = Collections.unmodifiableList(configStack.orderFeatures());
     }
 
+    ResolvedConfig(ConfigId id, Map<String, String> props, Map<String, ConfigId> configDeps, List<ResolvedFeature> features) {
+        this.id = id;
+        this.props = props.isEmpty() ? props : Collections.unmodifiableMap(props);
+        this.configDeps = configDeps.isEmpty() ? configDeps : Collections.unmodifiableMap(configDeps);
+        this.features = Collections.unmodifiableList(features);
+    }
+
+    private ResolvedConfig(ConfigModelStack configStack, ResolvedConfig ordered) {
+        this.id = configStack.id;
+        this.props = configStack.props.isEmpty() ? configStack.props : Collections.unmodifiableMap(configStack.props);
+        this.configDeps = configStack.configDeps.isEmpty() ? configStack.configDeps : Collections.unmodifiableMap(configStack.configDeps);
+        this.features = ordered.features;
+        this.orderingKey = ordered.orderingKey;
+    }
+
+    /**
+     * Creates a config for the config stack re-using the features ordered for this config,
+     * which is expected to have been ordered from the same features.
+     */
+    ResolvedConfig reuse(ConfigModelStack configStack) {
+        return new ResolvedConfig(configStack, this);
+    }
+
     /* (non-Javadoc)
      * @see org.jboss.galleon.state.ProvisionedConfig#getName()
      */
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.runtime;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.state.ProvisionedConfig;
+import org.jboss.galleon.util.PropertyUtils;
+
+/**
+ * Builds the resolved configs from the config model stacks, which are expected to be
+ * in the order the configs depend on each other.
+ *
+ * <p>When more than one thread is allowed, the features of the configs are ordered
+ * concurrently. The configs that share feature instances (e.g. the features without
+ * an ID merged from the same model-only config) are still ordered one after the other,
+ * in the original order, on the same thread, since ordering the features updates them.
+ * The resulting list is the same as the one built on a single thread.
+ *
+ * <p>Once the features of a config (or a group of configs sharing features) have been ordered,
+ * the state collected to order them (dependencies, branches, capability providers) is released,
+ * so that it does not stay reachable from the resolved configs while the plugins are running.
+ */
+class ResolvedConfigsBuilder {
+
+    static int getConfigThreads() {
+        final String threads = PropertyUtils.getSystemProperty(Constants.PROP_CONFIG_THREADS);
+        return threads == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(threads);
+    }
+
+    static List<ProvisionedConfig> build(List<ConfigModelStack> configs, int threads) throws ProvisioningException {
+        final List<ProvisionedConfig> resolvedConfigs = new ArrayList<>(configs.size());
+        if(threads < 2 || configs.size() < 2) {
+            for(ConfigModelStack config : configs) {
+                resolvedConfigs.add(ResolvedConfig.build(config));
+            }
+            releaseOrderingState(configs);
+            return resolvedConfigs;
+        }
+
+        // this part may load feature specs and has to happen on this thread
+        for(ConfigModelStack config : configs) {
+            config.resolveRefMappings();
+        }
+
+        final List<List<ConfigModelStack>> groups = groupBySharedFeatures(configs);
+        final Map<ConfigModelStack, ResolvedConfig> built = new ConcurrentHashMap<>(configs.size());
+        final Map<ConfigModelStack, ProvisioningException> failed = new ConcurrentHashMap<>();
+        final AtomicInteger threadIndex = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, groups.size()), r -> {
+            final Thread thread = new Thread(r, "galleon-config-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<?>> tasks = new ArrayList<>(groups.size());
+            for(List<ConfigModelStack> group : groups) {
+                tasks.add(executor.submit(() -> {
+                    for(ConfigModelStack config : group) {
+                        try {
+                            built.put(config, ResolvedConfig.build(config));
+                        } catch(ProvisioningException e) {
+                            failed.put(config, e);
+                            return null;
+                        }
+                    }
+                    releaseOrderingState(group);
+                    return null;
+                }));
+            }
+            for(Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ProvisioningException("Interrupted while resolving configs", e);
+                } catch (ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if(cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if(cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new ProvisioningException("Failed to resolve configs", cause);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // report the failure the configs would have failed with when built one after the other
+        for(ConfigModelStack config : configs) {
+            final ResolvedConfig resolved = built.get(config);
+            if(resolved == null) {
+                throw failed.get(config);
+            }
+            resolvedConfigs.add(resolved);
+        }
+        return resolvedConfigs;
+    }
+
+    /**
+     * Releases the state that was required to order the features once all the configs
+     * that could share features have been ordered.
+     */
+    private static void releaseOrderingState(List<ConfigModelStack> configs) {
+        for(ConfigModelStack config : configs) {
+            config.releaseOrderingState();
+        }
+    }
+
+    /**
+     * Groups the configs that share feature instances preserving their order.
+     */
+    private static List<List<ConfigModelStack>> groupBySharedFeatures(List<ConfigModelStack> configs) {
+        final int[] parents = new int[configs.size()];
+        for(int i = 0; i < parents.length; ++i) {
+            parents[i] = i;
+        }
+        final Map<ResolvedFeature, Integer> featureConfigs = new IdentityHashMap<>();
+        for(int i = 0; i < configs.size(); ++i) {
+            for(SpecFeatures specFeatures : configs.get(i).specFeatures.values()) {
+                for(ResolvedFeature feature : specFeatures.getFeatures()) {
+                    final Integer other = featureConfigs.putIfAbsent(feature, i);
+                    if(other != null) {
+                        parents[root(parents, other)] = root(parents, i);
+                    }
+                }
+            }
+        }
+        final Map<Integer, List<ConfigModelStack>> groups = new LinkedHashMap<>();
+        for(int i = 0; i < configs.size(); ++i) {
+            groups.computeIfAbsent(root(parents, i), k -> new ArrayList<>()).add(configs.get(i));
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static int root(int[] parents, int i) {
+        while(parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.runtime;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.MessageWriter;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.config.ConfigId;
+import org.jboss.galleon.state.ProvisionedConfig;
+import org.jboss.galleon.universe.FeaturePackLocation.ProducerSpec;
+import org.jboss.galleon.util.CollectionUtils;
+import org.jboss.galleon.util.HashUtils;
+import org.jboss.galleon.util.PropertyUtils;
+import org.jboss.galleon.xml.ProvisioningXmlWriter;
+
+/**
+ * Persists the ordered resolved configs in a compact binary form, so that
+ * the features of the configs don't have to be ordered again when the same
+ * provisioning configuration is provisioned from the same feature-packs.
+ *
+ * <p>The cache entry is keyed by the SHA-256 hash of the provisioning configuration,
+ * the FPIDs along with the paths, sizes and last modified times of the feature-pack archives,
+ * the plugin options and the config arranger. The layouts are not read to calculate the key.
+ *
+ * <p>An entry contains, for every config in the order they are handled, its ID,
+ * properties and dependencies on other configs followed by its features in the order
+ * they are handled, each with its spec, ID and parameters in their string form
+ * and the batch and branch markers. The feature specs are looked up in the loaded
+ * feature-packs when an entry is read.
+ *
+ * <p>The cache is an optimization: an entry that can't be read or written
+ * is reported as a verbose message and the configs are resolved as usual.
+ */
+class ResolvedConfigsCache {
+
+    private static final int MAGIC = 0x676c6e63; // "glnc"
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".configs";
+
+    private static final byte BATCH_START = 1;
+    private static final byte BATCH_END = 2;
+    private static final byte BRANCH_START = 4;
+    private static final byte BRANCH_END = 8;
+
+    static Path getDefaultDir() {
+        final String dir = PropertyUtils.getSystemProperty(Constants.PROP_CONFIG_CACHE_DIR);
+        return dir == null ? null : Paths.get(dir);
+    }
+
+    private final ProvisioningRuntimeBuilder rt;
+    private final MessageWriter messageWriter;
+    private final Path cacheDir;
+    private final List<FeaturePackRuntimeBuilder> fps;
+    private Path entry;
+
+    ResolvedConfigsCache(ProvisioningRuntimeBuilder rt, MessageWriter messageWriter, Path cacheDir, Collection<FeaturePackRuntimeBuilder> fps) {
+        this.rt = rt;
+        this.messageWriter = messageWriter;
+        this.cacheDir = cacheDir;
+        final Map<String, FeaturePackRuntimeBuilder> sorted = new TreeMap<>();
+        for(FeaturePackRuntimeBuilder fp : fps) {
+            sorted.put(fp.fpid.toString(), fp);
+        }
+        this.fps = new ArrayList<>(sorted.values());
+    }
+
+    /**
+     * Returns the cached configs or null, if the entry does not exist
+     * or could not be read.
+     */
+    List<ProvisionedConfig> read() {
+        try {
+            entry = cacheDir.resolve(getKey() + SUFFIX);
+        } catch (IOException | XMLStreamException e) {
+            messageWriter.verbose(e, "Failed to calculate the resolved config cache key");
+            return null;
+        }
+        if(!Files.exists(entry)) {
+            return null;
+        }
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unexpected format of " + entry);
+            }
+            final List<ProvisionedConfig> configs = readConfigs(in);
+            messageWriter.verbose("Using the resolved configs cached in %s", entry);
+            return configs;
+        } catch (IOException | ProvisioningException e) {
+            messageWriter.verbose(e, "Ignoring the resolved config cache entry %s", entry);
+            return null;
+        }
+    }
+
+    void write(List<ProvisionedConfig> configs) {
+        if(entry == null) {
+            return;
+        }
+        Path tmp = null;
+        try {
+            Files.createDirectories(cacheDir);
+            tmp = Files.createTempFile(cacheDir, entry.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeConfigs(out, configs);
+            }
+            try {
+                Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | ProvisioningException e) {
+            messageWriter.verbose(e, "Failed to write the resolved config cache entry %s", entry);
+            if(tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private String getKey() throws IOException, XMLStreamException {
+        final StringWriter key = new StringWriter();
+        ProvisioningXmlWriter.getInstance().write(rt.config, key);
+        for(FeaturePackRuntimeBuilder fp : fps) {
+            if(fp.archive == null) {
+                throw new IOException("The archive of " + fp.fpid + " is not known");
+            }
+            final BasicFileAttributes attrs = Files.readAttributes(fp.archive, BasicFileAttributes.class);
+            key.append('\n').append(fp.fpid.toString())
+                .append(' ').append(fp.archive.toAbsolutePath().normalize().toString())
+                .append(' ').append(String.valueOf(attrs.size()))
+                .append(' ').append(String.valueOf(attrs.lastModifiedTime().toMillis()));
+        }
+        for(Map.Entry<String, String> option : new TreeMap<>(rt.pluginOptions).entrySet()) {
+            key.append('\n').append(option.getKey()).append('=').append(option.getValue());
+        }
+        key.append('\n').append(String.valueOf(PropertyUtils.getSystemProperty(Constants.PROP_CONFIG_ARRANGER)));
+        return HashUtils.hash(key.toString(), HashUtils.Algorithm.SHA256);
+    }
+
+    private void writeConfigs(DataOutputStream out, List<ProvisionedConfig> configs) throws IOException, ProvisioningException {
+        final Map<ProducerSpec, Integer> producers = new HashMap<>(fps.size());
+        for(int i = 0; i < fps.size(); ++i) {
+            producers.put(fps.get(i).fpid.getProducer(), i);
+        }
+        out.writeInt(configs.size());
+        for(ProvisionedConfig provisioned : configs) {
+            final ResolvedConfig config = (ResolvedConfig) provisioned;
+            writeString(out, config.id.getModel());
+            writeString(out, config.id.getName());
+            writeStrings(out, config.getProperties());
+            out.writeInt(config.getConfigDeps().size());
+            for(Map.Entry<String, ConfigId> dep : config.getConfigDeps().entrySet()) {
+                writeString(out, dep.getKey());
+                writeString(out, dep.getValue().getModel());
+                writeString(out, dep.getValue().getName());
+            }
+            out.writeInt(config.features.size());
+            for(ResolvedFeature feature : config.features) {
+                final ResolvedFeatureSpec spec = feature.spec;
+                final Integer producer = producers.get(spec.id.producer);
+                if(producer == null) {
+                    throw new ProvisioningException("Feature spec " + spec.id + " does not belong to any of the loaded feature-packs");
+                }
+                out.writeInt(producer);
+                writeString(out, spec.id.name);
+                byte flags = 0;
+                if(feature.isBatchStart()) {
+                    flags |= BATCH_START;
+                }
+                if(feature.isBatchEnd()) {
+                    flags |= BATCH_END;
+                }
+                if(feature.isBranchStart()) {
+                    flags |= BRANCH_START;
+                }
+                if(feature.isBranchEnd()) {
+                    flags |= BRANCH_END;
+                }
+                out.writeByte(flags);
+                writeParams(out, spec, feature.id == null ? null : feature.id.params);
+                writeParams(out, spec, feature.params);
+            }
+        }
+    }
+
+    private List<ProvisionedConfig> readConfigs(DataInputStream in) throws IOException, ProvisioningException {
+        final int configsTotal = in.readInt();
+        final List<ProvisionedConfig> configs = new ArrayList<>(configsTotal);
+        for(int i = 0; i < configsTotal; ++i) {
+            final ConfigId id = new ConfigId(readString(in), readString(in));
+            final Map<String, String> props = readStrings(in);
+            Map<String, ConfigId> configDeps = Collections.emptyMap();
+            final int depsTotal = in.readInt();
+            for(int j = 0; j < depsTotal; ++j) {
+                configDeps = CollectionUtils.putLinked(configDeps, readString(in), new ConfigId(readString(in), readString(in)));
+            }
+            final int featuresTotal = in.readInt();
+            final List<ResolvedFeature> features = new ArrayList<>(featuresTotal);
+            for(int j = 0; j < featuresTotal; ++j) {
+                final int producer = in.readInt();
+                if(producer < 0 || producer >= fps.size()) {
+                    throw new IOException("Unexpected feature-pack index " + producer);
+                }
+                final ResolvedFeatureSpec spec = fps.get(producer).getFeatureSpec(readString(in));
+                final byte flags = in.readByte();
+                final Map<String, Object> idParams = readParams(in, spec);
+                final ResolvedFeature feature = new ResolvedFeature(idParams == null ? null : new ResolvedFeatureId(spec.id, idParams), spec, 0);
+                feature.deps = Collections.emptyMap();
+                final Map<String, Object> params = readParams(in, spec);
+                if(params != null) {
+                    feature.params.putAll(params);
+                }
+                if((flags & BATCH_START) != 0) {
+                    feature.startBatch();
+                }
+                if((flags & BATCH_END) != 0) {
+                    feature.endBatch();
+                }
+                if((flags & BRANCH_START) != 0) {
+                    feature.startBranch();
+                }
+                if((flags & BRANCH_END) != 0) {
+                    feature.endBranch();
+                }
+                features.add(feature);
+            }
+            configs.add(new ResolvedConfig(id, props, configDeps, features));
+        }
+        return Collections.unmodifiableList(configs);
+    }
+
+    private static void writeParams(DataOutputStream out, ResolvedFeatureSpec spec, Map<String, Object> params) throws IOException, ProvisioningException {
+        if(params == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(params.size());
+        for(Map.Entry<String, Object> param : params.entrySet()) {
+            writeString(out, param.getKey());
+            writeString(out, param.getValue() == null ? null : spec.paramToString(param.getKey(), param.getValue()));
+        }
+    }
+
+    private static Map<String, Object> readParams(DataInputStream in, ResolvedFeatureSpec spec) throws IOException, ProvisioningException {
+        final int size = in.readInt();
+        if(size < 0) {
+            return null;
+        }
+        final Map<String, Object> params = new HashMap<>(size);
+        for(int i = 0; i < size; ++i) {
+            final String name = readString(in);
+            final String value = readString(in);
+            params.put(name, value == null ? null : spec.paramFromString(name, value));
+        }
+        return params;
+    }
+
+    private static void writeStrings(DataOutputStream out, Map<String, String> map) throws IOException {
+        out.writeInt(map.size());
+        for(Map.Entry<String, String> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readStrings(DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        Map<String, String> map = Collections.emptyMap();
+        for(int i = 0; i < size; ++i) {
+            map = CollectionUtils.putLinked(map, readString(in), readString(in));
+        }
+        return map;
+    }
+
+    // unlike writeUTF, not limited to 64K
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        if(str == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if(length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -224,16 +224,7 @@ public class ResolvedFeatureId {
 
     ResolvedFeatureId(ResolvedSpecId specId, Map<String, Object> params, Boolean child) {
         this.specId = specId;
-        Map<String, Object> filtered = Collections.emptyMap(); // TODO
-        for(Map.Entry<String, Object> entry : params.entrySet()) {
-            if(!Constants.GLN_UNDEFINED.equals(entry.getValue())) {
-                filtered = CollectionUtils.put(filtered, entry.getKey(), entry.getValue());
-            }
-        }
-        if(filtered.isEmpty()) {
-            filtered = params;
-        }
-        this.params = CollectionUtils.unmodifiable(filtered);
+        this.params = copyDefinedParams(params);
         this.child = child;
 
         final int prime = 31;
@@ -243,6 +234,38 @@ public class ResolvedFeatureId {
         this.hash = hash;
     }
 
+    /**
+     * Copies the parameters leaving out the undefined ones, allocating only
+     * the resulting map, which is immutable.
+     */
+    private static Map<String, Object> copyDefinedParams(Map<String, Object> params) {
+        int defined = 0;
+        Map.Entry<String, Object> definedEntry = null;
+        for(Map.Entry<String, Object> entry : params.entrySet()) {
+            if(!Constants.GLN_UNDEFINED.equals(entry.getValue())) {
+                ++defined;
+                definedEntry = entry;
+            }
+        }
+        switch(defined) {
+            case 0:
+                // all the params are undefined, they are kept so that the ID identifies the feature
+                return CollectionUtils.unmodifiable(params);
+            case 1:
+                return Collections.singletonMap(definedEntry.getKey(), definedEntry.getValue());
+            default:
+                // the table ends up of the same size as when the params are added one at a time
+                // with CollectionUtils.put, so the params are iterated in the same order
+                final Map<String, Object> copy = new HashMap<>((defined * 4 + 2) / 3);
+                for (Map.Entry<String, Object> entry : params.entrySet()) {
+                    if (!Constants.GLN_UNDEFINED.equals(entry.getValue())) {
+                        copy.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                return Collections.unmodifiableMap(copy);
+        }
+    }
+
     public ResolvedSpecId getSpecId() {
         return specId;
     }
@@ -29,9 +29,12 @@ class ResolvedFeatureParam {
     final FeatureParameterSpec spec;
     final FeatureParameterType type;
     final Object defaultValue;
+    // the index of the parameter value in the ResolvedFeatureParams of the features
+    final int slot;
 
-    ResolvedFeatureParam(FeatureParameterSpec spec, FeatureParameterType type) throws ProvisioningException {
+    ResolvedFeatureParam(FeatureParameterSpec spec, FeatureParameterType type, int slot) throws ProvisioningException {
         this.spec = spec;
+        this.slot = slot;
         this.type = type;
         if(spec.hasDefaultValue()) {
             defaultValue = type.fromString(spec.getDefaultValue());
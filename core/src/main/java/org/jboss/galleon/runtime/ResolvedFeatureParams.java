@@ -0,0 +1,191 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.runtime;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Parameter values of a feature stored in an array indexed by the slots
+ * the feature spec assigned to its parameters, i.e. without an entry object
+ * per parameter and with the parameter names shared by all the features of the spec.
+ * The parameters are iterated in the order they are defined in the spec.
+ */
+class ResolvedFeatureParams extends AbstractMap<String, Object> {
+
+    private static final Object ABSENT = new Object();
+
+    private final ResolvedFeatureSpec spec;
+    private final Object[] values;
+    private int size;
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    ResolvedFeatureParams(ResolvedFeatureSpec spec) {
+        this.spec = spec;
+        values = new Object[spec.paramNames.length];
+        Arrays.fill(values, ABSENT);
+    }
+
+    ResolvedFeatureParams(ResolvedFeatureSpec spec, Map<String, Object> params) {
+        this(spec);
+        putAll(params);
+    }
+
+    private int slot(Object name) {
+        return name instanceof String ? spec.getParamSlot((String) name) : -1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        final int slot = slot(key);
+        return slot >= 0 && values[slot] != ABSENT;
+    }
+
+    @Override
+    public Object get(Object key) {
+        final int slot = slot(key);
+        if(slot < 0) {
+            return null;
+        }
+        final Object value = values[slot];
+        return value == ABSENT ? null : value;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        final int slot = spec.getParamSlot(key);
+        if(slot < 0) {
+            throw new IllegalArgumentException("Feature spec " + spec.id + " does not define parameter " + key);
+        }
+        final Object prev = values[slot];
+        values[slot] = value;
+        if(prev == ABSENT) {
+            ++size;
+            return null;
+        }
+        return prev;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        final int slot = slot(key);
+        if(slot < 0) {
+            return null;
+        }
+        final Object prev = values[slot];
+        if(prev == ABSENT) {
+            return null;
+        }
+        values[slot] = ABSENT;
+        --size;
+        return prev;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, ABSENT);
+        size = 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if(entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    ResolvedFeatureParams.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+        private int next = nextSlot(0);
+        private int current = -1;
+
+        private int nextSlot(int i) {
+            while(i < values.length && values[i] == ABSENT) {
+                ++i;
+            }
+            return i;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if(next >= values.length) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            next = nextSlot(next + 1);
+            final int slot = current;
+            return new AbstractMap.SimpleEntry<String, Object>(spec.paramNames[slot], values[slot]) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public Object setValue(Object value) {
+                    if(values[slot] == ABSENT) {
+                        throw new IllegalStateException();
+                    }
+                    values[slot] = value;
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if(current < 0 || values[current] == ABSENT) {
+                throw new IllegalStateException();
+            }
+            values[current] = ABSENT;
+            --size;
+            current = -1;
+        }
+    }
+}
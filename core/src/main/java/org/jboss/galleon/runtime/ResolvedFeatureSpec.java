@@ -46,11 +46,13 @@ import org.jboss.galleon.util.StringUtils;
  *
  * @author Alexey Loubyansky
  */
-public class ResolvedFeatureSpec extends CapabilityProvider {
+public class ResolvedFeatureSpec {
 
     final ResolvedSpecId id;
     final FeatureSpec xmlSpec;
     private Map<String, ResolvedFeatureParam> resolvedParamSpecs = Collections.emptyMap();
+    // parameter names indexed by their slots
+    final String[] paramNames;
     private Map<String, ResolvedFeatureSpec> resolvedRefTargets;
     private Map<ResolvedFeatureId, FeatureDependencySpec> resolvedDeps;
 
@@ -63,10 +65,13 @@ public class ResolvedFeatureSpec extends CapabilityProvider {
         this.id = specId;
         this.xmlSpec = spec;
 
+        paramNames = new String[xmlSpec.getParamsTotal()];
         if(xmlSpec.hasParams()) {
+            int slot = 0;
             for(Map.Entry<String, FeatureParameterSpec> entry : xmlSpec.getParams().entrySet()) {
                 final FeatureParameterSpec param = entry.getValue();
-                resolvedParamSpecs = CollectionUtils.put(resolvedParamSpecs, param.getName(), resolveParamSpec(param, typeProvider));
+                paramNames[slot] = param.getName();
+                resolvedParamSpecs = CollectionUtils.put(resolvedParamSpecs, param.getName(), resolveParamSpec(param, typeProvider, slot++));
             }
         }
 
@@ -109,14 +114,14 @@ public class ResolvedFeatureSpec extends CapabilityProvider {
         return branchBatch == null ? defaultValue : branchBatch;
     }
 
-    private ResolvedFeatureParam resolveParamSpec(FeatureParameterSpec paramSpec, ParameterTypeProvider typeProvider) throws ProvisioningException {
+    private ResolvedFeatureParam resolveParamSpec(FeatureParameterSpec paramSpec, ParameterTypeProvider typeProvider, int slot) throws ProvisioningException {
         final FeatureParameterType type;
         try {
             type = typeProvider.getType(id.producer, paramSpec.getType());
         } catch(ParameterTypeNotFoundException e) {
             throw new ProvisioningException(Errors.failedToResolveParameter(id, paramSpec.getName()), e);
         }
-        return new ResolvedFeatureParam(paramSpec, type);
+        return new ResolvedFeatureParam(paramSpec, type, slot);
     }
 
     public ResolvedSpecId getId() {
@@ -151,6 +156,15 @@ public class ResolvedFeatureSpec extends CapabilityProvider {
         return resolvedParamSpecs;
     }
 
+    /**
+     * Returns the slot of the parameter in {@link ResolvedFeatureParams} or -1,
+     * if the spec does not define the parameter.
+     */
+    int getParamSlot(String name) {
+        final ResolvedFeatureParam p = resolvedParamSpecs.get(name);
+        return p == null ? -1 : p.slot;
+    }
+
     ResolvedFeatureParam getResolvedParam(String name) throws ProvisioningDescriptionException {
         final ResolvedFeatureParam p = resolvedParamSpecs.get(name);
         if(p == null) {
@@ -201,7 +215,7 @@ public class ResolvedFeatureSpec extends CapabilityProvider {
         return resolvedParams;
     }
 
-    private Object paramFromString(String name, String value) throws ProvisioningException {
+    Object paramFromString(String name, String value) throws ProvisioningException {
         try {
             return getResolvedParam(name).type.fromString(value);
         } catch (ParameterTypeConversionException e) {
@@ -395,6 +409,9 @@ public class ResolvedFeatureSpec extends CapabilityProvider {
     }
 
     void resolveRefMappings(ProvisioningRuntimeBuilder rt) throws ProvisioningException {
+        if(resolvedRefTargets != null) {
+            return;
+        }
         if(!xmlSpec.hasFeatureRefs()) {
             resolvedRefTargets = Collections.emptyMap();
             return;
@@ -38,8 +38,8 @@ public class SpecOnlyConfigArranger {
     private Map<ResolvedSpecId, SpecFeatures> specFeatures;
     private Map<ResolvedFeatureId, ResolvedFeature> features;
 
-    private CapabilityResolver capResolver = new CapabilityResolver();
-    private Map<String, CapabilityProviders> capProviders = Collections.emptyMap();
+    private CapabilityRegistry capRegistry = new CapabilityRegistry();
+    private CapabilityResolver capResolver = new CapabilityResolver(capRegistry);
 
     // features in the order they should be processed by the provisioning handlers
     private List<ResolvedFeature> orderedFeatures = Collections.emptyList();
@@ -65,15 +65,15 @@ public class SpecOnlyConfigArranger {
             if(features.spec.xmlSpec.providesCapabilities()) {
                 for(CapabilitySpec cap : features.spec.xmlSpec.getProvidedCapabilities()) {
                     if(cap.isStatic()) {
-                        getProviders(cap.toString(), true).add(features);
+                        capRegistry.getOrAddProviders(capResolver.resolve(cap, null).get(0)).add(features);
                     } else {
                         for(ResolvedFeature feature : features.getFeatures()) {
-                            final List<String> resolvedCaps = capResolver.resolve(cap, feature);
+                            final List<CapabilityRegistry.Node> resolvedCaps = capResolver.resolve(cap, feature);
                             if(resolvedCaps.isEmpty()) {
                                 continue;
                             }
-                            for(String resolvedCap : resolvedCaps) {
-                                getProviders(resolvedCap, true).add(feature);
+                            for(CapabilityRegistry.Node resolvedCap : resolvedCaps) {
+                                capRegistry.getOrAddProviders(resolvedCap).add(feature);
                             }
                         }
                     }
@@ -86,19 +86,6 @@ public class SpecOnlyConfigArranger {
         }
     }
 
-    private CapabilityProviders getProviders(String cap, boolean add) throws ProvisioningException {
-        CapabilityProviders providers = capProviders.get(cap);
-        if(providers != null) {
-            return providers;
-        }
-        if(!add) {
-            throw new ProvisioningException(Errors.noCapabilityProvider(cap));
-        }
-        providers = new CapabilityProviders();
-        capProviders = CollectionUtils.put(capProviders, cap, providers);
-        return providers;
-    }
-
     /**
      * Attempts to order the features of the spec.
      * Terminates immediately when a feature reference loop is detected.
@@ -251,16 +238,14 @@ public class SpecOnlyConfigArranger {
     private List<CircularRefInfo> orderCapabilityProviders(ResolvedFeature feature, List<CircularRefInfo> circularRefs)
             throws ProvisioningException {
         for (CapabilitySpec capSpec : feature.spec.xmlSpec.getRequiredCapabilities()) {
-            final List<String> resolvedCaps = capResolver.resolve(capSpec, feature);
+            final List<CapabilityRegistry.Node> resolvedCaps = capResolver.resolve(capSpec, feature);
             if (resolvedCaps.isEmpty()) {
                 continue;
             }
-            for (String resolvedCap : resolvedCaps) {
-                final CapabilityProviders providers;
-                try {
-                    providers = getProviders(resolvedCap, false);
-                } catch (ProvisioningException e) {
-                    throw new ProvisioningException(Errors.noCapabilityProvider(feature, capSpec, resolvedCap));
+            for (CapabilityRegistry.Node resolvedCap : resolvedCaps) {
+                final CapabilityProviders providers = capRegistry.getProviders(resolvedCap);
+                if(providers == null) {
+                    throw new ProvisioningException(Errors.noCapabilityProvider(feature, capSpec, resolvedCap.toString()));
                 }
                 final List<CircularRefInfo> circles = orderProviders(providers);
                 if (circularRefs == null) {
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.state;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import org.jboss.galleon.util.CollectionUtils;
+import org.jboss.galleon.util.HashUtils;
+
+/**
+ * Describes the content of a provisioned installation: the hash, the size and
+ * the last modified time of every file, as they were when the installation was provisioned.
+ * The paths are relative to the installation directory and use '/' as the separator.
+ *
+ * <p>The manifest is persisted as a text file, one file per line
+ * in the format {@code <hash> <size> <last-modified-millis> <path>}, preceded
+ * by the {@code #algorithm=<name>} line specifying the hash algorithm.
+ */
+public class ContentManifest {
+
+    public static class Entry {
+
+        private final String path;
+        private final String hash;
+        private final long size;
+        private final long lastModified;
+
+        private Entry(String path, String hash, long size, long lastModified) {
+            this.path = path;
+            this.hash = hash;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Checks whether the file still has the size and the last modified time
+         * recorded in the manifest, i.e. most probably it was not modified after it was installed.
+         *
+         * @param attrs  current attributes of the file
+         * @return  true if the size and the last modified time match the ones recorded
+         */
+        public boolean matches(BasicFileAttributes attrs) {
+            return attrs.isRegularFile() && attrs.size() == size && attrs.lastModifiedTime().toMillis() == lastModified;
+        }
+
+        @Override
+        public String toString() {
+            return hash + ' ' + size + ' ' + lastModified + ' ' + path;
+        }
+    }
+
+    public static class Builder {
+
+        private String algorithm = HashUtils.getDefaultAlgorithm().getName();
+        private Map<String, Entry> entries = Collections.emptyMap();
+
+        private Builder() {
+        }
+
+        public Builder setAlgorithm(String algorithm) {
+            this.algorithm = algorithm;
+            return this;
+        }
+
+        public Builder addEntry(String path, String hash, long size, long lastModified) {
+            entries = CollectionUtils.putLinked(entries, path, new Entry(path, hash, size, lastModified));
+            return this;
+        }
+
+        public ContentManifest build() {
+            return new ContentManifest(this);
+        }
+    }
+
+    private static final String ALGORITHM_HEADER = "#algorithm=";
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static ContentManifest read(Path file) throws IOException {
+        final Builder builder = builder();
+        try(BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while(line != null) {
+                if(line.startsWith(ALGORITHM_HEADER)) {
+                    builder.setAlgorithm(line.substring(ALGORITHM_HEADER.length()));
+                } else if(!line.isEmpty()) {
+                    final String[] parts = line.split(" ", 4);
+                    if(parts.length != 4) {
+                        throw new IOException("Failed to parse content manifest entry '" + line + "' in " + file);
+                    }
+                    try {
+                        builder.addEntry(parts[3], parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                    } catch(NumberFormatException e) {
+                        throw new IOException("Failed to parse content manifest entry '" + line + "' in " + file, e);
+                    }
+                }
+                line = reader.readLine();
+            }
+        }
+        return builder.build();
+    }
+
+    private final String algorithm;
+    private final Map<String, Entry> entries;
+
+    private ContentManifest(Builder builder) {
+        this.algorithm = builder.algorithm;
+        this.entries = CollectionUtils.unmodifiable(builder.entries);
+    }
+
+    /**
+     * The name of the hash algorithm, see {@link HashUtils.Algorithm#getName()}.
+     *
+     * @return  name of the hash algorithm
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public boolean hasEntry(String path) {
+        return entries.containsKey(path);
+    }
+
+    public Entry getEntry(String path) {
+        return entries.get(path);
+    }
+
+    public Collection<Entry> getEntries() {
+        return entries.values();
+    }
+
+    /**
+     * Returns the recorded hash of the file, if the file still has the recorded
+     * size and last modified time, otherwise null.
+     *
+     * @param path  path relative to the installation directory with '/' as the separator
+     * @param attrs  current attributes of the file
+     * @return  recorded hash of the file or null
+     */
+    public String getHash(String path, BasicFileAttributes attrs) {
+        final Entry entry = entries.get(path);
+        return entry != null && entry.matches(attrs) ? entry.hash : null;
+    }
+
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        try(BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(ALGORITHM_HEADER);
+            writer.write(algorithm);
+            writer.newLine();
+            for(Entry entry : entries.values()) {
+                writer.write(entry.toString());
+                writer.newLine();
+            }
+        }
+    }
+}
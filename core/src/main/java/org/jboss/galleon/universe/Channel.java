@@ -20,6 +20,7 @@ package org.jboss.galleon.universe;
 import java.nio.file.Path;
 
 import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.repo.RepositoryArtifactResolver;
 
 /**
  * Feature-pack channel
@@ -33,4 +34,29 @@ public interface Channel {
     String getLatestBuild(FeaturePackLocation fpl) throws ProvisioningException;
 
     Path resolve(FeaturePackLocation fpl) throws ProvisioningException;
+
+    /**
+     * Returns the resolver of the repository the feature-packs of the channel
+     * are resolved from or null, if the feature-packs are not resolved as
+     * repository artifacts. The feature-packs of the channels sharing the same
+     * resolver can be resolved in a single pass, see {@link UniverseResolver#resolveAll(java.util.Collection)}.
+     *
+     * @return  repository artifact resolver or null
+     */
+    default RepositoryArtifactResolver getArtifactResolver() {
+        return null;
+    }
+
+    /**
+     * Returns the location of the feature-pack artifact in the repository
+     * of the channel or null, if the location can't be determined without
+     * resolving the feature-pack, e.g. because its build is not specified.
+     *
+     * @param fpl  feature-pack location
+     * @return  location of the feature-pack artifact or null
+     * @throws ProvisioningException  in case of a failure
+     */
+    default String getArtifactLocation(FeaturePackLocation fpl) throws ProvisioningException {
+        return null;
+    }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.universe;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.util.HashUtils;
+import org.jboss.galleon.util.IoUtils;
+import org.jboss.galleon.util.PropertyUtils;
+
+/**
+ * Persists the latest builds resolved for feature-pack locations that don't
+ * specify a build, so that provisioning the same location repeatedly does not
+ * have to look them up in the universe every time.
+ *
+ * <p>A resolved build is used for the time-to-live period after it was resolved.
+ * Once that has passed, the latest build is looked up again. If the lookup fails
+ * (e.g. the remote repository is not reachable), the expired build is still used,
+ * unless it expired more than the max-stale period ago.
+ *
+ * <p>The cache is an optimization: an entry that can't be read or written
+ * is ignored and the latest build is looked up as usual.
+ */
+public class LatestBuildCache {
+
+    public static final long DEFAULT_TTL = TimeUnit.HOURS.toMillis(1);
+    public static final long DEFAULT_MAX_STALE = TimeUnit.DAYS.toMillis(1);
+
+    private static final String SUFFIX = ".build";
+
+    /**
+     * Returns the cache configured with the {@link Constants#PROP_LATEST_BUILD_CACHE_DIR},
+     * {@link Constants#PROP_LATEST_BUILD_CACHE_TTL}, {@link Constants#PROP_LATEST_BUILD_CACHE_MAX_STALE}
+     * (both in seconds) and {@link Constants#PROP_LATEST_BUILD_CACHE_REFRESH} system properties
+     * or null, in case the cache directory has not been configured.
+     *
+     * @return  the configured latest build cache or null
+     */
+    public static LatestBuildCache getDefault() {
+        final String dirStr = PropertyUtils.getSystemProperty(Constants.PROP_LATEST_BUILD_CACHE_DIR);
+        if(dirStr == null || dirStr.isEmpty()) {
+            return null;
+        }
+        final String ttlStr = PropertyUtils.getSystemProperty(Constants.PROP_LATEST_BUILD_CACHE_TTL);
+        final String maxStaleStr = PropertyUtils.getSystemProperty(Constants.PROP_LATEST_BUILD_CACHE_MAX_STALE);
+        return new LatestBuildCache(Paths.get(dirStr),
+                ttlStr == null ? DEFAULT_TTL : TimeUnit.SECONDS.toMillis(Long.parseLong(ttlStr)),
+                maxStaleStr == null ? DEFAULT_MAX_STALE : TimeUnit.SECONDS.toMillis(Long.parseLong(maxStaleStr)),
+                Boolean.parseBoolean(PropertyUtils.getSystemProperty(Constants.PROP_LATEST_BUILD_CACHE_REFRESH)));
+    }
+
+    private final Path dir;
+    private final long ttl;
+    private final long maxStale;
+    private final boolean refresh;
+
+    /**
+     * Creates a cache persisting the entries in the directory.
+     *
+     * @param dir  cache directory
+     * @param ttl  time-to-live of a resolved build in milliseconds
+     * @param maxStale  for how long an expired build may still be used in case
+     * the latest build could not be looked up, in milliseconds
+     * @param refresh  whether the cached builds should be ignored, i.e. looked up again
+     * and updated in the cache
+     */
+    public LatestBuildCache(Path dir, long ttl, long maxStale, boolean refresh) {
+        this.dir = dir.toAbsolutePath().normalize();
+        this.ttl = ttl;
+        this.maxStale = maxStale;
+        this.refresh = refresh;
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public long getMaxStale() {
+        return maxStale;
+    }
+
+    public boolean isRefresh() {
+        return refresh;
+    }
+
+    /**
+     * Returns the latest build resolved for the location, unless it has expired,
+     * or null, if there is no such build.
+     *
+     * @param fpl  feature-pack location without a build
+     * @return  the cached latest build or null
+     */
+    public String getBuild(FeaturePackLocation fpl) {
+        return refresh ? null : read(fpl, ttl);
+    }
+
+    /**
+     * Returns the latest build resolved for the location, even if it has expired,
+     * unless it expired more than the max-stale period ago, or null,
+     * if there is no such build.
+     *
+     * @param fpl  feature-pack location without a build
+     * @return  the cached latest build or null
+     */
+    public String getStaleBuild(FeaturePackLocation fpl) {
+        return refresh ? null : read(fpl, ttl + maxStale);
+    }
+
+    /**
+     * Records the build resolved as the latest one for the location.
+     *
+     * @param fpl  feature-pack location without a build
+     * @param build  latest build
+     */
+    public void putBuild(FeaturePackLocation fpl, String build) {
+        Path tmp = null;
+        try {
+            final Path entry = getEntry(fpl);
+            Files.createDirectories(dir);
+            tmp = Files.createTempFile(dir, entry.getFileName().toString(), ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp)) {
+                writer.write(fpl.toString());
+                writer.newLine();
+                writer.write(build);
+                writer.newLine();
+                writer.write(String.valueOf(System.currentTimeMillis()));
+                writer.newLine();
+            }
+            try {
+                Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            if(tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all the cached builds.
+     */
+    public void clear() {
+        IoUtils.recursiveDelete(dir);
+    }
+
+    private String read(FeaturePackLocation fpl, long maxAge) {
+        try {
+            final Path entry = getEntry(fpl);
+            if(!Files.exists(entry)) {
+                return null;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(entry)) {
+                if(!fpl.toString().equals(reader.readLine())) {
+                    return null;
+                }
+                final String build = reader.readLine();
+                final String resolved = reader.readLine();
+                if(build == null || resolved == null || System.currentTimeMillis() - Long.parseLong(resolved) >= maxAge) {
+                    return null;
+                }
+                return build;
+            }
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private Path getEntry(FeaturePackLocation fpl) throws IOException {
+        return dir.resolve(HashUtils.hash(fpl.toString(), HashUtils.Algorithm.SHA256) + SUFFIX);
+    }
+}
@@ -18,7 +18,10 @@
 package org.jboss.galleon.universe;
 
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.jboss.galleon.ProvisioningException;
@@ -51,10 +54,12 @@ public class UniverseResolver {
     }
 
     private final UniverseFactoryLoader ufl;
+    private final LatestBuildCache latestBuildCache;
     private Map<UniverseSpec, Universe<?>> resolvedUniverses = Collections.emptyMap();
 
     UniverseResolver(UniverseResolverBuilder<?> builder) {
         this.ufl = builder.getUfl();
+        this.latestBuildCache = builder.latestBuildCache;
     }
 
     /**
@@ -73,7 +78,7 @@ public class UniverseResolver {
      * @return  universe object for the source
      * @throws ProvisioningException  in universe object could not be resolved
      */
-    public Universe<?> getUniverse(UniverseSpec universeSpec) throws ProvisioningException {
+    public synchronized Universe<?> getUniverse(UniverseSpec universeSpec) throws ProvisioningException {
         Universe<?> resolved = resolvedUniverses.get(universeSpec);
         if(resolved == null) {
             resolved = ufl.getUniverse(universeSpec);
@@ -82,6 +87,16 @@ public class UniverseResolver {
         return resolved;
     }
 
+    /**
+     * Returns the cache of the latest builds or null, if the latest builds
+     * are looked up every time.
+     *
+     * @return  latest build cache or null
+     */
+    public LatestBuildCache getLatestBuildCache() {
+        return latestBuildCache;
+    }
+
     /**
      * Resolves latest available feature-pack ID
      *
@@ -89,11 +104,24 @@ public class UniverseResolver {
      * @return  latest available feature-pack id
      * @throws ProvisioningException  in case of any error
      */
-    public FeaturePackLocation resolveLatestBuild(FeaturePackLocation fpl) throws ProvisioningException {
-        final String latestBuild = getUniverse(fpl.getUniverse())
-                .getProducer(fpl.getProducerName())
-                .getChannel(fpl.getChannelName())
-                .getLatestBuild(fpl);
+    public synchronized FeaturePackLocation resolveLatestBuild(FeaturePackLocation fpl) throws ProvisioningException {
+        String latestBuild = latestBuildCache == null ? null : latestBuildCache.getBuild(fpl);
+        if(latestBuild == null) {
+            try {
+                latestBuild = getUniverse(fpl.getUniverse())
+                        .getProducer(fpl.getProducerName())
+                        .getChannel(fpl.getChannelName())
+                        .getLatestBuild(fpl);
+                if(latestBuildCache != null) {
+                    latestBuildCache.putBuild(fpl, latestBuild);
+                }
+            } catch(ProvisioningException e) {
+                latestBuild = latestBuildCache == null ? null : latestBuildCache.getStaleBuild(fpl);
+                if(latestBuild == null) {
+                    throw e;
+                }
+            }
+        }
         return new FeaturePackLocation(fpl.getUniverse(), fpl.getProducerName(), fpl.getChannelName(), fpl.getFrequency(),
                 latestBuild);
     }
@@ -106,7 +134,59 @@ public class UniverseResolver {
      * @throws ProvisioningException  in case the feature-pack could not be resolved
      */
     public Path resolve(FeaturePackLocation fpl) throws ProvisioningException {
-        return getUniverse(fpl.getUniverse()).getProducer(fpl.getProducerName()).getChannel(fpl.getChannelName()).resolve(fpl);
+        if(fpl.getBuild() == null && latestBuildCache != null) {
+            fpl = resolveLatestBuild(fpl);
+        }
+        return getChannel(fpl).resolve(fpl);
+    }
+
+    /**
+     * Returns the channel of the feature-pack location. The universes are not required
+     * to be thread-safe, so the lookup is synchronized, while the feature-packs
+     * can be resolved through the returned channel concurrently.
+     *
+     * @param fpl  feature-pack location
+     * @return  feature-pack channel
+     * @throws ProvisioningException  in case the channel could not be resolved
+     */
+    public synchronized Channel getChannel(FeaturePackLocation fpl) throws ProvisioningException {
+        return getUniverse(fpl.getUniverse()).getProducer(fpl.getProducerName()).getChannel(fpl.getChannelName());
+    }
+
+    /**
+     * Resolves feature-pack locations to paths in a local repository. The feature-packs
+     * of the channels sharing the same repository artifact resolver are resolved
+     * in a single pass, the rest are resolved one by one.
+     *
+     * @param fpls  feature-pack locations
+     * @return  local feature-pack paths keyed by their locations
+     * @throws ProvisioningException  in case any of the feature-packs could not be resolved
+     */
+    public Map<FeaturePackLocation, Path> resolveAll(Collection<FeaturePackLocation> fpls) throws ProvisioningException {
+        final Map<FeaturePackLocation, Path> paths = new HashMap<>(fpls.size());
+        Map<RepositoryArtifactResolver, Map<String, FeaturePackLocation>> batches = Collections.emptyMap();
+        for(FeaturePackLocation fpl : fpls) {
+            final Channel channel = getChannel(fpl);
+            final RepositoryArtifactResolver resolver = channel.getArtifactResolver();
+            final String location = resolver == null ? null : channel.getArtifactLocation(fpl);
+            if(location == null) {
+                paths.put(fpl, resolve(fpl));
+                continue;
+            }
+            Map<String, FeaturePackLocation> batch = batches.get(resolver);
+            if(batch == null) {
+                batch = new LinkedHashMap<>();
+                batches = CollectionUtils.put(batches, resolver, batch);
+            }
+            batch.put(location, fpl);
+        }
+        for(Map.Entry<RepositoryArtifactResolver, Map<String, FeaturePackLocation>> entry : batches.entrySet()) {
+            final Map<String, Path> resolved = entry.getKey().resolveAll(entry.getValue().keySet());
+            for(Map.Entry<String, FeaturePackLocation> location : entry.getValue().entrySet()) {
+                paths.put(location.getValue(), resolved.get(location.getKey()));
+            }
+        }
+        return paths;
     }
 
     /**
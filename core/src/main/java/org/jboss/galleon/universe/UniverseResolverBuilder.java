@@ -27,6 +27,7 @@ import org.jboss.galleon.repo.RepositoryArtifactResolver;
 public abstract class UniverseResolverBuilder<T extends UniverseResolverBuilder<?>> {
 
     protected UniverseFactoryLoader ufl;
+    protected LatestBuildCache latestBuildCache = LatestBuildCache.getDefault();
 
     @SuppressWarnings("unchecked")
     public T setUniverseFactoryLoader(UniverseFactoryLoader ufl) throws ProvisioningException {
@@ -47,6 +48,20 @@ public abstract class UniverseResolverBuilder<T extends UniverseResolverBuilder<
         return (T) this;
     }
 
+    /**
+     * Sets the cache of the latest builds resolved for feature-pack locations
+     * without a build. By default, the cache configured with the system properties
+     * is used, see {@link LatestBuildCache#getDefault()}.
+     *
+     * @param latestBuildCache  latest build cache or null, to always look up the latest builds
+     * @return  this builder
+     */
+    @SuppressWarnings("unchecked")
+    public T setLatestBuildCache(LatestBuildCache latestBuildCache) {
+        this.latestBuildCache = latestBuildCache;
+        return (T) this;
+    }
+
     protected UniverseResolver buildUniverseResolver() throws ProvisioningException {
         return new UniverseResolver(this);
     }
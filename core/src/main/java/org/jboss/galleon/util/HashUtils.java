@@ -16,8 +16,9 @@
  */
 package org.jboss.galleon.util;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystem;
@@ -26,48 +27,186 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+
+import org.jboss.galleon.Constants;
 
 /**
+ * Content hashing utilities.
+ *
+ * <p>Every thread hashes with its own digest instances, so the hashes can be
+ * calculated concurrently. The algorithm used by the methods that don't accept it
+ * as an argument can be configured with the {@link Constants#PROP_HASH_ALGORITHM}
+ * system property, SHA-1 is the default.
  *
  * @author Alexey Loubyansky
  */
 public class HashUtils {
 
+    /**
+     * Supported hash algorithms.
+     */
+    public enum Algorithm {
+        SHA1("SHA-1"),
+        SHA256("SHA-256"),
+        /**
+         * A fast non-cryptographic checksum combining CRC32 and Adler32.
+         * It is meant only for change detection.
+         */
+        FAST("FAST");
+
+        private final String name;
+        private final ThreadLocal<MessageDigest> digest = ThreadLocal.withInitial(this::newDigest);
+
+        Algorithm(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        private MessageDigest newDigest() {
+            if(this == FAST) {
+                return new FastDigest();
+            }
+            try {
+                return MessageDigest.getInstance(name);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        MessageDigest getDigest() {
+            final MessageDigest md = digest.get();
+            md.reset();
+            return md;
+        }
+
+        public static Algorithm fromName(String name) {
+            for(Algorithm algorithm : values()) {
+                if(algorithm.name.equalsIgnoreCase(name) || algorithm.name().equalsIgnoreCase(name)) {
+                    return algorithm;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported hash algorithm " + name);
+        }
+    }
+
+    private static class FastDigest extends MessageDigest {
+
+        private final CRC32 crc = new CRC32();
+        private final Adler32 adler = new Adler32();
+
+        FastDigest() {
+            super(Algorithm.FAST.name);
+        }
+
+        @Override
+        protected void engineUpdate(byte input) {
+            crc.update(input);
+            adler.update(input);
+        }
+
+        @Override
+        protected void engineUpdate(byte[] input, int offset, int len) {
+            crc.update(input, offset, len);
+            adler.update(input, offset, len);
+        }
+
+        @Override
+        protected void engineUpdate(ByteBuffer input) {
+            final int position = input.position();
+            crc.update(input);
+            input.position(position);
+            adler.update(input);
+        }
+
+        @Override
+        protected byte[] engineDigest() {
+            final long crcValue = crc.getValue();
+            final long adlerValue = adler.getValue();
+            engineReset();
+            final byte[] bytes = new byte[8];
+            for(int i = 0; i < 4; ++i) {
+                bytes[i] = (byte) (crcValue >>> (24 - i * 8));
+                bytes[i + 4] = (byte) (adlerValue >>> (24 - i * 8));
+            }
+            return bytes;
+        }
+
+        @Override
+        protected void engineReset() {
+            crc.reset();
+            adler.reset();
+        }
+    }
+
     private static final char[] TABLE = "0123456789abcdef".toCharArray();
 
-    private static final MessageDigest DIGEST;
-    static {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private static volatile Algorithm defaultAlgorithm;
+
+    /**
+     * Returns the algorithm configured with the {@link Constants#PROP_HASH_ALGORITHM} system property
+     * or SHA-1, if the property is not set. The property is read on the first invocation.
+     *
+     * @return  the default hash algorithm
+     * @throws IllegalStateException  if the property is set to an unsupported algorithm
+     */
+    public static Algorithm getDefaultAlgorithm() {
+        Algorithm algorithm = defaultAlgorithm;
+        if(algorithm == null) {
+            algorithm = toDefaultAlgorithm(PropertyUtils.getSystemProperty(Constants.PROP_HASH_ALGORITHM));
+            defaultAlgorithm = algorithm;
+        }
+        return algorithm;
+    }
+
+    static Algorithm toDefaultAlgorithm(String name) {
+        if(name == null) {
+            return Algorithm.SHA1;
+        }
         try {
-            DIGEST = MessageDigest.getInstance("SHA-1");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
+            return Algorithm.fromName(name);
+        } catch(IllegalArgumentException e) {
+            throw new IllegalStateException("The value of the " + Constants.PROP_HASH_ALGORITHM + " system property, " + name
+                    + ", is not one of the supported hash algorithms " + Arrays.toString(Algorithm.values()), e);
         }
     }
 
     public static byte[] hashPath(Path path) throws IOException {
-        synchronized (DIGEST) {
-            DIGEST.reset();
-            updateDigest(DIGEST, path);
-            return DIGEST.digest();
-        }
+        return hashPath(path, getDefaultAlgorithm());
+    }
+
+    public static byte[] hashPath(Path path, Algorithm algorithm) throws IOException {
+        final MessageDigest digest = algorithm.getDigest();
+        updateDigest(digest, path);
+        return digest.digest();
     }
 
     public static String hashFile(Path path) throws IOException {
-        synchronized (DIGEST) {
-            DIGEST.reset();
-            updateDigest(DIGEST, path);
-            return bytesToHexString(DIGEST.digest());
-        }
+        return hashFile(path, getDefaultAlgorithm());
+    }
+
+    public static String hashFile(Path path, Algorithm algorithm) throws IOException {
+        return bytesToHexString(hashPath(path, algorithm));
     }
 
     public static String hash(String content) throws IOException {
-        synchronized (DIGEST) {
-            DIGEST.reset();
-            DIGEST.update(content.getBytes(StandardCharsets.UTF_8));
-            return bytesToHexString(DIGEST.digest());
-        }
+        return hash(content, getDefaultAlgorithm());
+    }
+
+    public static String hash(String content, Algorithm algorithm) throws IOException {
+        final MessageDigest digest = algorithm.getDigest();
+        digest.update(content.getBytes(StandardCharsets.UTF_8));
+        return bytesToHexString(digest.digest());
     }
 
     private static void updateDigest(MessageDigest digest, Path path) throws IOException {
@@ -82,38 +221,42 @@ public class HashUtils {
                 }
             }
         } else {
-            try (BufferedInputStream bis = new BufferedInputStream(Files.newInputStream(path))){
-                byte[] bytes = new byte[8192];
-                int read;
-                while ((read = bis.read(bytes)) > -1) {
-                    digest.update(bytes, 0, read);
+            final ByteBuffer buffer = BUFFER.get();
+            try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+                buffer.clear();
+                while (channel.read(buffer) > -1) {
+                    buffer.flip();
+                    digest.update(buffer);
+                    buffer.clear();
                 }
             }
         }
     }
 
     public static byte[] hashJar(Path jarFile, boolean ignoreManifest) throws IOException {
-        synchronized (DIGEST) {
-            DIGEST.reset();
-            try (FileSystem zipfs = FileSystems.newFileSystem(jarFile, null)) {
-                for (Path zipRoot : zipfs.getRootDirectories()) {
-                    final Map<String, Path> sortedChildren = new TreeMap<String, Path>();
-                    try(DirectoryStream<Path> stream = Files.newDirectoryStream(zipRoot)) {
-                        for(Path p : stream) {
-                            final String fileName = p.getFileName().toString();
-                            if(ignoreManifest && fileName.equals("META-INF/")) {
-                                continue;
-                            }
-                            sortedChildren.put(fileName, p);
+        return hashJar(jarFile, ignoreManifest, getDefaultAlgorithm());
+    }
+
+    public static byte[] hashJar(Path jarFile, boolean ignoreManifest, Algorithm algorithm) throws IOException {
+        final MessageDigest digest = algorithm.getDigest();
+        try (FileSystem zipfs = FileSystems.newFileSystem(jarFile, (ClassLoader) null)) {
+            for (Path zipRoot : zipfs.getRootDirectories()) {
+                final Map<String, Path> sortedChildren = new TreeMap<String, Path>();
+                try(DirectoryStream<Path> stream = Files.newDirectoryStream(zipRoot)) {
+                    for(Path p : stream) {
+                        final String fileName = p.getFileName().toString();
+                        if(ignoreManifest && fileName.equals("META-INF/")) {
+                            continue;
                         }
+                        sortedChildren.put(fileName, p);
                     }
-                    for (Path child : sortedChildren.values()) {
-                        updateDigest(DIGEST, child);
-                    }
+                }
+                for (Path child : sortedChildren.values()) {
+                    updateDigest(digest, child);
                 }
             }
-            return DIGEST.digest();
         }
+        return digest.digest();
     }
 
     /**
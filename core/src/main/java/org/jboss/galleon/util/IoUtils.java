@@ -18,24 +18,35 @@ package org.jboss.galleon.util;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiFunction;
 
 /**
  *
@@ -101,7 +112,7 @@ public class IoUtils {
                     @Override
                     public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
                         throws IOException {
-                        final Path targetDir = target.resolve(source.relativize(dir));
+                        final Path targetDir = target.resolve(source.relativize(dir).toString());
                         try {
                             Files.copy(dir, targetDir);
                         } catch (FileAlreadyExistsException e) {
@@ -114,12 +125,93 @@ public class IoUtils {
                     @Override
                     public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
                         throws IOException {
-                        Files.copy(file, target.resolve(source.relativize(file)), StandardCopyOption.REPLACE_EXISTING);
+                        Files.copy(file, target.resolve(source.relativize(file).toString()), StandardCopyOption.REPLACE_EXISTING);
                         return FileVisitResult.CONTINUE;
                     }
                 });
     }
 
+    /**
+     * Creates a hard link to the source file at the target path replacing the target, if it exists.
+     * If the link could not be created, e.g. the files belong to different file stores
+     * or the file system does not support hard links, the source file is copied instead.
+     * Since a linked target shares the content with the source, neither of them
+     * should be modified in place afterwards, see {@link #writeLinesReplacing(Path, List)}.
+     *
+     * @param source  source file
+     * @param target  target file
+     * @return  true if the target was linked, false if it was copied
+     * @throws IOException  in case the file could neither be linked nor copied
+     */
+    public static boolean linkOrCopy(Path source, Path target) throws IOException {
+        if(source.getFileSystem().equals(target.getFileSystem()) && !Files.isSymbolicLink(source)) {
+            try {
+                Files.deleteIfExists(target);
+                Files.createLink(target, source);
+                return true;
+            } catch (UnsupportedOperationException | IOException e) {
+                // fallback to copying
+            }
+        }
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        return false;
+    }
+
+    /**
+     * Writes the lines to a copy of the file and replaces the file with the copy,
+     * so that the files hard-linked to the original file are not modified.
+     *
+     * @param file  file to write
+     * @param lines  new content of the file
+     * @throws IOException  in case the file could not be written
+     */
+    public static void writeLinesReplacing(Path file, List<String> lines) throws IOException {
+        final Path tmp = file.resolveSibling('.' + file.getFileName().toString() + '-' + UUID.randomUUID());
+        try {
+            // the copy keeps the attributes of the file, e.g. the permissions
+            Files.copy(file, tmp, StandardCopyOption.COPY_ATTRIBUTES);
+            Files.write(tmp, lines, StandardOpenOption.TRUNCATE_EXISTING);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Checks whether the files have the same content.
+     *
+     * @param file1  a file
+     * @param file2  another file
+     * @return  true if the files have the same content, otherwise false
+     * @throws IOException  in case either of the files could not be read
+     */
+    public static boolean contentEquals(Path file1, Path file2) throws IOException {
+        if(Files.size(file1) != Files.size(file2)) {
+            return false;
+        }
+        final byte[] buf1 = new byte[DEFAULT_BUFFER_SIZE];
+        final byte[] buf2 = new byte[DEFAULT_BUFFER_SIZE];
+        try (InputStream in1 = Files.newInputStream(file1); InputStream in2 = Files.newInputStream(file2)) {
+            int n;
+            while((n = in1.read(buf1)) != -1) {
+                int read = 0;
+                while(read < n) {
+                    final int m = in2.read(buf2, read, n - read);
+                    if(m == -1) {
+                        return false;
+                    }
+                    read += m;
+                }
+                for(int i = 0; i < n; ++i) {
+                    if(buf1[i] != buf2[i]) {
+                        return false;
+                    }
+                }
+            }
+            return in2.read() == -1;
+        }
+    }
+
     public static String readFile(Path file) throws IOException {
         if(charBuffer == null) {
             charBuffer = new char[DEFAULT_BUFFER_SIZE];
@@ -138,7 +230,28 @@ public class IoUtils {
         Files.write(file, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE);
     }
 
-     public static Map<Path, String> listContents(Path root, PathFilter filter) throws IOException {
+    public static Map<Path, String> listContents(Path root, PathFilter filter) throws IOException {
+        return listContents(root, filter, null, null);
+    }
+
+    /**
+     * Same as {@link #listContents(Path, PathFilter, ForkJoinPool)} except that the hashes of the files
+     * are first looked up with the recorded hashes function. It receives the path of a file relative
+     * to the root and the attributes of the file and returns the hash of the file recorded earlier,
+     * if the file has not changed since, or null, in which case the file is hashed.
+     *
+     * @param root  root of the tree
+     * @param filter  filter of the paths to include
+     * @param pool  fork-join pool or null
+     * @param recordedHashes  lookup of the recorded hashes or null
+     * @return  relative paths mapped to the hashes of their content
+     * @throws IOException  in case of a failure
+     */
+    public static Map<Path, String> listContents(Path root, PathFilter filter, ForkJoinPool pool,
+            BiFunction<Path, BasicFileAttributes, String> recordedHashes) throws IOException {
+        if(pool != null) {
+            return listContentsInParallel(root, filter, pool, recordedHashes);
+        }
         if (root == null || !Files.exists(root)) {
             return Collections.emptyMap();
         }
@@ -162,7 +275,7 @@ public class IoUtils {
             @Override
             public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
                 if(filter.accept(root.relativize(file))) {
-                    contents.put(root.relativize(file), HashUtils.hashFile(file));
+                    contents.put(root.relativize(file), hashFile(root, file, attrs, recordedHashes));
                 }
                 return FileVisitResult.CONTINUE;
             }
@@ -179,4 +292,118 @@ public class IoUtils {
         });
         return contents;
     }
+
+    /**
+     * Same as {@link #listContents(Path, PathFilter)} except that the tree is listed and
+     * the files are hashed in parallel using the fork-join pool. If the pool is null,
+     * the tree is listed on the calling thread.
+     *
+     * @param root  root of the tree
+     * @param filter  filter of the paths to include
+     * @param pool  fork-join pool or null
+     * @return  relative paths mapped to the hashes of their content
+     * @throws IOException  in case of a failure
+     */
+    public static Map<Path, String> listContents(Path root, PathFilter filter, ForkJoinPool pool) throws IOException {
+        return listContents(root, filter, pool, null);
+    }
+
+    private static String hashFile(Path root, Path file, BasicFileAttributes attrs,
+            BiFunction<Path, BasicFileAttributes, String> recordedHashes) throws IOException {
+        if(recordedHashes != null) {
+            final String hash = recordedHashes.apply(root.relativize(file), attrs);
+            if(hash != null) {
+                return hash;
+            }
+        }
+        return HashUtils.hashFile(file);
+    }
+
+    private static Map<Path, String> listContentsInParallel(Path root, PathFilter filter, ForkJoinPool pool,
+            BiFunction<Path, BasicFileAttributes, String> recordedHashes) throws IOException {
+        if (root == null || !Files.exists(root)) {
+            return Collections.emptyMap();
+        }
+        if(Files.isRegularFile(root)) {
+            return Collections.singletonMap(root.relativize(root), HashUtils.hashFile(root));
+        }
+        final Map<Path, String> contents = new ConcurrentHashMap<>();
+        if(!filter.accept(root.relativize(root))) {
+            return contents;
+        }
+        final ContentsTask task = new ContentsTask(root, root, null, filter, recordedHashes, contents);
+        try {
+            if(ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() == pool) {
+                task.invoke();
+            } else {
+                pool.invoke(task);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return contents;
+    }
+
+    private static class ContentsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path root;
+        private final Path path;
+        // null for directories
+        private final BasicFileAttributes fileAttrs;
+        private final PathFilter filter;
+        private final BiFunction<Path, BasicFileAttributes, String> recordedHashes;
+        private final Map<Path, String> contents;
+
+        ContentsTask(Path root, Path path, BasicFileAttributes fileAttrs, PathFilter filter,
+                BiFunction<Path, BasicFileAttributes, String> recordedHashes, Map<Path, String> contents) {
+            this.root = root;
+            this.path = path;
+            this.fileAttrs = fileAttrs;
+            this.filter = filter;
+            this.recordedHashes = recordedHashes;
+            this.contents = contents;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                if(fileAttrs != null) {
+                    contents.put(root.relativize(path), hashFile(root, path, fileAttrs, recordedHashes));
+                    return;
+                }
+                final DirectoryStream<Path> dirStream;
+                try {
+                    dirStream = Files.newDirectoryStream(path);
+                } catch (IOException e) {
+                    // an unreadable directory is skipped, as it is by the serial listing
+                    return;
+                }
+                final List<ContentsTask> tasks = new ArrayList<>();
+                boolean empty = true;
+                try (DirectoryStream<Path> stream = dirStream) {
+                    for (Path child : stream) {
+                        empty = false;
+                        if (!filter.accept(root.relativize(child))) {
+                            continue;
+                        }
+                        final BasicFileAttributes attrs;
+                        try {
+                            attrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        } catch (IOException e) {
+                            continue;
+                        }
+                        tasks.add(new ContentsTask(root, child, attrs.isDirectory() ? null : attrs, filter, recordedHashes, contents));
+                    }
+                }
+                if (empty) {
+                    contents.put(root.relativize(path), HashUtils.hash(root.relativize(path).toString()));
+                }
+                invokeAll(tasks);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
 }
@@ -41,6 +41,10 @@ public class PathsUtils {
         return getProvisionedStateDir(installationDir).resolve(Constants.PROVISIONED_STATE_XML);
     }
 
+    public static Path getContentManifest(Path installationDir) {
+        return getProvisionedStateDir(installationDir).resolve(Constants.CONTENT_MANIFEST);
+    }
+
     public static String toForwardSlashSeparator(String path) {
         if(File.separatorChar == '/') {
             return path;
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.xml;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.galleon.xml.util.ElementNode;
+import org.jboss.galleon.xml.util.ElementNodeWriter;
+import org.jboss.galleon.xml.util.ElementWriter;
+import org.jboss.galleon.xml.util.FormattingXmlStreamWriter;
+import org.jboss.galleon.xml.util.XmlStreamElementWriter;
+
+/**
+ * Base class for writers of documents that may get large. The elements are written
+ * directly to the output through an {@link ElementWriter} instead of building
+ * the whole tree in memory first.
+ *
+ * <p>The element tree is still available from {@link #toElement(Object)}, which
+ * builds it from the same {@link #writeElement(ElementWriter, Object)} implementation.
+ */
+public abstract class BaseStreamingXmlWriter<T> extends BaseXmlWriter<T> {
+
+    protected static void startElement(ElementWriter writer, XmlNameProvider e) throws XMLStreamException {
+        writer.startElement(e.getLocalName(), e.getNamespace());
+    }
+
+    protected static void addAttribute(ElementWriter writer, XmlNameProvider name, String value) {
+        writer.addAttribute(name.getLocalName(), value);
+    }
+
+    @Override
+    public void write(T t, Writer stream) throws XMLStreamException, IOException {
+        try (FormattingXmlStreamWriter writer = new FormattingXmlStreamWriter(XmlParsers.createXMLStreamWriter(stream))) {
+            writer.writeStartDocument();
+            writeElement(new XmlStreamElementWriter(writer), t);
+            writer.writeEndDocument();
+        }
+    }
+
+    @Override
+    protected ElementNode toElement(T t) throws XMLStreamException {
+        final ElementNodeWriter writer = new ElementNodeWriter();
+        writeElement(writer, t);
+        return writer.getRoot();
+    }
+
+    /**
+     * Writes the root element of the document.
+     *
+     * @param writer  the element writer
+     * @param t  the object to write
+     * @throws XMLStreamException  in case of a failure
+     */
+    protected abstract void writeElement(ElementWriter writer, T t) throws XMLStreamException;
+}
@@ -22,7 +22,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 
-import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 
 import org.jboss.galleon.xml.util.AttributeValue;
@@ -70,8 +69,7 @@ public abstract class BaseXmlWriter<T> {
 
     public void write(T t, Writer stream) throws XMLStreamException, IOException {
         final ElementNode root = toElement(t);
-        try (FormattingXmlStreamWriter writer = new FormattingXmlStreamWriter(XMLOutputFactory.newInstance()
-                .createXMLStreamWriter(stream))) {
+        try (FormattingXmlStreamWriter writer = new FormattingXmlStreamWriter(XmlParsers.createXMLStreamWriter(stream))) {
             writer.writeStartDocument();
             root.marshall(writer);
             writer.writeEndDocument();
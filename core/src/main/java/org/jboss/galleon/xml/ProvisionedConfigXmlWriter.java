@@ -28,48 +28,83 @@ import org.jboss.galleon.state.ProvisionedFeature;
 import org.jboss.galleon.universe.FeaturePackLocation.FPID;
 import org.jboss.galleon.xml.ProvisionedStateXmlParser20.Attribute;
 import org.jboss.galleon.xml.ProvisionedStateXmlParser20.Element;
-import org.jboss.galleon.xml.util.ElementNode;
+import org.jboss.galleon.xml.util.ElementWriter;
 
 /**
+ * Streams the features of a provisioned config to the XML writer
+ * as they are handled, i.e. without building the element tree of the config.
  *
  * @author Alexey Loubyansky
  */
-public class ProvisionedConfigXmlWriter extends BaseXmlWriter<ProvisionedConfig> {
+public class ProvisionedConfigXmlWriter extends BaseStreamingXmlWriter<ProvisionedConfig> {
 
     private static class XmlConfigHandler implements ProvisionedConfigHandler {
 
-        private final ElementNode parent;
-        private ElementNode fpElement;
-        private ElementNode specElement;
+        private final ElementWriter writer;
+        private boolean fpElement;
+        private boolean specElement;
 
-        XmlConfigHandler(ElementNode parent) {
-            this.parent = parent;
+        XmlConfigHandler(ElementWriter writer) {
+            this.writer = writer;
         }
 
         @Override
-        public void nextFeaturePack(FPID fpid) {
-            fpElement = addElement(parent, Element.FEATURE_PACK);
-            addAttribute(fpElement, Attribute.LOCATION, fpid.toString());
+        public void nextFeaturePack(FPID fpid) throws ProvisioningException {
+            try {
+                endFeaturePack();
+                startElement(writer, Element.FEATURE_PACK);
+                addAttribute(writer, Attribute.LOCATION, fpid.toString());
+                fpElement = true;
+            } catch (XMLStreamException e) {
+                throw new ProvisioningException(e);
+            }
         }
 
         @Override
-        public void nextSpec(ResolvedFeatureSpec spec) {
-            specElement = addElement(fpElement, Element.SPEC);
-            addAttribute(specElement, Attribute.NAME, spec.getId().getName());
+        public void nextSpec(ResolvedFeatureSpec spec) throws ProvisioningException {
+            try {
+                endSpec();
+                startElement(writer, Element.SPEC);
+                addAttribute(writer, Attribute.NAME, spec.getId().getName());
+                specElement = true;
+            } catch (XMLStreamException e) {
+                throw new ProvisioningException(e);
+            }
         }
 
         @Override
         public void nextFeature(ProvisionedFeature feature) throws ProvisioningException {
-            final ElementNode featureE = addElement(specElement, Element.FEATURE);
-            if(feature.hasId()) {
-                addAttribute(featureE, Attribute.ID, feature.getId().toString());
-            }
-            if(feature.hasParams()) {
-                for(String param : feature.getParamNames()) {
-                    final ElementNode paramE = addElement(featureE, Element.PARAM);
-                    addAttribute(paramE, Attribute.NAME, param);
-                    addAttribute(paramE, Attribute.VALUE, feature.getConfigParam(param));
+            try {
+                startElement(writer, Element.FEATURE);
+                if(feature.hasId()) {
+                    addAttribute(writer, Attribute.ID, feature.getId().toString());
                 }
+                if(feature.hasParams()) {
+                    for(String param : feature.getParamNames()) {
+                        startElement(writer, Element.PARAM);
+                        addAttribute(writer, Attribute.NAME, param);
+                        addAttribute(writer, Attribute.VALUE, feature.getConfigParam(param));
+                        writer.endElement();
+                    }
+                }
+                writer.endElement();
+            } catch (XMLStreamException e) {
+                throw new ProvisioningException(e);
+            }
+        }
+
+        private void endSpec() throws XMLStreamException {
+            if(specElement) {
+                writer.endElement();
+                specElement = false;
+            }
+        }
+
+        void endFeaturePack() throws XMLStreamException {
+            endSpec();
+            if(fpElement) {
+                writer.endElement();
+                fpElement = false;
             }
         }
     }
@@ -83,31 +118,43 @@ public class ProvisionedConfigXmlWriter extends BaseXmlWriter<ProvisionedConfig>
     private ProvisionedConfigXmlWriter() {
     }
 
-    protected ElementNode toElement(ProvisionedConfig config) throws XMLStreamException {
-        final ElementNode configE = addElement(null, Element.CONFIG);
+    @Override
+    protected void writeElement(ElementWriter writer, ProvisionedConfig config) throws XMLStreamException {
+        writeConfig(writer, config);
+    }
+
+    void writeConfig(ElementWriter writer, ProvisionedConfig config) throws XMLStreamException {
+        startElement(writer, Element.CONFIG);
         if(config.getName() != null) {
-            addAttribute(configE, Attribute.NAME, config.getName());
+            addAttribute(writer, Attribute.NAME, config.getName());
         }
         if(config.getModel() != null) {
-            addAttribute(configE, Attribute.MODEL, config.getModel());
+            addAttribute(writer, Attribute.MODEL, config.getModel());
         }
 
         if(config.hasProperties()) {
-            final ElementNode propsE = addElement(configE, Element.PROPS);
+            startElement(writer, Element.PROPS);
             for(Map.Entry<String, String> entry : config.getProperties().entrySet()) {
-                final ElementNode propE = addElement(propsE, Element.PROP);
-                addAttribute(propE, Attribute.NAME, entry.getKey());
-                addAttribute(propE, Attribute.VALUE, entry.getValue());
+                startElement(writer, Element.PROP);
+                addAttribute(writer, Attribute.NAME, entry.getKey());
+                addAttribute(writer, Attribute.VALUE, entry.getValue());
+                writer.endElement();
             }
+            writer.endElement();
         }
 
         if(config.hasFeatures()) {
+            final XmlConfigHandler handler = new XmlConfigHandler(writer);
             try {
-                config.handle(new XmlConfigHandler(configE));
+                config.handle(handler);
             } catch (ProvisioningException e) {
+                if(e.getCause() instanceof XMLStreamException) {
+                    throw (XMLStreamException) e.getCause();
+                }
                 throw new XMLStreamException("Failed to marshal ProvisionedConfig", e);
             }
+            handler.endFeaturePack();
         }
-        return configE;
+        writer.endElement();
     }
 }
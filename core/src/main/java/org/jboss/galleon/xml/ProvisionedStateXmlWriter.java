@@ -24,13 +24,15 @@ import org.jboss.galleon.state.FeaturePackSet;
 import org.jboss.galleon.state.ProvisionedConfig;
 import org.jboss.galleon.xml.ProvisionedStateXmlParser20.Attribute;
 import org.jboss.galleon.xml.ProvisionedStateXmlParser20.Element;
-import org.jboss.galleon.xml.util.ElementNode;
+import org.jboss.galleon.xml.util.ElementWriter;
 
 /**
+ * Streams the provisioned state to the XML writer, so that the configs
+ * are written without building their element trees in memory.
  *
  * @author Alexey Loubyansky
  */
-public class ProvisionedStateXmlWriter extends BaseXmlWriter<FeaturePackSet<?>> {
+public class ProvisionedStateXmlWriter extends BaseStreamingXmlWriter<FeaturePackSet<?>> {
 
     private static final ProvisionedStateXmlWriter INSTANCE = new ProvisionedStateXmlWriter();
 
@@ -42,35 +44,37 @@ public class ProvisionedStateXmlWriter extends BaseXmlWriter<FeaturePackSet<?>>
     }
 
     @Override
-    protected ElementNode toElement(FeaturePackSet<?> provisionedState) throws XMLStreamException {
-
-        final ElementNode pkg = addElement(null, Element.INSTALLATION);
+    protected void writeElement(ElementWriter writer, FeaturePackSet<?> provisionedState) throws XMLStreamException {
+        startElement(writer, Element.INSTALLATION);
 
         if (provisionedState.hasFeaturePacks()) {
             for(FeaturePack<?> fp : provisionedState.getFeaturePacks()) {
-                final ElementNode fpElement = addElement(pkg, Element.FEATURE_PACK);
-                writeFeaturePack(fpElement, fp);
+                startElement(writer, Element.FEATURE_PACK);
+                writeFeaturePack(writer, fp);
+                writer.endElement();
             }
         }
 
         if(provisionedState.hasConfigs()) {
             for(ProvisionedConfig config : provisionedState.getConfigs()) {
-                pkg.addChild(ProvisionedConfigXmlWriter.getInstance().toElement(config));
+                ProvisionedConfigXmlWriter.getInstance().writeConfig(writer, config);
             }
         }
 
-        return pkg;
+        writer.endElement();
     }
 
-    private void writeFeaturePack(ElementNode fp, FeaturePack<?> featurePack) {
-        addAttribute(fp, Attribute.LOCATION, featurePack.getFPID().toString());
+    private void writeFeaturePack(ElementWriter writer, FeaturePack<?> featurePack) throws XMLStreamException {
+        addAttribute(writer, Attribute.LOCATION, featurePack.getFPID().toString());
 
         if (featurePack.hasPackages()) {
-            final ElementNode packages = addElement(fp, Element.PACKAGES);
+            startElement(writer, Element.PACKAGES);
             for (FeaturePackPackage pkg : featurePack.getPackages()) {
-                final ElementNode pkgElement = addElement(packages, Element.PACKAGE);
-                addAttribute(pkgElement, Attribute.NAME, pkg.getName());
+                startElement(writer, Element.PACKAGE);
+                addAttribute(writer, Attribute.NAME, pkg.getName());
+                writer.endElement();
             }
+            writer.endElement();
         }
     }
 }
@@ -17,11 +17,14 @@
 package org.jboss.galleon.xml;
 
 import java.io.Reader;
+import java.io.Writer;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 
 import org.jboss.staxmapper.XMLElementReader;
 import org.jboss.staxmapper.XMLMapper;
@@ -42,6 +45,9 @@ public class XmlParsers {
         inputFactory = tmpIF;
     }
 
+    // looking up the factory implementation is much more expensive than creating a writer
+    private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
     private static void setIfSupported(final XMLInputFactory inputFactory, final String property, final Object value) {
         if (inputFactory.isPropertySupported(property)) {
             inputFactory.setProperty(property, value);
@@ -52,6 +58,10 @@ public class XmlParsers {
         return inputFactory.createXMLStreamReader(reader);
     }
 
+    public static XMLStreamWriter createXMLStreamWriter(Writer writer) throws XMLStreamException {
+        return outputFactory.createXMLStreamWriter(writer);
+    }
+
     public static XmlParsers getInstance() {
         return INSTANCE;
     }
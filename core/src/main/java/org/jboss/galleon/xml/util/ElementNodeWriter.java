@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.xml.util;
+
+/**
+ * Builds a tree of {@link ElementNode}s from the elements it receives.
+ */
+public class ElementNodeWriter implements ElementWriter {
+
+    private ElementNode root;
+    private ElementNode current;
+
+    @Override
+    public void startElement(String localName, String namespace) {
+        final ElementNode element = new ElementNode(current, localName, namespace);
+        if(current == null) {
+            if(root != null) {
+                throw new IllegalStateException("The root element has already been written");
+            }
+            root = element;
+        } else {
+            current.addChild(element);
+        }
+        current = element;
+    }
+
+    @Override
+    public void addAttribute(String name, String value) {
+        current.addAttribute(name, new AttributeValue(value));
+    }
+
+    @Override
+    public void endElement() {
+        current = current.getParent();
+    }
+
+    /**
+     * Returns the root element or null, if no element has been started.
+     *
+     * @return  the root element or null
+     */
+    public ElementNode getRoot() {
+        return root;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.xml.util;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Receives the elements of a document in the document order.
+ */
+public interface ElementWriter {
+
+    /**
+     * Starts a child element of the current element or the root element.
+     *
+     * @param localName  element name
+     * @param namespace  element namespace
+     * @throws XMLStreamException  in case of a failure
+     */
+    void startElement(String localName, String namespace) throws XMLStreamException;
+
+    /**
+     * Adds an attribute to the most recently started element.
+     * Attributes have to be added before the first child of the element is started.
+     *
+     * @param name  attribute name
+     * @param value  attribute value
+     */
+    void addAttribute(String name, String value);
+
+    /**
+     * Ends the current element.
+     *
+     * @throws XMLStreamException  in case of a failure
+     */
+    void endElement() throws XMLStreamException;
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.xml.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes elements directly to an XML stream writer producing the same output
+ * as marshalling a tree of {@link ElementNode}s without building the tree.
+ *
+ * <p>Since an element without children is written as an empty element,
+ * the start of the most recently started element is held back until either
+ * its first child is started or the element is ended. So only the name
+ * and the attributes of a single element are kept in memory at a time.
+ */
+public class XmlStreamElementWriter implements ElementWriter {
+
+    private final XMLStreamWriter writer;
+    private String pendingName;
+    private String pendingNs;
+    private final List<String> pendingAttrs = new ArrayList<>();
+
+    public XmlStreamElementWriter(XMLStreamWriter writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void startElement(String localName, String namespace) throws XMLStreamException {
+        if(pendingName != null) {
+            writePending(false);
+        }
+        pendingName = localName;
+        pendingNs = namespace == null || namespace.isEmpty() ? null : namespace;
+    }
+
+    @Override
+    public void addAttribute(String name, String value) {
+        pendingAttrs.add(name);
+        pendingAttrs.add(value);
+    }
+
+    @Override
+    public void endElement() throws XMLStreamException {
+        if(pendingName != null) {
+            writePending(true);
+        } else {
+            writer.writeEndElement();
+        }
+    }
+
+    private void writePending(boolean empty) throws XMLStreamException {
+        final String prefix = writer.getNamespaceContext().getPrefix(pendingNs);
+        if (prefix == null) {
+            // Unknown namespace; it becomes default
+            writer.setDefaultNamespace(pendingNs);
+            if (empty) {
+                writer.writeEmptyElement(pendingName);
+            } else {
+                writer.writeStartElement(pendingName);
+            }
+            writer.writeNamespace(null, pendingNs);
+        } else if (empty) {
+            writer.writeEmptyElement(pendingNs, pendingName);
+        } else {
+            writer.writeStartElement(pendingNs, pendingName);
+        }
+        for(int i = 0; i < pendingAttrs.size(); i += 2) {
+            writer.writeAttribute(pendingAttrs.get(i), pendingAttrs.get(i + 1));
+        }
+        pendingAttrs.clear();
+        pendingName = null;
+        pendingNs = null;
+    }
+}
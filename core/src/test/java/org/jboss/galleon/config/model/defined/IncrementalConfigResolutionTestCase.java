@@ -0,0 +1,213 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.config.model.defined;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.ProvisioningManager;
+import org.jboss.galleon.config.ConfigModel;
+import org.jboss.galleon.config.FeatureConfig;
+import org.jboss.galleon.config.FeaturePackConfig;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.plugin.ProvisionedConfigHandler;
+import org.jboss.galleon.runtime.ProvisioningRuntime;
+import org.jboss.galleon.runtime.ResolvedFeatureId;
+import org.jboss.galleon.spec.FeatureParameterSpec;
+import org.jboss.galleon.spec.FeatureReferenceSpec;
+import org.jboss.galleon.spec.FeatureSpec;
+import org.jboss.galleon.state.ProvisionedConfig;
+import org.jboss.galleon.state.ProvisionedFeature;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.test.PmInstallFeaturePackTestBase;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.jboss.galleon.xml.ProvisionedConfigBuilder;
+import org.jboss.galleon.xml.ProvisionedFeatureBuilder;
+import org.junit.Assert;
+
+/**
+ * When a runtime is built for an edited configuration on top of the runtime
+ * of the previous version of the configuration, only the configs affected by
+ * the edit are ordered again. That includes the edits of the config properties
+ * configuring the feature arranger.
+ */
+public class IncrementalConfigResolutionTestCase extends PmInstallFeaturePackTestBase {
+
+    private static final FPID FP_GAV = LegacyGalleon1Universe.newFPID("org.jboss.pm.test:fp1", "1", "1.0.0.Final");
+
+    @Override
+    protected void createFeaturePacks(FeaturePackCreator creator) throws ProvisioningException {
+        creator
+        .newFeaturePack(FP_GAV)
+            .addSpec(FeatureSpec.builder("specA")
+                    .addParam(FeatureParameterSpec.createId("a"))
+                    .addParam(FeatureParameterSpec.create("b", true))
+                    .addFeatureRef(FeatureReferenceSpec.builder("specB").setNillable(true).build())
+                    .build())
+            .addSpec(FeatureSpec.builder("specB")
+                    .addParam(FeatureParameterSpec.createId("b"))
+                    .build())
+            .addConfig(ConfigModel.builder("model1", "config1")
+                    .addFeature(
+                            new FeatureConfig("specA")
+                            .setParam("a", "a1")
+                            .setParam("b", "b1"))
+                    .addFeature(
+                            new FeatureConfig("specB")
+                            .setParam("b", "b1"))
+                    .build())
+            .addConfig(ConfigModel.builder("model1", "config2")
+                    .addFeature(
+                            new FeatureConfig("specA")
+                            .setParam("a", "a2")
+                            .setParam("b", "b2"))
+                    .addFeature(
+                            new FeatureConfig("specB")
+                            .setParam("b", "b2"))
+                    .build())
+            .getCreator()
+        .install();
+    }
+
+    @Override
+    protected FeaturePackConfig featurePackConfig() {
+        return FeaturePackConfig.forLocation(FP_GAV.getLocation());
+    }
+
+    @Override
+    protected void testPm(ProvisioningManager pm) throws ProvisioningException {
+        super.testPm(pm);
+        testEditedFeatures(pm);
+        testFlippedArrangerProperty(pm);
+    }
+
+    private void testEditedFeatures(ProvisioningManager pm) throws ProvisioningException {
+        final ProvisioningConfig edited = ProvisioningConfig.builder()
+                .addFeaturePackDep(featurePackConfig())
+                .addConfig(ConfigModel.builder("model1", "config2")
+                        .addFeature(new FeatureConfig("specB").setParam("b", "b3"))
+                        .addFeature(new FeatureConfig("specA").setParam("a", "a3").setParam("b", "b3"))
+                        .build())
+                .build();
+
+        try(ProvisioningRuntime base = pm.getRuntime(ProvisioningConfig.builder().addFeaturePackDep(featurePackConfig()).build(), (ProvisioningRuntime) null);
+                ProvisioningRuntime rt = pm.getRuntime(edited, base)) {
+            Assert.assertEquals(2, rt.getConfigs().size());
+
+            final List<ProvisionedFeature> baseConfig1 = getFeatures(base, "config1");
+            final List<ProvisionedFeature> config1 = getFeatures(rt, "config1");
+            Assert.assertEquals(baseConfig1.size(), config1.size());
+            for(int i = 0; i < config1.size(); ++i) {
+                Assert.assertSame(baseConfig1.get(i), config1.get(i));
+            }
+
+            final List<ProvisionedFeature> config2 = getFeatures(rt, "config2");
+            final List<ResolvedFeatureId> ids = new ArrayList<>(config2.size());
+            for(ProvisionedFeature feature : config2) {
+                ids.add(feature.getId());
+            }
+            Assert.assertEquals(Arrays.asList(
+                    ResolvedFeatureId.create(FP_GAV, "specB", "b", "b2"),
+                    ResolvedFeatureId.create(FP_GAV, "specA", "a", "a2"),
+                    ResolvedFeatureId.create(FP_GAV, "specB", "b", "b3"),
+                    ResolvedFeatureId.create(FP_GAV, "specA", "a", "a3")), ids);
+        }
+    }
+
+    private void testFlippedArrangerProperty(ProvisioningManager pm) throws ProvisioningException {
+        final ProvisioningConfig plain = ProvisioningConfig.builder().addFeaturePackDep(featurePackConfig()).build();
+        final ProvisioningConfig batched = ProvisioningConfig.builder()
+                .addFeaturePackDep(featurePackConfig())
+                .addConfig(ConfigModel.builder("model1", "config2")
+                        .setProperty(ConfigModel.BRANCH_IS_BATCH, "true")
+                        .build())
+                .build();
+        try(ProvisioningRuntime base = pm.getRuntime(plain, (ProvisioningRuntime) null);
+                ProvisioningRuntime batchedRt = pm.getRuntime(batched, base);
+                ProvisioningRuntime plainRt = pm.getRuntime(plain, batchedRt)) {
+            Assert.assertEquals(0, countBatches(base, "config2"));
+            Assert.assertEquals(1, countBatches(batchedRt, "config2"));
+            Assert.assertEquals(0, countBatches(plainRt, "config2"));
+
+            final List<ProvisionedFeature> baseConfig1 = getFeatures(base, "config1");
+            final List<ProvisionedFeature> plainConfig1 = getFeatures(plainRt, "config1");
+            for(int i = 0; i < plainConfig1.size(); ++i) {
+                Assert.assertSame(baseConfig1.get(i), plainConfig1.get(i));
+            }
+        }
+    }
+
+    private static int countBatches(ProvisioningRuntime rt, String name) throws ProvisioningException {
+        final int[] batches = new int[1];
+        getConfig(rt, name).handle(new ProvisionedConfigHandler() {
+            @Override
+            public void startBatch() throws ProvisioningException {
+                ++batches[0];
+            }
+        });
+        return batches[0];
+    }
+
+    private static ProvisionedConfig getConfig(ProvisioningRuntime rt, String name) {
+        for(ProvisionedConfig c : rt.getConfigs()) {
+            if(c.getName().equals(name)) {
+                return c;
+            }
+        }
+        Assert.fail("Config " + name + " not found");
+        return null;
+    }
+
+    private static List<ProvisionedFeature> getFeatures(ProvisioningRuntime rt, String name) throws ProvisioningException {
+        final List<ProvisionedFeature> features = new ArrayList<>();
+        getConfig(rt, name).handle(new ProvisionedConfigHandler() {
+            @Override
+            public void nextFeature(ProvisionedFeature feature) throws ProvisioningException {
+                features.add(feature);
+            }
+        });
+        return features;
+    }
+
+    @Override
+    protected ProvisionedState provisionedState() throws ProvisioningException {
+        return ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.forFPID(FP_GAV))
+                .addConfig(ProvisionedConfigBuilder.builder()
+                        .setModel("model1")
+                        .setName("config1")
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP_GAV, "specB", "b", "b1")).build())
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP_GAV, "specA", "a", "a1"))
+                                .setConfigParam("b", "b1")
+                                .build())
+                        .build())
+                .addConfig(ProvisionedConfigBuilder.builder()
+                        .setModel("model1")
+                        .setName("config2")
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP_GAV, "specB", "b", "b2")).build())
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP_GAV, "specA", "a", "a2"))
+                                .setConfigParam("b", "b2")
+                                .build())
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.config.model.defined;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.config.ConfigModel;
+import org.jboss.galleon.config.FeatureConfig;
+import org.jboss.galleon.config.FeaturePackConfig;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.creator.FeaturePackBuilder;
+import org.jboss.galleon.runtime.ResolvedFeatureId;
+import org.jboss.galleon.spec.FeatureParameterSpec;
+import org.jboss.galleon.spec.FeatureSpec;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.test.PmInstallFeaturePackTestBase;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.jboss.galleon.xml.ProvisionedConfigBuilder;
+import org.jboss.galleon.xml.ProvisionedFeatureBuilder;
+
+/**
+ * The configs sharing the specs that provide and require a static capability, as well as the features
+ * merged from a model-only config, are ordered concurrently. Each config must be ordered
+ * using only its own capability providers.
+ */
+public class ParallelCapabilityOrderingTestCase extends PmInstallFeaturePackTestBase {
+
+    private static final FPID FP_GAV = LegacyGalleon1Universe.newFPID("org.jboss.pm.test:fp1", "1", "1.0.0.Final");
+
+    private static final int CONFIGS = 32;
+    private static final int FEATURES = 10;
+
+    @Override
+    protected void doBefore() throws Exception {
+        System.setProperty(Constants.PROP_CONFIG_THREADS, "4");
+        super.doBefore();
+    }
+
+    @Override
+    protected void doAfter() throws Exception {
+        System.clearProperty(Constants.PROP_CONFIG_THREADS);
+        super.doAfter();
+    }
+
+    @Override
+    protected void createFeaturePacks(FeaturePackCreator creator) throws ProvisioningException {
+        final FeaturePackBuilder fp = creator.newFeaturePack(FP_GAV)
+            .addSpec(FeatureSpec.builder("specA")
+                    .providesCapability("cap.a")
+                    .addParam(FeatureParameterSpec.createId("a"))
+                    .build())
+            .addSpec(FeatureSpec.builder("specB")
+                    .requiresCapability("cap.a")
+                    .addParam(FeatureParameterSpec.createId("b"))
+                    .build())
+            .addConfig(ConfigModel.builder().setModel("model1")
+                    .addFeature(new FeatureConfig("specB").setParam("b", "m"))
+                    .addFeature(new FeatureConfig("specA").setParam("a", "m"))
+                    .build());
+        for(int i = 1; i <= CONFIGS; ++i) {
+            final ConfigModel.Builder config = ConfigModel.builder("model1", "config" + i);
+            for(int j = 1; j <= FEATURES; ++j) {
+                config.addFeature(new FeatureConfig("specB").setParam("b", "c" + i + '-' + j))
+                        .addFeature(new FeatureConfig("specA").setParam("a", "c" + i + '-' + j));
+            }
+            fp.addConfig(config.build());
+        }
+        creator.install();
+    }
+
+    @Override
+    protected FeaturePackConfig featurePackConfig() {
+        return FeaturePackConfig.forLocation(FP_GAV.getLocation());
+    }
+
+    @Override
+    protected ProvisionedState provisionedState() throws ProvisioningException {
+        final ProvisionedState.Builder builder = ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.forFPID(FP_GAV));
+        for(int i = CONFIGS; i >= 1; --i) {
+            final ProvisionedConfigBuilder config = ProvisionedConfigBuilder.builder()
+                    .setModel("model1")
+                    .setName("config" + i);
+            for(int j = 1; j <= FEATURES; ++j) {
+                config.addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP_GAV, "specA", "a", "c" + i + '-' + j)).build());
+            }
+            config.addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP_GAV, "specA", "a", "m")).build());
+            for(int j = 1; j <= FEATURES; ++j) {
+                config.addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP_GAV, "specB", "b", "c" + i + '-' + j)).build());
+            }
+            builder.addConfig(config
+                    .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP_GAV, "specB", "b", "m")).build())
+                    .build());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.config.model.defined;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.ProvisioningManager;
+import org.jboss.galleon.config.ConfigModel;
+import org.jboss.galleon.config.FeatureConfig;
+import org.jboss.galleon.config.FeaturePackConfig;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.plugin.ProvisionedConfigHandler;
+import org.jboss.galleon.runtime.ResolvedFeatureId;
+import org.jboss.galleon.spec.FeatureParameterSpec;
+import org.jboss.galleon.spec.FeatureReferenceSpec;
+import org.jboss.galleon.spec.FeatureSpec;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.test.PmInstallFeaturePackTestBase;
+import org.jboss.galleon.test.util.TestConfigHandlersProvisioningPlugin;
+import org.jboss.galleon.test.util.TestProvisionedConfigHandler;
+import org.jboss.galleon.test.util.TestUtils;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.jboss.galleon.util.IoUtils;
+import org.jboss.galleon.xml.ProvisionedConfigBuilder;
+import org.jboss.galleon.xml.ProvisionedFeatureBuilder;
+import org.junit.Assert;
+
+/**
+ * The resolved config cached by the initial provisioning is re-used
+ * when the same configuration is provisioned again, including the batches
+ * and the default parameter values.
+ */
+public class ResolvedConfigCacheTestCase extends PmInstallFeaturePackTestBase {
+
+    private static final FPID FP_GAV = LegacyGalleon1Universe.newFPID("org.jboss.pm.test:fp1", "1", "1.0.0.Final");
+
+    public static class ConfigHandler extends TestProvisionedConfigHandler {
+        @Override
+        protected String[] initEvents() {
+            return new String[] {
+                    featurePackEvent(FP_GAV),
+                    specEvent("specC"),
+                    featureEvent(ResolvedFeatureId.create(FP_GAV, "specC", "c", "c1")),
+                    batchStartEvent(),
+                    specEvent("specA"),
+                    featureEvent(ResolvedFeatureId.create(FP_GAV, "specA", "a", "a1")),
+                    specEvent("specB"),
+                    featureEvent(ResolvedFeatureId.create(FP_GAV, "specB", "b", "b1")),
+                    batchEndEvent()
+            };
+        }
+    }
+
+    private Path cacheDir;
+
+    @Override
+    protected void doBefore() throws Exception {
+        cacheDir = TestUtils.mkRandomTmpDir();
+        System.setProperty(Constants.PROP_CONFIG_CACHE_DIR, cacheDir.toString());
+        super.doBefore();
+    }
+
+    @Override
+    protected void doAfter() throws Exception {
+        System.clearProperty(Constants.PROP_CONFIG_CACHE_DIR);
+        IoUtils.recursiveDelete(cacheDir);
+        super.doAfter();
+    }
+
+    @Override
+    protected void createFeaturePacks(FeaturePackCreator creator) throws ProvisioningException {
+        creator
+        .newFeaturePack(FP_GAV)
+            .addSpec(FeatureSpec.builder("specA")
+                    .addParam(FeatureParameterSpec.createId("a"))
+                    .addParam(FeatureParameterSpec.create("b"))
+                    .addFeatureRef(FeatureReferenceSpec.create("specB"))
+                    .build())
+            .addSpec(FeatureSpec.builder("specB")
+                    .addParam(FeatureParameterSpec.createId("b"))
+                    .addParam(FeatureParameterSpec.create("a"))
+                    .addFeatureRef(FeatureReferenceSpec.create("specA"))
+                    .build())
+            .addSpec(FeatureSpec.builder("specC")
+                    .addParam(FeatureParameterSpec.createId("c"))
+                    .addParam(FeatureParameterSpec.create("p", "def"))
+                    .build())
+            .addConfig(ConfigModel.builder()
+                    .addFeature(
+                            new FeatureConfig("specC")
+                            .setParam("c", "c1"))
+                    .addFeature(
+                            new FeatureConfig("specA")
+                            .setParam("a", "a1")
+                            .setParam("b", "b1"))
+                    .addFeature(
+                            new FeatureConfig("specB")
+                            .setParam("b", "b1")
+                            .setParam("a", "a1"))
+                    .build())
+            .addPlugin(TestConfigHandlersProvisioningPlugin.class)
+            .addService(ProvisionedConfigHandler.class, ConfigHandler.class)
+            .getCreator()
+        .install();
+    }
+
+    @Override
+    protected ProvisioningConfig initialState() throws ProvisioningException {
+        return ProvisioningConfig.builder()
+                .addFeaturePackDep(featurePackConfig())
+                .build();
+    }
+
+    @Override
+    protected FeaturePackConfig featurePackConfig() {
+        return FeaturePackConfig.forLocation(FP_GAV.getLocation());
+    }
+
+    @Override
+    protected void testPm(ProvisioningManager pm) throws ProvisioningException {
+        final List<Path> cached = listCacheDir();
+        Assert.assertEquals(1, cached.size());
+        final FileTime lastModified = lastModified(cached.get(0));
+
+        setReplaceInstalled(true);
+        super.testPm(pm);
+
+        Assert.assertEquals(cached, listCacheDir());
+        Assert.assertEquals(lastModified, lastModified(cached.get(0)));
+    }
+
+    private List<Path> listCacheDir() throws ProvisioningException {
+        try(Stream<Path> stream = Files.list(cacheDir)) {
+            return stream.collect(Collectors.toCollection(ArrayList::new));
+        } catch (IOException e) {
+            throw new ProvisioningException("Failed to read " + cacheDir, e);
+        }
+    }
+
+    private static FileTime lastModified(Path p) throws ProvisioningException {
+        try {
+            return Files.getLastModifiedTime(p);
+        } catch (IOException e) {
+            throw new ProvisioningException("Failed to read the attributes of " + p, e);
+        }
+    }
+
+    @Override
+    protected ProvisionedState provisionedState() throws ProvisioningException {
+        return ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.forFPID(FP_GAV))
+                .addConfig(ProvisionedConfigBuilder.builder()
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP_GAV, "specC", "c", "c1"))
+                                .setConfigParam("p", "def")
+                                .build())
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP_GAV, "specA", "a", "a1"))
+                                .setConfigParam("b", "b1")
+                                .build())
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP_GAV, "specB", "b", "b1"))
+                                .setConfigParam("a", "a1")
+                                .build())
+                        .build())
+                .build();
+    }
+}
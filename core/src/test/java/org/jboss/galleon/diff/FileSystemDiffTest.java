@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.diff;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.jboss.galleon.DefaultMessageWriter;
+import org.jboss.galleon.state.ContentManifest;
+import org.jboss.galleon.util.HashUtils;
+import org.jboss.galleon.util.IoUtils;
+import org.jboss.galleon.util.PathsUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileSystemDiffTest {
+
+    private Path staged;
+    private Path customized;
+
+    @Before
+    public void before() throws Exception {
+        staged = IoUtils.createRandomTmpDir();
+        customized = IoUtils.createRandomTmpDir();
+        IoUtils.writeFile(staged.resolve("a.txt"), "staged");
+        IoUtils.writeFile(customized.resolve("a.txt"), "customized");
+        IoUtils.writeFile(customized.resolve("b.txt"), "added");
+
+        // the recorded hash claims a.txt has not been modified since it was installed
+        final Path a = customized.resolve("a.txt");
+        final BasicFileAttributes attrs = Files.readAttributes(a, BasicFileAttributes.class);
+        ContentManifest.builder()
+                .addEntry("a.txt", HashUtils.hash("staged"), attrs.size(), attrs.lastModifiedTime().toMillis())
+                .build()
+                .write(PathsUtils.getContentManifest(customized));
+    }
+
+    @After
+    public void after() {
+        IoUtils.recursiveDelete(staged);
+        IoUtils.recursiveDelete(customized);
+    }
+
+    @Test
+    public void testRecordedHashesAreUsed() throws Exception {
+        for (int parallelism : new int[] {1, 4}) {
+            final FileSystemDiffResult result = new FileSystemDiff(new DefaultMessageWriter(), staged, customized)
+                    .setParallelism(parallelism)
+                    .setUseContentManifest(true)
+                    .diff();
+            assertTrue(result.getUnifiedDiffs().isEmpty());
+            assertTrue(result.getModifiedBinaryFiles().isEmpty());
+            assertEquals(1, result.getAddedFiles().size());
+            assertTrue(result.getAddedFiles().contains(Paths.get("b.txt")));
+        }
+    }
+
+    @Test
+    public void testContentIsHashedWithoutManifest() throws Exception {
+        final FileSystemDiffResult result = new FileSystemDiff(new DefaultMessageWriter(), staged, customized)
+                .setUseContentManifest(false)
+                .diff();
+        assertEquals(1, result.getUnifiedDiffs().size());
+        assertTrue(result.getUnifiedDiffs().containsKey(Paths.get("a.txt")));
+        assertEquals(1, result.getAddedFiles().size());
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.featurepack.install.test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.ProvisioningDescriptionException;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.ProvisioningManager;
+import org.jboss.galleon.config.FeaturePackConfig;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.state.ContentManifest;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.test.PmInstallFeaturePackTestBase;
+import org.jboss.galleon.test.util.fs.state.DirState;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.jboss.galleon.util.PathsUtils;
+import org.junit.Assert;
+
+/**
+ * The installation is upgraded incrementally: the unchanged files are left
+ * untouched, the removed ones are deleted and the content manifest is updated.
+ */
+public class IncrementalUpgradeTestCase extends PmInstallFeaturePackTestBase {
+
+    private static final FPID FP1_100_GAV = LegacyGalleon1Universe.newFPID("org.jboss.pm.test:fp1", "1", "1.0.0.Final");
+    private static final FPID FP1_101_GAV = LegacyGalleon1Universe.newFPID("org.jboss.pm.test:fp1", "1", "1.0.1.Final");
+
+    @Override
+    protected void doBefore() throws Exception {
+        System.setProperty(Constants.PROP_INSTALL_INCREMENTAL, "true");
+        super.doBefore();
+        setReplaceInstalled(true);
+    }
+
+    @Override
+    protected void doAfter() throws Exception {
+        System.clearProperty(Constants.PROP_INSTALL_INCREMENTAL);
+        super.doAfter();
+    }
+
+    @Override
+    protected void createFeaturePacks(FeaturePackCreator creator) throws ProvisioningException {
+        creator
+            .newFeaturePack(FP1_100_GAV)
+                .newPackage("p1", true)
+                    .writeContent("fp1/unchanged.txt", "unchanged")
+                    .writeContent("fp1/changed.txt", "fp1 1.0.0.Final")
+                    .writeContent("fp1/removed.txt", "removed")
+                    .writeContent("fp1/removed/removed.txt", "removed")
+                    .getFeaturePack()
+                .getCreator()
+            .newFeaturePack(FP1_101_GAV)
+                .newPackage("p1", true)
+                    .writeContent("fp1/unchanged.txt", "unchanged")
+                    .writeContent("fp1/changed.txt", "fp1 1.0.1.Final")
+                    .writeContent("fp1/added/added.txt", "added")
+                    .getFeaturePack()
+                .getCreator()
+            .install();
+    }
+
+    @Override
+    protected ProvisioningConfig initialState() throws ProvisioningException {
+        return ProvisioningConfig.builder()
+                .addFeaturePackDep(FeaturePackConfig.forLocation(FP1_100_GAV.getLocation()))
+                .build();
+    }
+
+    @Override
+    protected FeaturePackConfig featurePackConfig() throws ProvisioningDescriptionException {
+        return FeaturePackConfig.forLocation(FP1_101_GAV.getLocation());
+    }
+
+    @Override
+    protected void testPm(ProvisioningManager pm) throws ProvisioningException {
+        final Path manifestFile = PathsUtils.getContentManifest(installHome);
+        Assert.assertTrue(Files.exists(manifestFile));
+        final Path unchanged = installHome.resolve("fp1").resolve("unchanged.txt");
+        final BasicFileAttributes unchangedAttrs = readAttributes(unchanged);
+
+        super.testPm(pm);
+
+        final BasicFileAttributes upgradedAttrs = readAttributes(unchanged);
+        Assert.assertEquals(unchangedAttrs.lastModifiedTime(), upgradedAttrs.lastModifiedTime());
+        if(unchangedAttrs.fileKey() != null) {
+            Assert.assertEquals(unchangedAttrs.fileKey(), upgradedAttrs.fileKey());
+        }
+
+        final ContentManifest manifest;
+        try {
+            manifest = ContentManifest.read(manifestFile);
+        } catch (IOException e) {
+            throw new ProvisioningException("Failed to read " + manifestFile, e);
+        }
+        Assert.assertTrue(manifest.hasEntry("fp1/unchanged.txt"));
+        Assert.assertTrue(manifest.hasEntry("fp1/changed.txt"));
+        Assert.assertTrue(manifest.hasEntry("fp1/added/added.txt"));
+        Assert.assertFalse(manifest.hasEntry("fp1/removed.txt"));
+        Assert.assertTrue(manifest.hasEntry(Constants.PROVISIONED_STATE_DIR + '/' + Constants.PROVISIONING_XML));
+        Assert.assertTrue(manifest.getEntry("fp1/changed.txt").matches(readAttributes(installHome.resolve("fp1").resolve("changed.txt"))));
+    }
+
+    private static BasicFileAttributes readAttributes(Path p) throws ProvisioningException {
+        try {
+            return Files.readAttributes(p, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new ProvisioningException("Failed to read the attributes of " + p, e);
+        }
+    }
+
+    @Override
+    protected ProvisionedState provisionedState() throws ProvisioningException {
+        return ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.builder(FP1_101_GAV)
+                        .addPackage("p1")
+                        .build())
+                .build();
+    }
+
+    @Override
+    protected DirState provisionedHomeDir() {
+        return newDirBuilder()
+                .addFile("fp1/unchanged.txt", "unchanged")
+                .addFile("fp1/changed.txt", "fp1 1.0.1.Final")
+                .addFile("fp1/added/added.txt", "added")
+                .build();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.featurepack.install.test;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.UUID;
+
+import org.jboss.galleon.ProvisioningDescriptionException;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.ProvisioningManager;
+import org.jboss.galleon.config.FeaturePackConfig;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.runtime.ProvisioningRuntime;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.test.PmInstallFeaturePackTestBase;
+import org.jboss.galleon.test.util.fs.state.DirState;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.junit.Assert;
+
+/**
+ * The installation is replaced by the staged one and the temporary
+ * directories created next to it are removed. A runtime that doesn't
+ * install anything doesn't create them at all. The directories left by
+ * an interrupted provisioning are removed by the next one.
+ */
+public class ReplaceInstallationLeavesNoStagedDirsTestCase extends PmInstallFeaturePackTestBase {
+
+    private static final FPID FP1_100_GAV = LegacyGalleon1Universe.newFPID("org.jboss.pm.test:fp1", "1", "1.0.0.Final");
+    private static final FPID FP1_101_GAV = LegacyGalleon1Universe.newFPID("org.jboss.pm.test:fp1", "1", "1.0.1.Final");
+
+    @Override
+    protected void doBefore() throws Exception {
+        super.doBefore();
+        setReplaceInstalled(true);
+    }
+
+    @Override
+    protected void createFeaturePacks(FeaturePackCreator creator) throws ProvisioningException {
+        creator
+            .newFeaturePack(FP1_100_GAV)
+                .newPackage("p1", true)
+                    .writeContent("fp1/p1.txt", "fp1 1.0.0.Final p1")
+                    .writeContent("fp1/old.txt", "fp1 1.0.0.Final old")
+                    .getFeaturePack()
+                .getCreator()
+            .newFeaturePack(FP1_101_GAV)
+                .newPackage("p1", true)
+                    .writeContent("fp1/p1.txt", "fp1 1.0.1.Final p1")
+                    .getFeaturePack()
+                .getCreator()
+            .install();
+    }
+
+    @Override
+    protected ProvisioningConfig initialState() throws ProvisioningException {
+        return ProvisioningConfig.builder()
+                .addFeaturePackDep(FeaturePackConfig.forLocation(FP1_100_GAV.getLocation()))
+                .build();
+    }
+
+    @Override
+    protected FeaturePackConfig featurePackConfig() throws ProvisioningDescriptionException {
+        return FeaturePackConfig.forLocation(FP1_101_GAV.getLocation());
+    }
+
+    @Override
+    protected void testPm(ProvisioningManager pm) throws ProvisioningException {
+        final ProvisioningRuntime runtime = pm.getRuntime(pm.getProvisioningConfig(), null, Collections.emptyMap());
+        try {
+            assertNoLeftovers();
+        } finally {
+            runtime.close();
+        }
+        createStaleSibling("staged");
+        createStaleSibling("old");
+        super.testPm(pm);
+        assertNoLeftovers();
+    }
+
+    private void createStaleSibling(String type) throws ProvisioningException {
+        final Path dir = installHome.toAbsolutePath().getParent().resolve("." + installHome.getFileName() + ".galleon-" + type + '-' + UUID.randomUUID());
+        try {
+            Files.createDirectories(dir.resolve("fp1"));
+            Files.write(dir.resolve("fp1").resolve("p1.txt"), "stale".getBytes());
+        } catch (IOException e) {
+            throw new ProvisioningException("Failed to create " + dir, e);
+        }
+    }
+
+    private void assertNoLeftovers() throws ProvisioningException {
+        final String prefix = "." + installHome.getFileName() + ".galleon-";
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(installHome.toAbsolutePath().getParent())) {
+            for (Path p : stream) {
+                if (p.getFileName().toString().startsWith(prefix)) {
+                    Assert.fail("Unexpected leftover " + p);
+                }
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException("Failed to read the parent of " + installHome, e);
+        }
+    }
+
+    @Override
+    protected ProvisionedState provisionedState() throws ProvisioningException {
+        return ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.builder(FP1_101_GAV)
+                        .addPackage("p1")
+                        .build())
+                .build();
+    }
+
+    @Override
+    protected DirState provisionedHomeDir() {
+        return newDirBuilder()
+                .addFile("fp1/p1.txt", "fp1 1.0.1.Final p1")
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.featurepack.layout.test;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.ProvisioningDescriptionException;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.ProvisioningManager;
+import org.jboss.galleon.config.FeaturePackConfig;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.test.PmInstallFeaturePackTestBase;
+import org.jboss.galleon.test.util.TestUtils;
+import org.jboss.galleon.test.util.fs.state.DirState;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.jboss.galleon.util.IoUtils;
+import org.junit.Assert;
+
+/**
+ * Package jars are hard-linked from the layout cache into the installation,
+ * while the rest of the content is copied, so that editing an installed
+ * file in place leaves the cache intact.
+ */
+public class HardLinkedContentTestCase extends PmInstallFeaturePackTestBase {
+
+    private static final FPID FP1_GAV = LegacyGalleon1Universe.newFPID("org.jboss.pm.test:fp1", "1", "1.0.0.Final");
+
+    private Path cacheDir;
+
+    @Override
+    protected void doBefore() throws Exception {
+        cacheDir = TestUtils.mkRandomTmpDir();
+        System.setProperty(Constants.PROP_LAYOUT_CACHE_DIR, cacheDir.toString());
+        System.setProperty(Constants.PROP_INSTALL_HARD_LINKS, "true");
+        super.doBefore();
+    }
+
+    @Override
+    protected void doAfter() throws Exception {
+        System.clearProperty(Constants.PROP_LAYOUT_CACHE_DIR);
+        System.clearProperty(Constants.PROP_INSTALL_HARD_LINKS);
+        IoUtils.recursiveDelete(cacheDir);
+        super.doAfter();
+    }
+
+    @Override
+    protected void createFeaturePacks(FeaturePackCreator creator) throws ProvisioningException {
+        creator
+            .newFeaturePack(FP1_GAV)
+                .newPackage("p1", true)
+                    .writeContent("fp1/p1.jar", "p1")
+                    .writeContent("fp1/p1.xml", "p1")
+                    .getFeaturePack()
+                .getCreator()
+            .install();
+    }
+
+    @Override
+    protected FeaturePackConfig featurePackConfig() throws ProvisioningDescriptionException {
+        return FeaturePackConfig.forLocation(FP1_GAV.getLocation());
+    }
+
+    @Override
+    protected void testPm(ProvisioningManager pm) throws ProvisioningException {
+        super.testPm(pm);
+        final Path installed = installHome.resolve("fp1");
+        final Path cached = getCachedLayout().resolve(Constants.PACKAGES).resolve("p1").resolve(Constants.CONTENT).resolve("fp1");
+        try {
+            Assert.assertFalse(Files.isSameFile(cached.resolve("p1.xml"), installed.resolve("p1.xml")));
+            // edited in place
+            IoUtils.writeFile(installed.resolve("p1.xml"), "pX");
+            Assert.assertEquals("p1", IoUtils.readFile(cached.resolve("p1.xml")));
+            IoUtils.writeFile(installed.resolve("p1.xml"), "p1");
+            if(!Files.getFileStore(installHome).equals(Files.getFileStore(cacheDir))) {
+                // can't be linked, the file is copied
+                return;
+            }
+            Assert.assertTrue(Files.isSameFile(cached.resolve("p1.jar"), installed.resolve("p1.jar")));
+        } catch (IOException e) {
+            throw new ProvisioningException("Failed to compare " + cached + " and " + installed, e);
+        }
+    }
+
+    private Path getCachedLayout() throws ProvisioningException {
+        try (DirectoryStream<Path> fpDirs = Files.newDirectoryStream(cacheDir)) {
+            for (Path fpDir : fpDirs) {
+                if (!Files.isDirectory(fpDir) || fpDir.getFileName().toString().startsWith(".")) {
+                    continue;
+                }
+                try (DirectoryStream<Path> fpEntries = Files.newDirectoryStream(fpDir)) {
+                    for (Path entry : fpEntries) {
+                        if (Files.isDirectory(entry)) {
+                            return entry.resolve("layout");
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException("Failed to read " + cacheDir, e);
+        }
+        throw new ProvisioningException("The layout has not been cached in " + cacheDir);
+    }
+
+    @Override
+    protected ProvisionedState provisionedState() throws ProvisioningException {
+        return ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.builder(FP1_GAV)
+                        .addPackage("p1")
+                        .build())
+                .build();
+    }
+
+    @Override
+    protected DirState provisionedHomeDir() {
+        return newDirBuilder()
+                .addFile("fp1/p1.jar", "p1")
+                .addFile("fp1/p1.xml", "p1")
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.featurepack.pkg.test;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.config.FeaturePackConfig;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.test.PmInstallFeaturePackTestBase;
+import org.jboss.galleon.test.util.fs.state.DirState;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+
+/**
+ * Packages installed later overwrite the content of the packages installed before them,
+ * also when the content is copied by multiple threads.
+ */
+public class ParallelPackageContentOverlayTestCase extends PmInstallFeaturePackTestBase {
+
+    private static final FPID FP1_GAV = LegacyGalleon1Universe.newFPID("org.pm.test:fp1", "1", "1.0.0.Final");
+    private static final FPID FP2_GAV = LegacyGalleon1Universe.newFPID("org.pm.test:fp2", "1", "1.0.0.Final");
+
+    @Override
+    protected void doBefore() throws Exception {
+        System.setProperty(Constants.PROP_INSTALL_THREADS, "4");
+        super.doBefore();
+    }
+
+    @Override
+    protected void doAfter() throws Exception {
+        System.clearProperty(Constants.PROP_INSTALL_THREADS);
+        super.doAfter();
+    }
+
+    @Override
+    protected void createFeaturePacks(FeaturePackCreator creator) throws ProvisioningException {
+        creator
+        .newFeaturePack(FP1_GAV)
+            .addDependency(FP2_GAV.getLocation())
+            .newPackage("a", true)
+                .writeContent("common/shared.txt", "fp1 a")
+                .writeContent("common/a.txt", "a")
+                .addDependency("b")
+                .getFeaturePack()
+            .newPackage("b")
+                .writeContent("common/shared.txt", "fp1 b")
+                .writeContent("common/nested/b.txt", "b")
+                .writeContent("b.txt", "fp1 b")
+                .getFeaturePack()
+            .getCreator()
+        .newFeaturePack(FP2_GAV)
+            .newPackage("c", true)
+                .writeContent("common/shared.txt", "fp2 c")
+                .writeContent("b.txt", "fp2 c")
+                .writeContent("c.txt", "c")
+                .getFeaturePack()
+            .getCreator()
+        .install();
+    }
+
+    @Override
+    protected FeaturePackConfig featurePackConfig() {
+        return FeaturePackConfig.forLocation(FP1_GAV.getLocation());
+    }
+
+    @Override
+    protected ProvisionedState provisionedState() throws ProvisioningException {
+        return ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.builder(FP2_GAV)
+                        .addPackage("c")
+                        .build())
+                .addFeaturePack(ProvisionedFeaturePack.builder(FP1_GAV)
+                        .addPackage("b")
+                        .addPackage("a")
+                        .build())
+                .build();
+    }
+
+    @Override
+    protected DirState provisionedHomeDir() {
+        return newDirBuilder()
+                .addFile("common/shared.txt", "fp1 a")
+                .addFile("common/a.txt", "a")
+                .addFile("common/nested/b.txt", "b")
+                .addFile("b.txt", "fp1 b")
+                .addFile("c.txt", "c")
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.layout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.spec.FeatureAnnotation;
+import org.jboss.galleon.spec.FeatureDependencySpec;
+import org.jboss.galleon.spec.FeatureId;
+import org.jboss.galleon.spec.FeatureParameterSpec;
+import org.jboss.galleon.spec.FeatureReferenceSpec;
+import org.jboss.galleon.spec.FeatureSpec;
+import org.jboss.galleon.spec.PackageSpec;
+import org.jboss.galleon.util.IoUtils;
+import org.jboss.galleon.xml.FeatureSpecXmlParser;
+import org.jboss.galleon.xml.FeatureSpecXmlWriter;
+import org.jboss.galleon.xml.PackageXmlParser;
+import org.jboss.galleon.xml.PackageXmlWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FeaturePackIndexTest {
+
+    private Path fpDir;
+
+    @Before
+    public void init() throws Exception {
+        fpDir = IoUtils.createRandomTmpDir();
+
+        final Path specXml = fpDir.resolve(Constants.FEATURES).resolve("specA").resolve(Constants.SPEC_XML);
+        Files.createDirectories(specXml.getParent());
+        FeatureSpecXmlWriter.getInstance().write(FeatureSpec.builder("specA")
+                .addAnnotation(new FeatureAnnotation("annotation").setElement("e1", "v1").setElement("e2"))
+                .addFeatureDep(FeatureDependencySpec.create(FeatureId.create("specC", "c", "c1"), "origin", true))
+                .addFeatureRef(FeatureReferenceSpec.builder("specB").setName("b-ref").setNillable(true).mapParam("ref-b", "b").build())
+                .addFeatureRef(FeatureReferenceSpec.builder("specD").setOrigin("origin").setInclude(true).build())
+                .addParam(FeatureParameterSpec.createId("z"))
+                .addParam(FeatureParameterSpec.createId("a"))
+                .addParam(FeatureParameterSpec.create("ref-b", true))
+                .addParam(FeatureParameterSpec.builder("p").setDefaultValue("def").setType("List<String>").build())
+                .providesCapability("cap.$a")
+                .providesCapability("opt.$z", true)
+                .requiresCapability("req.$a.$z")
+                .addPackageDep("p1")
+                .addPackageDep("p2", true)
+                .addPackageDep("origin", "p3")
+                .addPackageDep("origin", "p4", true)
+                .build(), specXml);
+
+        final Path pkgXml = fpDir.resolve(Constants.PACKAGES).resolve("p1").resolve(Constants.PACKAGE_XML);
+        Files.createDirectories(pkgXml.getParent());
+        PackageXmlWriter.getInstance().write(PackageSpec.builder("p1")
+                .addPackageDep("p2")
+                .addPackageDep("p3", true)
+                .addPackageDep("origin", "p5")
+                .build(), pkgXml);
+
+        FeaturePackIndex.write(fpDir);
+    }
+
+    @After
+    public void cleanup() {
+        IoUtils.recursiveDelete(fpDir);
+    }
+
+    @Test
+    public void testIndexedSpecsMatchXml() throws Exception {
+        final FeaturePackIndex index = FeaturePackIndex.read(fpDir);
+        assertNotNull(index);
+
+        final Path specXml = fpDir.resolve(Constants.FEATURES).resolve("specA").resolve(Constants.SPEC_XML);
+        final FeatureSpec parsedSpec;
+        try(BufferedReader reader = Files.newBufferedReader(specXml)) {
+            parsedSpec = FeatureSpecXmlParser.getInstance().parse(reader);
+        }
+        final FeatureSpec indexedSpec = index.getFeatureSpec("specA", specXml);
+        assertEquals(parsedSpec, indexedSpec);
+        assertEquals(new ArrayList<>(parsedSpec.getParams().keySet()), new ArrayList<>(indexedSpec.getParams().keySet()));
+        assertEquals(parsedSpec.getIdParams(), indexedSpec.getIdParams());
+
+        final Path pkgXml = fpDir.resolve(Constants.PACKAGES).resolve("p1").resolve(Constants.PACKAGE_XML);
+        try(BufferedReader reader = Files.newBufferedReader(pkgXml)) {
+            assertEquals(PackageXmlParser.getInstance().parse(reader), index.getPackageSpec("p1", pkgXml));
+        }
+
+        assertNull(index.getFeatureSpec("specB", fpDir.resolve(Constants.FEATURES).resolve("specB").resolve(Constants.SPEC_XML)));
+        assertNull(index.getPackageSpec("p2", fpDir.resolve(Constants.PACKAGES).resolve("p2").resolve(Constants.PACKAGE_XML)));
+    }
+
+    @Test
+    public void testModifiedXmlIsNotIndexed() throws Exception {
+        final Path pkgXml = fpDir.resolve(Constants.PACKAGES).resolve("p1").resolve(Constants.PACKAGE_XML);
+        PackageXmlWriter.getInstance().write(PackageSpec.forName("p1"), pkgXml);
+        assertNull(FeaturePackIndex.read(fpDir).getPackageSpec("p1", pkgXml));
+    }
+
+    @Test
+    public void testModifiedXmlOfSameSizeIsNotIndexed() throws Exception {
+        final Path pkgXml = fpDir.resolve(Constants.PACKAGES).resolve("p1").resolve(Constants.PACKAGE_XML);
+        final String xml = IoUtils.readFile(pkgXml);
+        final String modified = xml.replace("\"p2\"", "\"p9\"");
+        assertNotEquals(xml, modified);
+        Files.write(pkgXml, modified.getBytes(StandardCharsets.UTF_8));
+        assertNull(FeaturePackIndex.read(fpDir).getPackageSpec("p1", pkgXml));
+    }
+
+    @Test
+    public void testUnsupportedIndex() throws Exception {
+        final Path indexFile = fpDir.resolve(Constants.FEATURE_PACK_INDEX);
+        final byte[] bytes = Files.readAllBytes(indexFile);
+        bytes[7] = 127;
+        Files.write(indexFile, bytes);
+        assertNull(FeaturePackIndex.read(fpDir));
+
+        Files.write(indexFile, "garbage".getBytes(StandardCharsets.UTF_8));
+        assertNull(FeaturePackIndex.read(fpDir));
+
+        Files.delete(indexFile);
+        assertNull(FeaturePackIndex.read(fpDir));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.spec.FeatureParameterSpec;
+import org.jboss.galleon.spec.FeatureSpec;
+import org.jboss.galleon.type.builtin.BuiltInParameterTypeProvider;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.jboss.galleon.util.CollectionUtils;
+import org.junit.Test;
+
+public class ResolvedFeatureParamsTest {
+
+    private static ResolvedFeatureSpec newSpec() throws Exception {
+        return new ResolvedFeatureSpec(
+                new ResolvedSpecId(LegacyGalleon1Universe.newFPID("org.jboss.pm.test:fp1", "1", "1.0.0.Final").getProducer(), "specA"),
+                BuiltInParameterTypeProvider.getInstance(),
+                FeatureSpec.builder("specA")
+                    .addParam(FeatureParameterSpec.createId("a"))
+                    .addParam(FeatureParameterSpec.create("b"))
+                    .addParam(FeatureParameterSpec.create("c"))
+                    .build());
+    }
+
+    @Test
+    public void testMapContract() throws Exception {
+        final ResolvedFeatureParams params = new ResolvedFeatureParams(newSpec());
+        final Map<String, Object> expected = new HashMap<>();
+        assertEquals(expected, params);
+
+        assertNull(params.put("c", "c1"));
+        expected.put("c", "c1");
+        assertNull(params.put("b", null));
+        expected.put("b", null);
+        assertEquals(expected, params);
+        assertEquals(expected.hashCode(), params.hashCode());
+        assertEquals(2, params.size());
+        assertTrue(params.containsKey("b"));
+        assertFalse(params.containsKey("a"));
+        assertFalse(params.containsKey("unknown"));
+        assertNull(params.get("unknown"));
+
+        assertEquals("c1", params.put("c", "c2"));
+        assertEquals(2, params.size());
+        assertEquals("c2", params.remove("c"));
+        assertNull(params.remove("c"));
+        assertEquals(1, params.size());
+
+        params.put("a", "a1");
+        params.put("c", "c1");
+        // the params are iterated in the order they are defined in the spec
+        assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<>(params.keySet()));
+
+        final Iterator<Map.Entry<String, Object>> i = params.entrySet().iterator();
+        i.next();
+        i.remove();
+        i.next().setValue("b1");
+        assertEquals(2, params.size());
+        assertFalse(params.containsKey("a"));
+        assertEquals("b1", params.get("b"));
+
+        params.clear();
+        assertTrue(params.isEmpty());
+        assertFalse(params.entrySet().iterator().hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownParam() throws Exception {
+        new ResolvedFeatureParams(newSpec()).put("unknown", "value");
+    }
+
+    @Test
+    public void testFeatureIdParamsOrder() throws Exception {
+        final ResolvedSpecId specId = newSpec().getId();
+        for(int count = 1; count <= 40; ++count) {
+            final Map<String, Object> params = new LinkedHashMap<>();
+            Map<String, Object> expected = Collections.emptyMap();
+            for(int i = 0; i < count; ++i) {
+                final String name = "param" + i;
+                if(i % 3 == 1) {
+                    params.put(name, Constants.GLN_UNDEFINED);
+                } else {
+                    params.put(name, "value" + i);
+                    expected = CollectionUtils.put(expected, name, "value" + i);
+                }
+            }
+            final ResolvedFeatureId id = new ResolvedFeatureId(specId, params);
+            assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(id.getParams().keySet()));
+        }
+
+        final Map<String, Object> undefined = Collections.singletonMap("param0", Constants.GLN_UNDEFINED);
+        assertEquals(undefined, new ResolvedFeatureId(specId, undefined).getParams());
+    }
+}
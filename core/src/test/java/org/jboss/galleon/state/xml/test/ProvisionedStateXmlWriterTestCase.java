@@ -16,6 +16,8 @@
  */
 package org.jboss.galleon.state.xml.test;
 
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Path;
@@ -23,10 +25,14 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
 import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.jboss.galleon.ProvisioningException;
 import org.jboss.galleon.plugin.ProvisionedConfigHandler;
 import org.jboss.galleon.runtime.ResolvedFeatureId;
+import org.jboss.galleon.runtime.ResolvedFeatureSpec;
 import org.jboss.galleon.runtime.ResolvedSpecId;
 import org.jboss.galleon.state.ProvisionedConfig;
 import org.jboss.galleon.state.ProvisionedFeature;
@@ -197,6 +203,77 @@ public class ProvisionedStateXmlWriterTestCase {
         Assert.assertEquals("config", parsedFeature.getConfigParam("param"));
     }
 
+    @Test
+    public void testFeaturesAreWrittenAsTheyAreHandled() throws Exception {
+        final FPID fpid = LegacyGalleon1Universe.newFPID("org.jboss.group", "fp1", "1.0");
+        final int featuresTotal = 10000;
+        final ProvisionedConfigBuilder configBuilder = ProvisionedConfigBuilder.builder()
+                .setModel("model")
+                .setName("name");
+        for(int i = 0; i < featuresTotal; ++i) {
+            configBuilder.addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(fpid, "spec1", "id", "feature" + i))
+                    .setConfigParam("param", "value" + i)
+                    .build());
+        }
+        final ProvisionedConfig config = configBuilder.build();
+
+        final StringWriter out = new StringWriter();
+        final int[] writtenBeforeLastFeature = new int[1];
+        final ProvisionedConfig countingConfig = new ProvisionedConfig() {
+            @Override
+            public String getName() {
+                return config.getName();
+            }
+            @Override
+            public String getModel() {
+                return config.getModel();
+            }
+            @Override
+            public boolean hasProperties() {
+                return config.hasProperties();
+            }
+            @Override
+            public String getProperty(String name) {
+                return config.getProperty(name);
+            }
+            @Override
+            public Map<String, String> getProperties() {
+                return config.getProperties();
+            }
+            @Override
+            public boolean hasFeatures() {
+                return config.hasFeatures();
+            }
+            @Override
+            public void handle(ProvisionedConfigHandler handler) throws ProvisioningException {
+                config.handle(new ProvisionedConfigHandler() {
+                    int handled;
+                    @Override
+                    public void nextFeaturePack(FPID fpid) throws ProvisioningException {
+                        handler.nextFeaturePack(fpid);
+                    }
+                    @Override
+                    public void nextSpec(ResolvedFeatureSpec spec) throws ProvisioningException {
+                        handler.nextSpec(spec);
+                    }
+                    @Override
+                    public void nextFeature(ProvisionedFeature feature) throws ProvisioningException {
+                        if(++handled == featuresTotal) {
+                            writtenBeforeLastFeature[0] = out.getBuffer().length();
+                        }
+                        handler.nextFeature(feature);
+                    }
+                });
+            }
+        };
+        ProvisionedStateXmlWriter.getInstance().write(ProvisionedState.builder().addConfig(countingConfig).build(), out);
+
+        // all but the last features have already been written, except for what may be buffered by the XML writer
+        Assert.assertTrue(writtenBeforeLastFeature[0] > out.getBuffer().length() / 2);
+        Assert.assertEquals(ProvisionedState.builder().addConfig(config).build(),
+                ProvisionedStateXmlParser.getInstance().parse(new StringReader(out.toString())));
+    }
+
     @Test
     public void testEmpty() throws Exception {
         ProvisionedState originalState = ProvisionedState.builder().build();
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.universe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.galleon.util.IoUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LatestBuildCacheTest {
+
+    private static final FeaturePackLocation FPL = FeaturePackLocation.fromString("producer@maven(org.jboss.universe:test-universe):current");
+
+    private Path cacheDir;
+
+    @Before
+    public void init() throws Exception {
+        cacheDir = IoUtils.createRandomTmpDir();
+    }
+
+    @After
+    public void cleanup() {
+        IoUtils.recursiveDelete(cacheDir);
+    }
+
+    @Test
+    public void testCachedBuild() throws Exception {
+        final LatestBuildCache cache = new LatestBuildCache(cacheDir, TimeUnit.HOURS.toMillis(1), 0, false);
+        assertNull(cache.getBuild(FPL));
+        cache.putBuild(FPL, "1.0.0.Final");
+        assertEquals("1.0.0.Final", cache.getBuild(FPL));
+        assertNull(cache.getBuild(FeaturePackLocation.fromString("producer@maven(org.jboss.universe:test-universe):current/beta")));
+
+        cache.putBuild(FPL, "1.0.1.Final");
+        assertEquals("1.0.1.Final", new LatestBuildCache(cacheDir, TimeUnit.HOURS.toMillis(1), 0, false).getBuild(FPL));
+
+        cache.clear();
+        assertNull(cache.getBuild(FPL));
+    }
+
+    @Test
+    public void testExpiredBuild() throws Exception {
+        LatestBuildCache cache = new LatestBuildCache(cacheDir, 0, TimeUnit.HOURS.toMillis(1), false);
+        cache.putBuild(FPL, "1.0.0.Final");
+        assertNull(cache.getBuild(FPL));
+        assertEquals("1.0.0.Final", cache.getStaleBuild(FPL));
+
+        cache = new LatestBuildCache(cacheDir, 0, 0, false);
+        assertNull(cache.getStaleBuild(FPL));
+    }
+
+    @Test
+    public void testRefresh() throws Exception {
+        final LatestBuildCache cache = new LatestBuildCache(cacheDir, TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(1), true);
+        cache.putBuild(FPL, "1.0.0.Final");
+        assertNull(cache.getBuild(FPL));
+        assertNull(cache.getStaleBuild(FPL));
+        assertEquals("1.0.0.Final", new LatestBuildCache(cacheDir, TimeUnit.HOURS.toMillis(1), 0, false).getBuild(FPL));
+    }
+}
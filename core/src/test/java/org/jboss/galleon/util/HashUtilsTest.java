@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.util.HashUtils.Algorithm;
+import org.junit.Test;
+
+public class HashUtilsTest {
+
+    @Test
+    public void testKnownDigests() throws Exception {
+        assertEquals("a9993e364706816aba3e25717850c26c9cd0d89d", HashUtils.hash("abc", Algorithm.SHA1));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", HashUtils.hash("abc", Algorithm.SHA256));
+        assertEquals(16, HashUtils.hash("abc", Algorithm.FAST).length());
+        assertNotEquals(HashUtils.hash("abc", Algorithm.FAST), HashUtils.hash("abd", Algorithm.FAST));
+    }
+
+    @Test
+    public void testDefaultAlgorithmFromProperty() throws Exception {
+        assertEquals(Algorithm.SHA1, HashUtils.toDefaultAlgorithm(null));
+        assertEquals(Algorithm.SHA256, HashUtils.toDefaultAlgorithm("sha-256"));
+        assertEquals(Algorithm.FAST, HashUtils.toDefaultAlgorithm("fast"));
+        try {
+            HashUtils.toDefaultAlgorithm("MD42");
+            fail("MD42 is not supported");
+        } catch(IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(Constants.PROP_HASH_ALGORITHM));
+        }
+    }
+
+    @Test
+    public void testFileHashMatchesContentHash() throws Exception {
+        final Path dir = IoUtils.createRandomTmpDir();
+        try {
+            final StringBuilder buf = new StringBuilder();
+            for(int i = 0; i < 100000; ++i) {
+                buf.append(i).append('\n');
+            }
+            final String content = buf.toString();
+            final Path file = dir.resolve("file.txt");
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+            for(Algorithm algorithm : Algorithm.values()) {
+                assertEquals(algorithm.getName(), HashUtils.hash(content, algorithm), HashUtils.hashFile(file, algorithm));
+            }
+        } finally {
+            IoUtils.recursiveDelete(dir);
+        }
+    }
+
+    @Test
+    public void testConcurrentHashing() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> hashes = new ArrayList<>();
+            for(int i = 0; i < 200; ++i) {
+                final String content = "content" + (i % 10);
+                hashes.add(executor.submit(() -> HashUtils.hash(content)));
+            }
+            for(int i = 0; i < hashes.size(); ++i) {
+                assertEquals(HashUtils.hash("content" + (i % 10)), hashes.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
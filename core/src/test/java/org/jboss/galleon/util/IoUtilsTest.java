@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+public class IoUtilsTest {
+
+    @Test
+    public void testParallelListContents() throws Exception {
+        final Path root = IoUtils.createRandomTmpDir();
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for(int i = 0; i < 5; ++i) {
+                final Path dir = root.resolve("dir" + i);
+                Files.createDirectories(dir.resolve("sub"));
+                for(int j = 0; j < 20; ++j) {
+                    IoUtils.writeFile(dir.resolve("sub").resolve("file" + j + ".txt"), "content " + i + ' ' + j);
+                }
+            }
+            Files.createDirectories(root.resolve("empty"));
+            Files.createDirectories(root.resolve("tmp"));
+            IoUtils.writeFile(root.resolve("tmp").resolve("skipped.txt"), "skipped");
+
+            final PathFilter filter = PathFilter.Builder.instance().addDirectories("*" + File.separatorChar + "tmp", "tmp").build();
+            final Map<Path, String> serial = IoUtils.listContents(root, filter);
+            final Map<Path, String> parallel = IoUtils.listContents(root, filter, pool);
+            assertEquals(serial, parallel);
+            assertEquals(5 * 20 + 1, parallel.size());
+            assertTrue(parallel.containsKey(Paths.get("empty")));
+            assertFalse(parallel.containsKey(Paths.get("tmp", "skipped.txt")));
+        } finally {
+            pool.shutdownNow();
+            IoUtils.recursiveDelete(root);
+        }
+    }
+
+    @Test
+    public void testUnreadableDirectoryIsSkipped() throws Exception {
+        final Path root = IoUtils.createRandomTmpDir();
+        final Path locked = root.resolve("locked");
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Files.createDirectories(locked);
+            IoUtils.writeFile(locked.resolve("file.txt"), "content");
+            IoUtils.writeFile(root.resolve("file.txt"), "content");
+            try {
+                Files.setPosixFilePermissions(locked, Collections.emptySet());
+            } catch (UnsupportedOperationException e) {
+                Assume.assumeNoException(e);
+            }
+            Assume.assumeFalse("the directory is readable regardless of its permissions", Files.isReadable(locked));
+
+            final PathFilter filter = PathFilter.Builder.instance().build();
+            final Map<Path, String> serial = IoUtils.listContents(root, filter);
+            final Map<Path, String> parallel = IoUtils.listContents(root, filter, pool);
+            assertEquals(serial, parallel);
+            assertEquals(Collections.singleton(Paths.get("file.txt")), parallel.keySet());
+        } finally {
+            pool.shutdownNow();
+            if (Files.exists(locked)) {
+                Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("rwx------"));
+            }
+            IoUtils.recursiveDelete(root);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.xml;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+
+import org.jboss.galleon.runtime.ResolvedFeatureId;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.jboss.galleon.xml.util.ElementNode;
+import org.jboss.galleon.xml.util.FormattingXmlStreamWriter;
+import org.junit.Test;
+
+public class BaseStreamingXmlWriterTest {
+
+    @Test
+    public void testElementTreeMatchesStreamedDocument() throws Exception {
+        final FPID fpid = LegacyGalleon1Universe.newFPID("org.jboss.group", "fp1", "1.0");
+        final ProvisionedState state = ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.builder(fpid)
+                        .addPackage("p1")
+                        .build())
+                .addConfig(ProvisionedConfigBuilder.builder()
+                        .setModel("model")
+                        .setName("name")
+                        .setProperty("prop", "value")
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(fpid, "spec1", "id", "a"))
+                                .setConfigParam("param", "value")
+                                .build())
+                        .build())
+                .build();
+
+        final StringWriter streamed = new StringWriter();
+        ProvisionedStateXmlWriter.getInstance().write(state, streamed);
+
+        final ElementNode root = ProvisionedStateXmlWriter.getInstance().toElement(state);
+        final StringWriter marshalled = new StringWriter();
+        try(FormattingXmlStreamWriter writer = new FormattingXmlStreamWriter(XmlParsers.createXMLStreamWriter(marshalled))) {
+            writer.writeStartDocument();
+            root.marshall(writer);
+            writer.writeEndDocument();
+        }
+        assertEquals(streamed.toString(), marshalled.toString());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.xml.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.galleon.xml.XmlParsers;
+import org.junit.Test;
+
+public class ElementWriterTest {
+
+    private static final String NS = "urn:test:1.0";
+
+    @Test
+    public void testSameOutputAsElementTree() throws Exception {
+        final String expected = marshall(newElementTree());
+
+        final StringWriter out = new StringWriter();
+        try(FormattingXmlStreamWriter writer = new FormattingXmlStreamWriter(XmlParsers.createXMLStreamWriter(out))) {
+            writer.writeStartDocument();
+            writeElements(new XmlStreamElementWriter(writer));
+            writer.writeEndDocument();
+        }
+        assertEquals(expected, out.toString());
+    }
+
+    @Test
+    public void testElementNodeWriterBuildsSameTree() throws Exception {
+        final ElementNodeWriter writer = new ElementNodeWriter();
+        writeElements(writer);
+        assertEquals(marshall(newElementTree()), marshall(writer.getRoot()));
+    }
+
+    private static ElementNode newElementTree() {
+        final ElementNode root = new ElementNode(null, "root", NS);
+        root.addAttribute("a", new AttributeValue("1"));
+        final ElementNode empty = new ElementNode(root, "empty");
+        empty.addAttribute("b", new AttributeValue("x&<y"));
+        root.addChild(empty);
+        final ElementNode parent = new ElementNode(root, "parent");
+        root.addChild(parent);
+        final ElementNode child = new ElementNode(parent, "child");
+        child.addAttribute("c", new AttributeValue("2"));
+        parent.addChild(child);
+        parent.addChild(new ElementNode(parent, "child"));
+        root.addChild(new ElementNode(root, "last"));
+        return root;
+    }
+
+    private static void writeElements(ElementWriter elements) throws XMLStreamException {
+        elements.startElement("root", NS);
+        elements.addAttribute("a", "1");
+        elements.startElement("empty", NS);
+        elements.addAttribute("b", "x&<y");
+        elements.endElement();
+        elements.startElement("parent", NS);
+        elements.startElement("child", NS);
+        elements.addAttribute("c", "2");
+        elements.endElement();
+        elements.startElement("child", NS);
+        elements.endElement();
+        elements.endElement();
+        elements.startElement("last", NS);
+        elements.endElement();
+        elements.endElement();
+    }
+
+    private static String marshall(ElementNode root) throws XMLStreamException {
+        final StringWriter out = new StringWriter();
+        try(FormattingXmlStreamWriter writer = new FormattingXmlStreamWriter(XmlParsers.createXMLStreamWriter(out))) {
+            writer.writeStartDocument();
+            root.marshall(writer);
+            writer.writeEndDocument();
+        }
+        return out.toString();
+    }
+}
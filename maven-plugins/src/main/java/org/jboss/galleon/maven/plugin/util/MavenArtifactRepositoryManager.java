@@ -18,6 +18,8 @@ package org.jboss.galleon.maven.plugin.util;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -29,6 +31,7 @@ import org.eclipse.aether.installation.InstallRequest;
 import org.eclipse.aether.installation.InstallationException;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.ArtifactResult;
 import org.eclipse.aether.resolution.VersionRangeRequest;
 import org.eclipse.aether.resolution.VersionRangeResolutionException;
@@ -76,9 +79,45 @@ public class MavenArtifactRepositoryManager implements MavenRepoManager {
         final ArtifactResult result;
         try {
             result = repoSystem.resolveArtifact(session, request);
-        } catch (org.eclipse.aether.resolution.ArtifactResolutionException e) {
+        } catch (ArtifactResolutionException e) {
             throw new MavenUniverseException(FpMavenErrors.artifactResolution(toLegacyCoords(coords)), e);
         }
+        setPath(coords, result);
+    }
+
+    /**
+     * Passes all the artifacts to the repository system in a single request,
+     * which lets it download the missing ones in parallel.
+     */
+    @Override
+    public void resolveArtifacts(Collection<MavenArtifact> artifacts) throws MavenUniverseException {
+        final List<ArtifactRequest> requests = new ArrayList<>(artifacts.size());
+        for(MavenArtifact coords : artifacts) {
+            requests.add(new ArtifactRequest()
+                    .setArtifact(new DefaultArtifact(coords.getGroupId(), coords.getArtifactId(),
+                            coords.getClassifier(), coords.getExtension(), coords.getVersion()))
+                    .setRepositories(this.repositories));
+        }
+        List<ArtifactResult> results;
+        try {
+            results = repoSystem.resolveArtifacts(session, requests);
+        } catch (ArtifactResolutionException e) {
+            results = e.getResults();
+            int i = 0;
+            for(MavenArtifact coords : artifacts) {
+                if(!results.get(i++).isResolved()) {
+                    throw new MavenUniverseException(FpMavenErrors.artifactResolution(toLegacyCoords(coords)), e);
+                }
+            }
+            throw new MavenUniverseException(e.getLocalizedMessage(), e);
+        }
+        int i = 0;
+        for(MavenArtifact coords : artifacts) {
+            setPath(coords, results.get(i++));
+        }
+    }
+
+    private static void setPath(MavenArtifact coords, ArtifactResult result) throws MavenUniverseException {
         if (!result.isResolved()) {
             throw new MavenUniverseException(FpMavenErrors.artifactResolution(toLegacyCoords(coords)));
         }
@@ -114,7 +153,7 @@ public class MavenArtifactRepositoryManager implements MavenRepoManager {
                 lowestQualifier = "";
             }
             for(Version version : rangeResult.getVersions()) {
-                final MavenArtifactVersion next = new MavenArtifactVersion(version.toString());
+                final MavenArtifactVersion next = MavenArtifactVersion.valueOf(version.toString());
                 if(!next.isQualifierHigher(lowestQualifier, true)) {
                     continue;
                 }
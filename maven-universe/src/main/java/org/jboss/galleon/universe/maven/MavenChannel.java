@@ -22,6 +22,7 @@ import java.util.Collection;
 
 import org.jboss.galleon.Errors;
 import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.repo.RepositoryArtifactResolver;
 import org.jboss.galleon.universe.Channel;
 import org.jboss.galleon.universe.FeaturePackLocation;
 import org.jboss.galleon.universe.Producer;
@@ -79,6 +80,24 @@ public class MavenChannel implements Channel {
         return artifact.getPath();
     }
 
+    @Override
+    public RepositoryArtifactResolver getArtifactResolver() {
+        return producer.getRepo();
+    }
+
+    @Override
+    public String getArtifactLocation(FeaturePackLocation fpl) {
+        if(fpl.getBuild() == null) {
+            return null;
+        }
+        final MavenArtifact artifact = new MavenArtifact();
+        artifact.setGroupId(producer.getFeaturePackGroupId());
+        artifact.setArtifactId(producer.getFeaturePackArtifactId());
+        artifact.setExtension("zip");
+        artifact.setVersion(fpl.getBuild());
+        return artifact.getCoordsAsString();
+    }
+
     public String getFeaturePackGroupId() {
         return producer.getFeaturePackGroupId();
     }
@@ -17,27 +17,12 @@
 
 package org.jboss.galleon.universe.maven;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.nio.file.DirectoryStream;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 
-import javax.xml.stream.XMLStreamException;
-
-import org.jboss.galleon.Errors;
 import org.jboss.galleon.universe.maven.repo.MavenRepoManager;
-import org.jboss.galleon.universe.maven.xml.MavenProducerSpecXmlParser;
-import org.jboss.galleon.universe.maven.xml.ParsedCallbackHandler;
 import org.jboss.galleon.util.CollectionUtils;
-import org.jboss.galleon.util.ZipUtils;
-
-import static org.jboss.galleon.universe.maven.MavenUniverseConstants.*;
 
 /**
  *
@@ -49,17 +34,7 @@ public class MavenUniverse extends MavenUniverseBase {
 
     private Map<String, MavenProducer> producers = Collections.emptyMap();
     private boolean fullyLoaded;
-
-    private final ParsedCallbackHandler<MavenUniverseBase, MavenProducer> parsedProducerHandler = new ParsedCallbackHandler<MavenUniverseBase, MavenProducer>() {
-        @Override
-        public MavenUniverseBase getParent() {
-            return MavenUniverse.this;
-        }
-        @Override
-        public void parsed(MavenProducer producer) throws XMLStreamException {
-            producers = CollectionUtils.put(producers, producer.getName(), producer);
-        }
-    };
+    private MavenUniverseProducerIndex producerIndex;
 
     public MavenUniverse(MavenRepoManager repoManager, MavenArtifact artifact) throws MavenUniverseException {
         super(repoManager, artifact);
@@ -78,6 +53,7 @@ public class MavenUniverse extends MavenUniverseBase {
     public void resetCache() {
         fullyLoaded = false;
         producers = Collections.emptyMap();
+        producerIndex = null;
     }
 
     @Override
@@ -87,19 +63,11 @@ public class MavenUniverse extends MavenUniverseBase {
         } if(fullyLoaded) {
             return false;
         }
-        try (FileSystem zipfs = FileSystems.newFileSystem(ZipUtils.toZipUri(artifact.getPath()), Collections.emptyMap())) {
-            final Path producerXml = getProducerXml(zipfs, producerName);
-            if(!Files.exists(producerXml)) {
-                return false;
-            }
-            try(BufferedReader reader = Files.newBufferedReader(producerXml)) {
-                MavenProducerSpecXmlParser.getInstance().parse(reader, parsedProducerHandler);
-            } catch(IOException | XMLStreamException e) {
-                throw new MavenUniverseException("Failed to read " + producerXml, e);
-            }
-        } catch (IOException e) {
-            throw new MavenUniverseException("Failed to read " + artifact.getPath(), e);
+        final MavenArtifact producerArtifact = getProducerIndex().getProducerArtifact(producerName);
+        if(producerArtifact == null) {
+            return false;
         }
+        addProducer(producerName, producerArtifact);
         return true;
     }
 
@@ -116,25 +84,30 @@ public class MavenUniverse extends MavenUniverseBase {
         if(fullyLoaded) {
             return producers.values();
         }
-        try (FileSystem zipfs = FileSystems.newFileSystem(ZipUtils.toZipUri(artifact.getPath()), Collections.emptyMap())) {
-            try(DirectoryStream<Path> stream = Files.newDirectoryStream(getProducerLocations(zipfs))) {
-                for(Path producerDir : stream) {
-                    final Path producerXml = producerDir.resolve(MAVEN_PRODUCER_XML);
-                    if(!Files.exists(producerXml)) {
-                        throw new MavenUniverseException(Errors.pathDoesNotExist(producerXml));
-                    }
-                    try(BufferedReader reader = Files.newBufferedReader(producerXml)) {
-                        MavenProducerSpecXmlParser.getInstance().parse(reader, parsedProducerHandler);
-                    } catch(IOException | XMLStreamException e) {
-                        throw new MavenUniverseException("Failed to read " + producerXml, e);
-                    }
-                }
+        final MavenUniverseProducerIndex index = getProducerIndex();
+        for(String producerName : index.getProducerNames()) {
+            if(!producers.containsKey(producerName)) {
+                addProducer(producerName, index.getProducerArtifact(producerName));
             }
-        } catch (IOException e) {
-            throw new MavenUniverseException("Failed to read " + artifact.getPath(), e);
         }
         fullyLoaded = true;
         producers = CollectionUtils.unmodifiable(producers);
         return producers.values();
     }
+
+    private MavenUniverseProducerIndex getProducerIndex() throws MavenUniverseException {
+        if(producerIndex == null) {
+            producerIndex = MavenUniverseProducerIndex.getIndex(artifact.getPath());
+        }
+        return producerIndex;
+    }
+
+    private void addProducer(String producerName, MavenArtifact producerArtifact) throws MavenUniverseException {
+        try {
+            repo.resolveLatestVersion(producerArtifact);
+            producers = CollectionUtils.put(producers, producerName, new MavenProducer(producerName, repo, producerArtifact));
+        } catch (MavenUniverseException e) {
+            throw new MavenUniverseException("Failed to instantiate producer " + producerName, e);
+        }
+    }
 }
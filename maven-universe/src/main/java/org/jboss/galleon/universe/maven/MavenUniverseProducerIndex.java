@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.universe.maven;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.galleon.Errors;
+import org.jboss.galleon.universe.maven.xml.MavenParsedProducerSpecCallbackHandler;
+import org.jboss.galleon.universe.maven.xml.MavenProducerSpecXmlParser;
+import org.jboss.galleon.util.ZipUtils;
+
+/**
+ * Producer specs found in a universe artifact, read with a single opening
+ * of the artifact and shared by all the universes created for the same artifact,
+ * whichever repository manager they were created with.
+ *
+ * <p>Indexes are keyed by the path of the artifact and invalidated when either
+ * its last modified time or its size changes. Given the granularity of the
+ * recorded modified time, an index of an artifact modified just before
+ * it was read is not shared.
+ */
+class MavenUniverseProducerIndex {
+
+    private static final long MODIFIED_TIME_GRANULARITY = 2000;
+
+    private static final Map<Path, MavenUniverseProducerIndex> indexes = new ConcurrentHashMap<>();
+
+    static MavenUniverseProducerIndex getIndex(Path universeArtifact) throws MavenUniverseException {
+        final BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(universeArtifact, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new MavenUniverseException("Failed to read " + universeArtifact, e);
+        }
+        final Path key = universeArtifact.toAbsolutePath().normalize();
+        MavenUniverseProducerIndex index = indexes.get(key);
+        if(index != null && index.lastModified.equals(attrs.lastModifiedTime()) && index.size == attrs.size()) {
+            return index;
+        }
+        final long read = System.currentTimeMillis();
+        index = new MavenUniverseProducerIndex(universeArtifact, attrs);
+        if(read - attrs.lastModifiedTime().toMillis() > MODIFIED_TIME_GRANULARITY) {
+            indexes.put(key, index);
+        } else {
+            indexes.remove(key);
+        }
+        return index;
+    }
+
+    static void clear() {
+        indexes.clear();
+    }
+
+    private final FileTime lastModified;
+    private final long size;
+    private final Map<String, MavenArtifact> producers;
+
+    private MavenUniverseProducerIndex(Path universeArtifact, BasicFileAttributes attrs) throws MavenUniverseException {
+        this.lastModified = attrs.lastModifiedTime();
+        this.size = attrs.size();
+        final Map<String, MavenArtifact> parsed = new HashMap<>();
+        final MavenParsedProducerSpecCallbackHandler handler = new MavenParsedProducerSpecCallbackHandler() {
+            @Override
+            public void parsedProducer(String name, MavenArtifact artifact) throws XMLStreamException {
+                parsed.put(name, artifact);
+            }
+        };
+        try (FileSystem zipfs = FileSystems.newFileSystem(ZipUtils.toZipUri(universeArtifact), Collections.emptyMap())) {
+            final Path locations = MavenUniverseBase.getProducerLocations(zipfs);
+            if(Files.exists(locations)) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(locations)) {
+                    for (Path producerDir : stream) {
+                        final Path producerXml = producerDir.resolve(MavenUniverseConstants.MAVEN_PRODUCER_XML);
+                        if (!Files.exists(producerXml)) {
+                            throw new MavenUniverseException(Errors.pathDoesNotExist(producerXml));
+                        }
+                        try (BufferedReader reader = Files.newBufferedReader(producerXml)) {
+                            MavenProducerSpecXmlParser.getInstance().parse(reader, handler);
+                        } catch (IOException | XMLStreamException e) {
+                            throw new MavenUniverseException("Failed to read " + producerXml, e);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new MavenUniverseException("Failed to read " + universeArtifact, e);
+        }
+        this.producers = parsed;
+    }
+
+    Collection<String> getProducerNames() {
+        return producers.keySet();
+    }
+
+    /**
+     * Returns a new unresolved artifact of the producer or null,
+     * if the universe does not include the producer.
+     *
+     * @param name  producer name
+     * @return  producer artifact or null
+     */
+    MavenArtifact getProducerArtifact(String name) {
+        final MavenArtifact spec = producers.get(name);
+        if(spec == null) {
+            return null;
+        }
+        return new MavenArtifact()
+                .setGroupId(spec.getGroupId())
+                .setArtifactId(spec.getArtifactId())
+                .setVersionRange(spec.getVersionRange());
+    }
+}
@@ -18,9 +18,8 @@
 package org.jboss.galleon.universe.maven.repo;
 
 import java.math.BigInteger;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
@@ -28,14 +27,74 @@ import java.util.TreeMap;
 import org.jboss.galleon.universe.maven.MavenUniverseException;
 
 /**
+ * Parsed version of an artifact.
+ *
+ * <p>Each item of a version is packed into a long with the kind of the item
+ * in the high and either the int value or, for string and big integer items,
+ * the index of the value in {@link #values} in the low 32 bits. The sign bit
+ * of the low 32 bits is flipped, so that the items compare as longs in the same
+ * order as by their kinds and then by their int values. So a version made
+ * of numbers and known qualifiers only is kept in a single array and compared
+ * to another such version as an array of longs.
  *
  * @author Alexey Loubyansky
  */
 public class MavenArtifactVersion implements Comparable<MavenArtifactVersion> {
 
+    private static final int KIND_MAX = 8;
+
+    private static final int KIND_BIGINT = 5;
+
+    private static final int KIND_INT = 4;
+
+    private static final int KIND_STRING = 3;
+
+    private static final int KIND_QUALIFIER = 2;
+
+    private static final int KIND_MIN = 0;
+
+    private static final Object[] NO_VALUES = new Object[0];
+
+    private static final int INTERNED_MAX_SIZE = 4096;
+
+    private static final Map<String, MavenArtifactVersion> interned = new LinkedHashMap<String, MavenArtifactVersion>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MavenArtifactVersion> eldest) {
+            return size() > INTERNED_MAX_SIZE;
+        }
+    };
+
+    /**
+     * Returns the parsed version of the string re-using the instance parsed earlier
+     * from an equal string, if it is among the recently used ones. Since the instances
+     * are immutable, they can be shared by the callers that parse the same versions
+     * over and over again, e.g. when looking for the latest version of an artifact.
+     *
+     * @param version The version string, must not be {@code null}.
+     * @return  the parsed version
+     */
+    public static MavenArtifactVersion valueOf(String version) {
+        MavenArtifactVersion parsed;
+        synchronized(interned) {
+            parsed = interned.get(version);
+        }
+        if(parsed != null) {
+            return parsed;
+        }
+        parsed = new MavenArtifactVersion(version);
+        synchronized(interned) {
+            interned.put(version, parsed);
+        }
+        return parsed;
+    }
+
     private final String version;
 
-    private final Item[] items;
+    private final long[] items;
+
+    private final Object[] values;
 
     private final int hash;
 
@@ -46,8 +105,14 @@ public class MavenArtifactVersion implements Comparable<MavenArtifactVersion> {
      */
     public MavenArtifactVersion(String version) {
         this.version = version;
-        items = parse(version);
-        hash = Arrays.hashCode(items);
+        final Tokenizer tokenizer = new Tokenizer(version);
+        while (tokenizer.next()) {
+            tokenizer.addItem();
+        }
+        tokenizer.trimPadding();
+        items = tokenizer.size == tokenizer.items.length ? tokenizer.items : Arrays.copyOf(tokenizer.items, tokenizer.size);
+        values = tokenizer.values == null ? NO_VALUES : Arrays.copyOf(tokenizer.values, tokenizer.valuesSize);
+        hash = hash(items, values);
     }
 
     public boolean isQualifierHigher(String qualifier, boolean orEqual) throws MavenUniverseException {
@@ -55,16 +120,17 @@ public class MavenArtifactVersion implements Comparable<MavenArtifactVersion> {
         if(minQualifier == null) {
             throw new MavenUniverseException("Unrecognized qualifier " + qualifier);
         }
-        for(Item item : items) {
-            if(item.kind != Item.KIND_QUALIFIER) {
+        int min = minQualifier;
+        for(long item : items) {
+            if(kind(item) != KIND_QUALIFIER) {
                 continue;
             }
-            final int res = ((Integer) item.value).compareTo(minQualifier);
+            final int res = Integer.compare(intValue(item), min);
             if(res > 0) {
                 continue;
             }
             if(res == 0 && orEqual) {
-                minQualifier = 0;
+                min = 0;
                 continue;
             }
             return false;
@@ -72,39 +138,11 @@ public class MavenArtifactVersion implements Comparable<MavenArtifactVersion> {
         return true;
     }
 
-    private static Item[] parse(String version) {
-        List<Item> items = new ArrayList<Item>();
-
-        for (Tokenizer tokenizer = new Tokenizer(version); tokenizer.next();) {
-            Item item = tokenizer.toItem();
-            items.add(item);
-        }
-
-        trimPadding(items);
-
-        return items.toArray(new Item[items.size()]);
-    }
-
-    private static void trimPadding(List<Item> items) {
-        Boolean number = null;
-        int end = items.size() - 1;
-        for (int i = end; i > 0; i--) {
-            Item item = items.get(i);
-            if (!Boolean.valueOf(item.isNumber()).equals(number)) {
-                end = i;
-                number = item.isNumber();
-            }
-            if (end == i && (i == items.size() - 1 || items.get(i - 1).isNumber() == item.isNumber())
-                    && item.compareTo(null) == 0) {
-                items.remove(i);
-                end--;
-            }
-        }
-    }
-
     public int compareTo(MavenArtifactVersion obj) {
-        final Item[] these = items;
-        final Item[] those = ((MavenArtifactVersion) obj).items;
+        final long[] these = items;
+        final long[] those = obj.items;
+        // neither of the versions has string or big integer items
+        final boolean primitive = values.length == 0 && obj.values.length == 0;
 
         boolean number = true;
 
@@ -117,33 +155,33 @@ public class MavenArtifactVersion implements Comparable<MavenArtifactVersion> {
                 return comparePadding(these, index, null);
             }
 
-            Item thisItem = these[index];
-            Item thatItem = those[index];
+            final long thisItem = these[index];
+            final long thatItem = those[index];
 
-            if (thisItem.isNumber() != thatItem.isNumber()) {
-                if (number == thisItem.isNumber()) {
+            if (isNumber(thisItem) != isNumber(thatItem)) {
+                if (number == isNumber(thisItem)) {
                     return comparePadding(these, index, number);
                 } else {
                     return -comparePadding(those, index, number);
                 }
             } else {
-                int rel = thisItem.compareTo(thatItem);
+                final int rel = primitive ? Long.compare(thisItem, thatItem) : compare(thisItem, values, thatItem, obj.values);
                 if (rel != 0) {
                     return rel;
                 }
-                number = thisItem.isNumber();
+                number = isNumber(thisItem);
             }
         }
     }
 
-    private static int comparePadding(Item[] items, int index, Boolean number) {
+    private static int comparePadding(long[] items, int index, Boolean number) {
         int rel = 0;
         for (int i = index; i < items.length; i++) {
-            Item item = items[i];
-            if (number != null && number != item.isNumber()) {
+            final long item = items[i];
+            if (number != null && number != isNumber(item)) {
                 break;
             }
-            rel = item.compareTo(null);
+            rel = compareToPadding(item);
             if (rel != 0) {
                 break;
             }
@@ -151,6 +189,90 @@ public class MavenArtifactVersion implements Comparable<MavenArtifactVersion> {
         return rel;
     }
 
+    private static long item(int kind, int value) {
+        return ((long) kind << 32) | ((value ^ Integer.MIN_VALUE) & 0xffffffffL);
+    }
+
+    private static int kind(long item) {
+        return (int) (item >>> 32);
+    }
+
+    private static int intValue(long item) {
+        return (int) item ^ Integer.MIN_VALUE;
+    }
+
+    private static boolean isNumber(long item) {
+        return (kind(item) & KIND_QUALIFIER) == 0; // i.e. kind != string/qualifier
+    }
+
+    /**
+     * Compares the item to the pad item (0 or "ga").
+     */
+    private static int compareToPadding(long item) {
+        switch (kind(item)) {
+            case KIND_MIN:
+                return -1;
+            case KIND_MAX:
+            case KIND_BIGINT:
+            case KIND_STRING:
+                return 1;
+            case KIND_INT:
+            case KIND_QUALIFIER:
+                return intValue(item);
+            default:
+                throw new IllegalStateException("unknown version item kind " + kind(item));
+        }
+    }
+
+    private static int compare(long item, Object[] values, long that, Object[] thatValues) {
+        final int kind = kind(item);
+        int rel = kind - kind(that);
+        if (rel == 0) {
+            switch (kind) {
+                case KIND_MAX:
+                case KIND_MIN:
+                    break;
+                case KIND_BIGINT:
+                    rel = ((BigInteger) values[intValue(item)]).compareTo((BigInteger) thatValues[intValue(that)]);
+                    break;
+                case KIND_INT:
+                case KIND_QUALIFIER:
+                    rel = Integer.compare(intValue(item), intValue(that));
+                    break;
+                case KIND_STRING:
+                    rel = ((String) values[intValue(item)]).compareToIgnoreCase((String) thatValues[intValue(that)]);
+                    break;
+                default:
+                    throw new IllegalStateException("unknown version item kind " + kind);
+            }
+        }
+        return rel;
+    }
+
+    private static int hash(long[] items, Object[] values) {
+        int result = 1;
+        for (long item : items) {
+            final int kind = kind(item);
+            final int valueHash;
+            switch (kind) {
+                case KIND_MAX:
+                    valueHash = "max".hashCode();
+                    break;
+                case KIND_MIN:
+                    valueHash = "min".hashCode();
+                    break;
+                case KIND_BIGINT:
+                case KIND_STRING:
+                    valueHash = values[intValue(item)].hashCode();
+                    break;
+                default:
+                    valueHash = intValue(item);
+            }
+            result = 31 * result + valueHash + kind * 31;
+        }
+        return result;
+    }
+
     @Override
     public boolean equals(Object obj) {
         return (obj instanceof MavenArtifactVersion) && compareTo((MavenArtifactVersion) obj) == 0;
@@ -194,12 +316,22 @@ public class MavenArtifactVersion implements Comparable<MavenArtifactVersion> {
 
         private int index;
 
-        private String token;
+        private int tokenStart;
+
+        private int tokenEnd;
 
         private boolean number;
 
         private boolean terminatedByNumber;
 
+        private long[] items = new long[8];
+
+        private int size;
+
+        private Object[] values;
+
+        private int valuesSize;
+
         Tokenizer(String version) {
             this.version = (version.length() > 0) ? version : "0";
         }
@@ -248,10 +380,13 @@ public class MavenArtifactVersion implements Comparable<MavenArtifactVersion> {
             }
 
             if (end - start > 0) {
-                token = version.substring(start, end);
+                tokenStart = start;
+                tokenEnd = end;
                 number = state >= 0;
             } else {
-                token = "0";
+                // an empty token is "0"
+                tokenStart = start;
+                tokenEnd = start;
                 number = true;
             }
 
@@ -260,142 +395,96 @@ public class MavenArtifactVersion implements Comparable<MavenArtifactVersion> {
 
         @Override
         public String toString() {
-            return String.valueOf(token);
+            return tokenStart == tokenEnd ? "0" : version.substring(tokenStart, tokenEnd);
         }
 
-        public Item toItem() {
+        void addItem() {
+            final int length = tokenEnd - tokenStart;
             if (number) {
-                try {
-                    if (token.length() < 10) {
-                        return new Item(Item.KIND_INT, Integer.parseInt(token));
-                    } else {
-                        return new Item(Item.KIND_BIGINT, new BigInteger(token));
-                    }
-                } catch (NumberFormatException e) {
-                    throw new IllegalStateException(e);
-                }
-            } else {
-                if (index >= version.length()) {
-                    if ("min".equalsIgnoreCase(token)) {
-                        return Item.MIN;
-                    } else if ("max".equalsIgnoreCase(token)) {
-                        return Item.MAX;
+                if (length < 10) {
+                    int value = 0;
+                    for (int i = tokenStart; i < tokenEnd; ++i) {
+                        value = value * 10 + Character.digit(version.charAt(i), 10);
                     }
+                    add(KIND_INT, value);
+                } else {
+                    add(KIND_BIGINT, addValue(new BigInteger(version.substring(tokenStart, tokenEnd))));
                 }
-                if (terminatedByNumber && token.length() == 1) {
-                    switch (token.charAt(0)) {
-                        case 'a':
-                        case 'A':
-                            return new Item(Item.KIND_QUALIFIER, QUALIFIER_ALPHA);
-                        case 'b':
-                        case 'B':
-                            return new Item(Item.KIND_QUALIFIER, QUALIFIER_BETA);
-                        case 'm':
-                        case 'M':
-                            return new Item(Item.KIND_QUALIFIER, QUALIFIER_MILESTONE);
-                    }
+                return;
+            }
+            if (index >= version.length()) {
+                if (length == 3 && version.regionMatches(true, tokenStart, "min", 0, 3)) {
+                    add(KIND_MIN, 0);
+                    return;
+                } else if (length == 3 && version.regionMatches(true, tokenStart, "max", 0, 3)) {
+                    add(KIND_MAX, 0);
+                    return;
                 }
-                Integer qualifier = QUALIFIERS.get(token);
-                if (qualifier != null) {
-                    return new Item(Item.KIND_QUALIFIER, qualifier);
-                } else {
-                    return new Item(Item.KIND_STRING, token.toLowerCase(Locale.ENGLISH));
+            }
+            if (terminatedByNumber && length == 1) {
+                switch (version.charAt(tokenStart)) {
+                    case 'a':
+                    case 'A':
+                        add(KIND_QUALIFIER, QUALIFIER_ALPHA);
+                        return;
+                    case 'b':
+                    case 'B':
+                        add(KIND_QUALIFIER, QUALIFIER_BETA);
+                        return;
+                    case 'm':
+                    case 'M':
+                        add(KIND_QUALIFIER, QUALIFIER_MILESTONE);
+                        return;
                 }
             }
+            final String token = version.substring(tokenStart, tokenEnd);
+            final Integer qualifier = QUALIFIERS.get(token);
+            if (qualifier != null) {
+                add(KIND_QUALIFIER, qualifier);
+            } else {
+                add(KIND_STRING, addValue(token.toLowerCase(Locale.ENGLISH)));
+            }
         }
-    }
-
-    static final class Item {
-
-        static final int KIND_MAX = 8;
-
-        static final int KIND_BIGINT = 5;
 
-        static final int KIND_INT = 4;
-
-        static final int KIND_STRING = 3;
-
-        static final int KIND_QUALIFIER = 2;
-
-        static final int KIND_MIN = 0;
-
-        static final Item MAX = new Item(KIND_MAX, "max");
-
-        static final Item MIN = new Item(KIND_MIN, "min");
-
-        private final int kind;
-
-        private final Object value;
-
-        Item(int kind, Object value) {
-            this.kind = kind;
-            this.value = value;
+        private void add(int kind, int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = item(kind, value);
         }
 
-        public boolean isNumber() {
-            return (kind & KIND_QUALIFIER) == 0; // i.e. kind != string/qualifier
+        private int addValue(Object value) {
+            if (values == null) {
+                values = new Object[2];
+            } else if (valuesSize == values.length) {
+                values = Arrays.copyOf(values, valuesSize * 2);
+            }
+            values[valuesSize] = value;
+            return valuesSize++;
         }
 
-        public int compareTo(Item that) {
-            int rel;
-            if (that == null) {
-                // null in this context denotes the pad item (0 or "ga")
-                switch (kind) {
-                    case KIND_MIN:
-                        rel = -1;
-                        break;
-                    case KIND_MAX:
-                    case KIND_BIGINT:
-                    case KIND_STRING:
-                        rel = 1;
-                        break;
-                    case KIND_INT:
-                    case KIND_QUALIFIER:
-                        rel = (Integer) value;
-                        break;
-                    default:
-                        throw new IllegalStateException("unknown version item kind " + kind);
+        /**
+         * Removes the trailing pad items of each sequence of either number or non-number items.
+         * Since only int and qualifier items can be pad items, the indexes of the values
+         * remain valid.
+         */
+        void trimPadding() {
+            Boolean number = null;
+            int end = size - 1;
+            for (int i = end; i > 0; i--) {
+                final long item = items[i];
+                if (!Boolean.valueOf(isNumber(item)).equals(number)) {
+                    end = i;
+                    number = isNumber(item);
                 }
-            } else {
-                rel = kind - that.kind;
-                if (rel == 0) {
-                    switch (kind) {
-                        case KIND_MAX:
-                        case KIND_MIN:
-                            break;
-                        case KIND_BIGINT:
-                            rel = ((BigInteger) value).compareTo((BigInteger) that.value);
-                            break;
-                        case KIND_INT:
-                        case KIND_QUALIFIER:
-                            rel = ((Integer) value).compareTo((Integer) that.value);
-                            break;
-                        case KIND_STRING:
-                            rel = ((String) value).compareToIgnoreCase((String) that.value);
-                            break;
-                        default:
-                            throw new IllegalStateException("unknown version item kind " + kind);
-                    }
+                if (end == i && (i == size - 1 || isNumber(items[i - 1]) == isNumber(item))
+                        && compareToPadding(item) == 0) {
+                    System.arraycopy(items, i + 1, items, i, size - i - 1);
+                    --size;
+                    end--;
                 }
             }
-            return rel;
         }
-
-        @Override
-        public boolean equals(Object obj) {
-            return (obj instanceof Item) && compareTo((Item) obj) == 0;
-        }
-
-        @Override
-        public int hashCode() {
-            return value.hashCode() + kind * 31;
-        }
-
-        @Override
-        public String toString() {
-            return String.valueOf(value);
-        }
-
     }
 
     public static void main(String... args) throws Exception {
@@ -403,4 +492,4 @@ public class MavenArtifactVersion implements Comparable<MavenArtifactVersion> {
 
         System.out.println(v.isQualifierHigher("Beta", true));
     }
-}
\ No newline at end of file
+}
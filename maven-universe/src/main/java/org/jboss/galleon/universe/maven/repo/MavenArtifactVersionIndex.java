@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.universe.maven.repo;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.galleon.universe.maven.MavenUniverseException;
+
+/**
+ * Versions found in the directory of an artifact in a local Maven repository
+ * sorted from the highest to the lowest, so that the latest version matching
+ * a range is determined without listing the directory and parsing its entries again.
+ *
+ * <p>Indexes are shared and invalidated by the last modified time of the artifact
+ * directory, which changes when a version directory is added or removed.
+ * Since file systems may record the modified time with a granularity of a couple
+ * of seconds, an index of a directory modified just before it was listed is not
+ * shared, i.e. the directory is listed again until it hasn't been modified for a while.
+ */
+class MavenArtifactVersionIndex {
+
+    private static final long MODIFIED_TIME_GRANULARITY = 2000;
+
+    private static final Map<Path, MavenArtifactVersionIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the up-to-date index of the versions of an artifact.
+     *
+     * @param artifactDir  artifact directory
+     * @return  the index of the versions
+     * @throws IOException  in case the directory does not exist or could not be listed
+     */
+    static MavenArtifactVersionIndex getIndex(Path artifactDir) throws IOException {
+        final FileTime lastModified = Files.getLastModifiedTime(artifactDir);
+        final Path key = artifactDir.toAbsolutePath().normalize();
+        MavenArtifactVersionIndex index = indexes.get(key);
+        if(index != null && index.lastModified.equals(lastModified)) {
+            return index;
+        }
+        final long listed = System.currentTimeMillis();
+        index = new MavenArtifactVersionIndex(artifactDir, lastModified);
+        if(listed - lastModified.toMillis() > MODIFIED_TIME_GRANULARITY) {
+            indexes.put(key, index);
+        } else {
+            indexes.remove(key);
+        }
+        return index;
+    }
+
+    static void clear() {
+        indexes.clear();
+    }
+
+    private final FileTime lastModified;
+    private final MavenArtifactVersion[] versions;
+
+    private MavenArtifactVersionIndex(Path artifactDir, FileTime lastModified) throws IOException {
+        this.lastModified = lastModified;
+        final List<MavenArtifactVersion> list = new ArrayList<>();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(artifactDir)) {
+            for(Path versionDir : stream) {
+                list.add(MavenArtifactVersion.valueOf(versionDir.getFileName().toString()));
+            }
+        }
+        Collections.sort(list, Collections.reverseOrder());
+        versions = list.toArray(new MavenArtifactVersion[list.size()]);
+    }
+
+    /**
+     * Returns the highest version included in the range whose qualifier
+     * is not lower than the lowest qualifier or null, if there is no such version.
+     *
+     * @param range  version range
+     * @param lowestQualifier  the lowest acceptable qualifier
+     * @return  the highest matching version or null
+     * @throws MavenUniverseException  in case the qualifier is not recognized
+     */
+    String getLatest(MavenArtifactVersionRange range, String lowestQualifier) throws MavenUniverseException {
+        for(MavenArtifactVersion version : versions) {
+            if(range.includesVersion(version) && version.isQualifierHigher(lowestQualifier, true)) {
+                return version.toString();
+            }
+        }
+        return null;
+    }
+}
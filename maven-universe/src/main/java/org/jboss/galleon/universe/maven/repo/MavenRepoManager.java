@@ -21,6 +21,11 @@ import org.jboss.galleon.universe.maven.MavenUniverseConstants;
 import org.jboss.galleon.universe.maven.MavenUniverseException;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.jboss.galleon.ProvisioningException;
 import org.jboss.galleon.repo.RepositoryArtifactResolver;
@@ -46,8 +51,37 @@ public interface MavenRepoManager extends RepositoryArtifactResolver {
         return artifact.getPath();
     }
 
+    @Override
+    default Map<String, Path> resolveAll(Collection<String> locations) throws ProvisioningException {
+        final List<MavenArtifact> artifacts = new ArrayList<>(locations.size());
+        for(String location : locations) {
+            artifacts.add(MavenArtifact.fromString(location));
+        }
+        resolveArtifacts(artifacts);
+        final Map<String, Path> paths = new HashMap<>(locations.size());
+        int i = 0;
+        for(String location : locations) {
+            paths.put(location, artifacts.get(i++).getPath());
+        }
+        return paths;
+    }
+
     void resolve(MavenArtifact artifact) throws MavenUniverseException;
 
+    /**
+     * Resolves the artifacts setting their paths. Implementations capable
+     * of resolving a number of artifacts in a single pass are expected to override
+     * this method, by default the artifacts are resolved one by one.
+     *
+     * @param artifacts  artifacts to resolve
+     * @throws MavenUniverseException  in case any of the artifacts could not be resolved
+     */
+    default void resolveArtifacts(Collection<MavenArtifact> artifacts) throws MavenUniverseException {
+        for(MavenArtifact artifact : artifacts) {
+            resolve(artifact);
+        }
+    }
+
     default void resolveLatestVersion(MavenArtifact artifact) throws MavenUniverseException {
         resolveLatestVersion(artifact, null);
     }
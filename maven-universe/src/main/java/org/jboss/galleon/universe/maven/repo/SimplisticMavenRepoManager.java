@@ -18,10 +18,15 @@
 package org.jboss.galleon.universe.maven.repo;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.jboss.galleon.ArtifactCoords;
 import org.jboss.galleon.ArtifactException;
@@ -55,6 +60,19 @@ public class SimplisticMavenRepoManager implements ArtifactRepositoryManager, Ma
     }
 
     private static final MavenArtifactVersionRangeParser versionRangeParser = new MavenArtifactVersionRangeParser();
+    private static final Map<String, MavenArtifactVersionRange> parsedRanges = new ConcurrentHashMap<>();
+
+    private static MavenArtifactVersionRange getVersionRange(String rangeStr) throws MavenUniverseException {
+        MavenArtifactVersionRange range = parsedRanges.get(rangeStr);
+        if(range == null) {
+            // the parser keeps the parsing state in its fields
+            synchronized(versionRangeParser) {
+                range = versionRangeParser.parseRange(rangeStr);
+            }
+            parsedRanges.put(rangeStr, range);
+        }
+        return range;
+    }
 
     private final Path repoHome;
     private final MavenRepoManager fallback;
@@ -74,6 +92,11 @@ public class SimplisticMavenRepoManager implements ArtifactRepositoryManager, Ma
         return MavenRepoManager.super.resolve(location);
     }
 
+    @Override
+    public Map<String, Path> resolveAll(Collection<String> locations) throws ProvisioningException {
+        return MavenRepoManager.super.resolveAll(locations);
+    }
+
     @Override
     public Path resolve(ArtifactCoords coords) throws ArtifactException {
         final MavenArtifact artifact = toMavenArtifact(coords);
@@ -142,6 +165,35 @@ public class SimplisticMavenRepoManager implements ArtifactRepositoryManager, Ma
         }
     }
 
+    /**
+     * Artifacts found in the local repository are resolved right away,
+     * the rest are passed to the fallback repository manager as a single batch.
+     */
+    @Override
+    public void resolveArtifacts(Collection<MavenArtifact> artifacts) throws MavenUniverseException {
+        List<MavenArtifact> missing = null;
+        for(MavenArtifact artifact : artifacts) {
+            if(artifact.isResolved()) {
+                throw new MavenUniverseException("Artifact is already resolved");
+            }
+            final Path path = getArtifactPath(artifact);
+            if(Files.exists(path)) {
+                artifact.setPath(path);
+                continue;
+            }
+            if(fallback == null) {
+                throw new MavenUniverseException(pathDoesNotExist(artifact, path));
+            }
+            if(missing == null) {
+                missing = new ArrayList<>();
+            }
+            missing.add(artifact);
+        }
+        if(missing != null) {
+            fallback.resolveArtifacts(missing);
+        }
+    }
+
     @Override
     public void resolveLatestVersion(MavenArtifact artifact, String lowestQualifier) throws MavenUniverseException {
         if(artifact.isResolved()) {
@@ -204,33 +256,28 @@ public class SimplisticMavenRepoManager implements ArtifactRepositoryManager, Ma
             artifactDir = artifactDir.resolve(part);
         }
         artifactDir = artifactDir.resolve(artifact.getArtifactId());
-        if(!Files.exists(artifactDir)) {
+        final MavenArtifactVersionIndex versions;
+        try {
+            versions = MavenArtifactVersionIndex.getIndex(artifactDir);
+        } catch (NoSuchFileException e) {
             throw MavenErrors.artifactNotFound(artifact, repoHome);
+        } catch (IOException e) {
+            throw new MavenUniverseException("Failed to determine the latest version of " + artifact.getCoordsAsString(), e);
         }
-        final MavenArtifactVersionRange range = versionRangeParser.parseRange(artifact.getVersionRange());
+        final MavenArtifactVersionRange range = getVersionRange(artifact.getVersionRange());
         if(lowestQualifier == null) {
             lowestQualifier = "";
         }
-        Path latestDir = null;
-        try(DirectoryStream<Path> stream = Files.newDirectoryStream(artifactDir)) {
-            MavenArtifactVersion latest = null;
-            for(Path versionDir : stream) {
-                final MavenArtifactVersion next = new MavenArtifactVersion(versionDir.getFileName().toString());
-                if(!range.includesVersion(next) || !next.isQualifierHigher(lowestQualifier, true)) {
-                    continue;
-                }
-                if(latest == null || latest.compareTo(next) <= 0) {
-                    latest = next;
-                    latestDir = versionDir;
-                }
-            }
+        final String latest;
+        try {
+            latest = versions.getLatest(range, lowestQualifier);
         } catch (Exception e) {
             throw new MavenUniverseException("Failed to determine the latest version of " + artifact.getCoordsAsString(), e);
         }
-        if(latestDir == null) {
+        if(latest == null) {
             throw new MavenUniverseException("Failed to determine the latest version of " + artifact.getCoordsAsString());
         }
-        return latestDir;
+        return artifactDir.resolve(latest);
     }
 
     private Path getArtifactPath(MavenArtifact artifact) throws MavenUniverseException {
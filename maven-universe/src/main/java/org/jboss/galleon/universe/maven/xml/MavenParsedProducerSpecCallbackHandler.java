@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.universe.maven.xml;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.galleon.universe.maven.MavenArtifact;
+
+public interface MavenParsedProducerSpecCallbackHandler {
+
+    /**
+     * Called for a parsed producer spec.
+     *
+     * @param name  producer name
+     * @param artifact  producer artifact with the version range but not resolved
+     * @throws XMLStreamException  in case the producer is rejected
+     */
+    void parsedProducer(String name, MavenArtifact artifact) throws XMLStreamException;
+}
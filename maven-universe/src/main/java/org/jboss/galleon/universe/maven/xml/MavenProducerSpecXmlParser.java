@@ -23,6 +23,8 @@ import javax.xml.stream.XMLStreamException;
 
 import org.jboss.galleon.universe.maven.MavenProducer;
 import org.jboss.galleon.universe.maven.MavenUniverseBase;
+import org.jboss.galleon.universe.maven.MavenUniverseException;
+import org.jboss.galleon.universe.maven.repo.MavenRepoManager;
 import org.jboss.galleon.xml.XmlParsers;
 
 /**
@@ -41,7 +43,26 @@ public class MavenProducerSpecXmlParser {
         XmlParsers.getInstance().plugin(MavenProducerSpecXmlParser10.ROOT_1_0, new MavenProducerSpecXmlParser10());
     }
 
-    public void parse(final Reader input, final ParsedCallbackHandler<MavenUniverseBase, MavenProducer> builder) throws XMLStreamException {
+    public void parse(final Reader input, final MavenParsedProducerSpecCallbackHandler builder) throws XMLStreamException {
         XmlParsers.parse(input, builder);
     }
+
+    /**
+     * Parses the producer spec resolving the latest version of the producer artifact
+     * in the repository of the parent universe.
+     *
+     * @deprecated  use {@link #parse(Reader, MavenParsedProducerSpecCallbackHandler)} instead
+     */
+    @Deprecated
+    public void parse(final Reader input, final ParsedCallbackHandler<MavenUniverseBase, MavenProducer> builder) throws XMLStreamException {
+        parse(input, (name, artifact) -> {
+            try {
+                final MavenRepoManager repo = builder.getParent().getRepo();
+                repo.resolveLatestVersion(artifact);
+                builder.parsed(new MavenProducer(name, repo, artifact));
+            } catch (MavenUniverseException e) {
+                throw new XMLStreamException("Failed to instantiate producer " + name, e);
+            }
+        });
+    }
 }
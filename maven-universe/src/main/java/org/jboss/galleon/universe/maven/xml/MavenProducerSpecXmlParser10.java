@@ -22,15 +22,10 @@ import java.util.HashMap;
 import java.util.Map;
 
 import javax.xml.namespace.QName;
-import javax.xml.stream.Location;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 
 import org.jboss.galleon.universe.maven.MavenArtifact;
-import org.jboss.galleon.universe.maven.MavenProducer;
-import org.jboss.galleon.universe.maven.MavenUniverseBase;
-import org.jboss.galleon.universe.maven.MavenUniverseException;
-import org.jboss.galleon.universe.maven.repo.MavenRepoManager;
 import org.jboss.galleon.util.ParsingUtils;
 import org.jboss.galleon.xml.PlugableXmlParser;
 import org.jboss.galleon.xml.XmlNameProvider;
@@ -41,7 +36,7 @@ import org.jboss.staxmapper.XMLExtendedStreamReader;
  *
  * @author Alexey Loubyansky
  */
-public class MavenProducerSpecXmlParser10 implements PlugableXmlParser<ParsedCallbackHandler<MavenUniverseBase, MavenProducer>> {
+public class MavenProducerSpecXmlParser10 implements PlugableXmlParser<MavenParsedProducerSpecCallbackHandler> {
 
     public static final String NAMESPACE_1_0 = "urn:jboss:galleon:maven:producer:spec:1.0";
     public static final QName ROOT_1_0 = new QName(NAMESPACE_1_0, Element.PRODUCER.name);
@@ -155,7 +150,7 @@ public class MavenProducerSpecXmlParser10 implements PlugableXmlParser<ParsedCal
     }
 
     @Override
-    public void readElement(XMLExtendedStreamReader reader, ParsedCallbackHandler<MavenUniverseBase, MavenProducer> builder) throws XMLStreamException {
+    public void readElement(XMLExtendedStreamReader reader, MavenParsedProducerSpecCallbackHandler builder) throws XMLStreamException {
         String name = null;
         for (int i = 0; i < reader.getAttributeCount(); i++) {
             final Attribute attribute = Attribute.of(reader.getAttributeName(i));
@@ -174,13 +169,7 @@ public class MavenProducerSpecXmlParser10 implements PlugableXmlParser<ParsedCal
         while (reader.hasNext()) {
             switch (reader.nextTag()) {
                 case XMLStreamConstants.END_ELEMENT: {
-                    try {
-                        final MavenRepoManager repo = builder.getParent().getRepo();
-                        repo.resolveLatestVersion(artifact);
-                        builder.parsed(new MavenProducer(name, repo, artifact));
-                    } catch (MavenUniverseException e) {
-                        throw new XMLStreamException(getParserMessage("Failed to instantiate producer " + name, reader.getLocation()), e);
-                    }
+                    builder.parsedProducer(name, artifact);
                     return;
                 }
                 case XMLStreamConstants.START_ELEMENT: {
@@ -207,10 +196,4 @@ public class MavenProducerSpecXmlParser10 implements PlugableXmlParser<ParsedCal
         }
         throw ParsingUtils.endOfDocument(reader.getLocation());
     }
-
-    private static String getParserMessage(String msg, Location location) {
-        return "ParseError at [row,col]:["+location.getLineNumber()+","+
-                location.getColumnNumber()+"]\n"+
-                "Message: "+msg;
-    }
 }
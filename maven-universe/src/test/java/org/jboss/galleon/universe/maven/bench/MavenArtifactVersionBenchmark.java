@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.universe.maven.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.jboss.galleon.universe.maven.repo.MavenArtifactVersion;
+
+/**
+ * Compares parsing, sorting and range filtering of the versions by {@link MavenArtifactVersion}
+ * to the implementation it replaced, {@link ItemListMavenArtifactVersion}.
+ *
+ * <p>The benchmark is not run by the build. It is run from the test classpath of the module
+ * with the implementation to measure, i.e. {@code packed} or {@code item-list}, and, optionally,
+ * the number of the versions and the number of the measured iterations as the arguments,
+ * e.g. {@code MavenArtifactVersionBenchmark packed 5000 100}. Each implementation should be
+ * measured in a separate JVM, so that the code of one is not compiled using the profile of the other.
+ * Each operation is first run the same number of iterations to warm up and the fastest
+ * measured iteration is reported.
+ */
+public class MavenArtifactVersionBenchmark {
+
+    private static final String[] QUALIFIERS = {"", ".Final", ".Alpha1", ".Beta2", ".CR1", "-SNAPSHOT", ".Final-redhat-00001"};
+
+    private static volatile Object sink;
+
+    public static void main(String... args) {
+        if(args.length == 0) {
+            System.out.println("Usage: MavenArtifactVersionBenchmark packed|item-list [versions] [iterations]");
+            return;
+        }
+        final boolean packed;
+        if("packed".equals(args[0])) {
+            packed = true;
+        } else if("item-list".equals(args[0])) {
+            packed = false;
+        } else {
+            throw new IllegalArgumentException("Unknown implementation " + args[0]);
+        }
+        final int count = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        final int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        final Random random = new Random(1);
+        final String[] strings = new String[count];
+        final String[] numbers = new String[count];
+        for(int i = 0; i < count; ++i) {
+            numbers[i] = (1 + random.nextInt(30)) + "." + random.nextInt(10) + "." + random.nextInt(20);
+            strings[i] = numbers[i] + QUALIFIERS[random.nextInt(QUALIFIERS.length)];
+        }
+
+        final Function<String, Comparable<?>> parser = packed ? MavenArtifactVersion::new : ItemListMavenArtifactVersion::new;
+        measure("parse", iterations, count, () -> parse(parser, strings));
+        if(packed) {
+            measure("parse interned", iterations, count, () -> parse(MavenArtifactVersion::valueOf, strings));
+        }
+
+        final Comparable<?>[] versions = parse(parser, strings);
+        measure("sort", iterations, count, () -> sort(versions));
+        final Comparable<?>[] numberVersions = parse(parser, numbers);
+        measure("sort numbers only", iterations, count, () -> sort(numberVersions));
+
+        final Comparable<?> lower = parser.apply("10.0.0.Final");
+        final Comparable<?> upper = parser.apply("20.0.0.Final");
+        measure("range", iterations, count, () -> filter(versions, lower, upper));
+        final Comparable<?> numberLower = parser.apply("10.0.0");
+        final Comparable<?> numberUpper = parser.apply("20.0.0");
+        measure("range numbers only", iterations, count, () -> filter(numberVersions, numberLower, numberUpper));
+    }
+
+    private static Comparable<?>[] parse(Function<String, Comparable<?>> parser, String[] strings) {
+        final Comparable<?>[] versions = new Comparable<?>[strings.length];
+        for(int i = 0; i < strings.length; ++i) {
+            versions[i] = parser.apply(strings[i]);
+        }
+        return versions;
+    }
+
+    private static Comparable<?>[] sort(Comparable<?>[] versions) {
+        final Comparable<?>[] sorted = versions.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int filter(Comparable<?>[] versions, Comparable lower, Comparable upper) {
+        int included = 0;
+        for(Comparable version : versions) {
+            if(version.compareTo(lower) >= 0 && version.compareTo(upper) < 0) {
+                ++included;
+            }
+        }
+        return included;
+    }
+
+    private static void measure(String name, int iterations, int count, Supplier<Object> op) {
+        for(int i = 0; i < iterations; ++i) {
+            sink = op.get();
+        }
+        long best = Long.MAX_VALUE;
+        for(int i = 0; i < iterations; ++i) {
+            final long start = System.nanoTime();
+            sink = op.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.println(String.format("%-20s %8.1f ns per version", name, (double) best / count));
+    }
+}
@@ -72,4 +72,78 @@ public class MavenArtifactVersionTestCase {
 
         Assert.assertTrue(new MavenArtifactVersion("1.0.0.CR-SNAPSHOT").isQualifierHigher("Beta", true));
     }
+
+    @Test
+    public void testBigIntegerComponents() throws Exception {
+        Assert.assertTrue(new MavenArtifactVersion("1.12345678901").compareTo(new MavenArtifactVersion("1.2147483647")) > 0);
+        Assert.assertTrue(new MavenArtifactVersion("1.2147483647").compareTo(new MavenArtifactVersion("1.2147483648")) < 0);
+        Assert.assertTrue(new MavenArtifactVersion("1.999999999").compareTo(new MavenArtifactVersion("1.1000000000")) < 0);
+        Assert.assertTrue(new MavenArtifactVersion("9999999999").compareTo(new MavenArtifactVersion("10000000000")) < 0);
+        Assert.assertTrue(new MavenArtifactVersion("12345678901234567890").compareTo(new MavenArtifactVersion("12345678901234567891")) < 0);
+        assertEqualVersions("12345678901234567890", "12345678901234567890.0");
+        // leading zeros are stripped before choosing between int and big integer
+        assertEqualVersions("1.0000000000012", "1.12");
+    }
+
+    @Test
+    public void testMinMax() throws Exception {
+        Assert.assertTrue(new MavenArtifactVersion("1.max").compareTo(new MavenArtifactVersion("1.999")) > 0);
+        Assert.assertTrue(new MavenArtifactVersion("1.max").compareTo(new MavenArtifactVersion("1.12345678901234567890")) > 0);
+        Assert.assertTrue(new MavenArtifactVersion("1-max").compareTo(new MavenArtifactVersion("1.sp")) > 0);
+        Assert.assertTrue(new MavenArtifactVersion("1.max").compareTo(new MavenArtifactVersion("2")) < 0);
+        Assert.assertTrue(new MavenArtifactVersion("1.min").compareTo(new MavenArtifactVersion("1")) < 0);
+        Assert.assertTrue(new MavenArtifactVersion("1.min").compareTo(new MavenArtifactVersion("1-alpha")) < 0);
+        Assert.assertTrue(new MavenArtifactVersion("1-min").compareTo(new MavenArtifactVersion("1.0-min")) < 0);
+        Assert.assertTrue(new MavenArtifactVersion("max").compareTo(new MavenArtifactVersion("min")) > 0);
+        assertEqualVersions("1.MAX", "1.max");
+        // min is recognized only as the last item
+        Assert.assertTrue(new MavenArtifactVersion("1.min.1").compareTo(new MavenArtifactVersion("1.min")) > 0);
+    }
+
+    @Test
+    public void testPaddingTrimming() throws Exception {
+        assertEqualVersions("1.0.0-ga", "1");
+        assertEqualVersions("1-final-0", "1");
+        assertEqualVersions("1.0.0.0-alpha", "1-alpha");
+        assertEqualVersions("1.0-alpha.0", "1-alpha");
+        assertEqualVersions("1.0.alpha-0", "1-alpha");
+        assertEqualVersions("1.0-sp", "1-sp");
+        assertEqualVersions("1.0-foo", "1-foo");
+        assertEqualVersions("1.0-a1", "1-alpha-1");
+
+        // padding is trimmed only at the end of a sequence of either numbers or qualifiers
+        Assert.assertTrue(new MavenArtifactVersion("1.ga.1").compareTo(new MavenArtifactVersion("1.1")) < 0);
+        Assert.assertTrue(new MavenArtifactVersion("1-ga-1").compareTo(new MavenArtifactVersion("1-1")) < 0);
+        Assert.assertTrue(new MavenArtifactVersion("1-0.1").compareTo(new MavenArtifactVersion("1.1")) < 0);
+        Assert.assertTrue(new MavenArtifactVersion("1.0.final.0.1").compareTo(new MavenArtifactVersion("1.1")) < 0);
+        Assert.assertTrue(new MavenArtifactVersion("1.ga-0-alpha").compareTo(new MavenArtifactVersion("1-alpha")) > 0);
+    }
+
+    @Test
+    public void testCaseInsensitiveStrings() throws Exception {
+        assertEqualVersions("1.0.Foo", "1.0.foo");
+        assertEqualVersions("1.0.FOO-Bar", "1.0.foo-bar");
+        assertEqualVersions("1.0.Alpha", "1.0.ALPHA");
+        assertEqualVersions("1-Xyz2", "1-xyz-2");
+        Assert.assertTrue(new MavenArtifactVersion("1-XYZ").compareTo(new MavenArtifactVersion("1-xyzz")) < 0);
+    }
+
+    @Test
+    public void testInterned() throws Exception {
+        final MavenArtifactVersion version = MavenArtifactVersion.valueOf("1.0.0.Final");
+        Assert.assertSame(version, MavenArtifactVersion.valueOf(new String("1.0.0.Final")));
+        Assert.assertEquals(new MavenArtifactVersion("1.0.0.Final"), version);
+        Assert.assertEquals("1.0.0.Final", version.toString());
+        Assert.assertNotSame(version, MavenArtifactVersion.valueOf("1.0.0"));
+        Assert.assertEquals(version, MavenArtifactVersion.valueOf("1.0.0"));
+    }
+
+    private static void assertEqualVersions(String v1, String v2) {
+        final MavenArtifactVersion version1 = new MavenArtifactVersion(v1);
+        final MavenArtifactVersion version2 = new MavenArtifactVersion(v2);
+        Assert.assertEquals(0, version1.compareTo(version2));
+        Assert.assertEquals(0, version2.compareTo(version1));
+        Assert.assertEquals(version1, version2);
+        Assert.assertEquals(version1.hashCode(), version2.hashCode());
+    }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.universe.maven.test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.galleon.universe.maven.MavenArtifact;
+import org.jboss.galleon.universe.maven.MavenUniverseException;
+import org.jboss.galleon.universe.maven.repo.MavenRepoManager;
+import org.jboss.galleon.universe.maven.repo.SimplisticMavenRepoManager;
+import org.jboss.galleon.util.IoUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SimplisticMavenRepoManagerTestCase {
+
+    private Path repoHome;
+    private Path artifactDir;
+    private SimplisticMavenRepoManager repo;
+
+    @Before
+    public void init() throws Exception {
+        repoHome = IoUtils.createRandomTmpDir();
+        artifactDir = repoHome.resolve("org").resolve("jboss").resolve("test").resolve("artifact");
+        for(String version : new String[] {"1.0.0.Final", "1.1.0.Beta1", "2.0.0.Final"}) {
+            Files.createDirectories(artifactDir.resolve(version));
+        }
+        // long enough ago for the listing of the versions to be re-used
+        Files.setLastModifiedTime(artifactDir, FileTime.fromMillis(System.currentTimeMillis() - 60000));
+        repo = SimplisticMavenRepoManager.getInstance(repoHome);
+    }
+
+    @After
+    public void cleanup() {
+        IoUtils.recursiveDelete(repoHome);
+    }
+
+    @Test
+    public void testLatestVersionInRange() throws Exception {
+        Assert.assertEquals("1.0.0.Final", repo.getLatestVersion(newArtifact("[1.0,2.0)")));
+        Assert.assertEquals("1.1.0.Beta1", repo.getLatestVersion(newArtifact("[1.0,2.0)"), "beta"));
+        Assert.assertEquals("2.0.0.Final", repo.getLatestVersion(newArtifact("[1.0,)")));
+        try {
+            repo.getLatestVersion(newArtifact("[3.0,)"));
+            Assert.fail("There is no version in the range");
+        } catch(MavenUniverseException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testNewVersionIsFound() throws Exception {
+        Assert.assertEquals("1.0.0.Final", repo.getLatestVersion(newArtifact("[1.0,2.0)")));
+
+        Files.createDirectories(artifactDir.resolve("1.2.0.Final"));
+        Files.setLastModifiedTime(artifactDir, FileTime.fromMillis(System.currentTimeMillis() - 30000));
+        Assert.assertEquals("1.2.0.Final", repo.getLatestVersion(newArtifact("[1.0,2.0)")));
+
+        Files.createDirectories(artifactDir.resolve("1.3.0.Final"));
+        Assert.assertEquals("1.3.0.Final", repo.getLatestVersion(newArtifact("[1.0,2.0)")));
+    }
+
+    @Test
+    public void testMissingArtifact() throws Exception {
+        try {
+            repo.getLatestVersion(new MavenArtifact().setGroupId("org.jboss.test").setArtifactId("missing").setVersionRange("[1.0,)"));
+            Assert.fail("The artifact does not exist");
+        } catch(MavenUniverseException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMissingArtifactsAreResolvedByFallbackInOneBatch() throws Exception {
+        final Path localZip = artifactDir.resolve("1.0.0.Final").resolve("artifact-1.0.0.Final.zip");
+        Files.createFile(localZip);
+        final Path remoteZip = repoHome.resolve("remote.zip");
+
+        final List<List<String>> batches = new ArrayList<>();
+        final SimplisticMavenRepoManager repo = SimplisticMavenRepoManager.getInstance(repoHome, new MavenRepoManager() {
+            @Override
+            public void resolveArtifacts(Collection<MavenArtifact> artifacts) throws MavenUniverseException {
+                final List<String> batch = new ArrayList<>(artifacts.size());
+                for(MavenArtifact artifact : artifacts) {
+                    batch.add(artifact.getVersion());
+                    artifact.setPath(remoteZip);
+                }
+                batches.add(batch);
+            }
+            @Override
+            public void resolve(MavenArtifact artifact) throws MavenUniverseException {
+                throw new UnsupportedOperationException();
+            }
+            @Override
+            public void resolveLatestVersion(MavenArtifact artifact, String lowestQualifier) throws MavenUniverseException {
+                throw new UnsupportedOperationException();
+            }
+            @Override
+            public String getLatestVersion(MavenArtifact artifact, String lowestQualifier) throws MavenUniverseException {
+                throw new UnsupportedOperationException();
+            }
+            @Override
+            public void install(MavenArtifact artifact, Path path) throws MavenUniverseException {
+                throw new UnsupportedOperationException();
+            }
+        });
+
+        final MavenArtifact local = newArtifactVersion("1.0.0.Final");
+        final MavenArtifact remote1 = newArtifactVersion("3.0.0.Final");
+        final MavenArtifact remote2 = newArtifactVersion("4.0.0.Final");
+        repo.resolveArtifacts(Arrays.asList(remote1, local, remote2));
+        Assert.assertEquals(localZip, local.getPath());
+        Assert.assertEquals(remoteZip, remote1.getPath());
+        Assert.assertEquals(remoteZip, remote2.getPath());
+        Assert.assertEquals(Arrays.asList(Arrays.asList("3.0.0.Final", "4.0.0.Final")), batches);
+
+        final Map<String, Path> paths = repo.resolveAll(Arrays.asList(newArtifactVersion("1.0.0.Final").toString(),
+                newArtifactVersion("5.0.0.Final").toString()));
+        Assert.assertEquals(localZip, paths.get(newArtifactVersion("1.0.0.Final").toString()));
+        Assert.assertEquals(remoteZip, paths.get(newArtifactVersion("5.0.0.Final").toString()));
+        Assert.assertEquals(Arrays.asList("5.0.0.Final"), batches.get(1));
+    }
+
+    @Test
+    public void testResolveArtifactsWithoutFallback() throws Exception {
+        Files.createFile(artifactDir.resolve("1.0.0.Final").resolve("artifact-1.0.0.Final.zip"));
+        try {
+            repo.resolveArtifacts(Arrays.asList(newArtifactVersion("1.0.0.Final"), newArtifactVersion("2.0.0.Final")));
+            Assert.fail("2.0.0.Final is not in the repository");
+        } catch(MavenUniverseException e) {
+            // expected
+        }
+    }
+
+    private static MavenArtifact newArtifactVersion(String version) {
+        return new MavenArtifact().setGroupId("org.jboss.test").setArtifactId("artifact").setExtension("zip").setVersion(version);
+    }
+
+    private static MavenArtifact newArtifact(String range) {
+        return new MavenArtifact().setGroupId("org.jboss.test").setArtifactId("artifact").setVersionRange(range);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.universe.maven.test;
+
+import static org.jboss.galleon.universe.TestConstants.*;
+
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+
+import org.jboss.galleon.universe.UniverseRepoTestBase;
+import org.jboss.galleon.universe.maven.MavenArtifact;
+import org.jboss.galleon.universe.maven.MavenProducerInstaller;
+import org.jboss.galleon.universe.maven.MavenUniverse;
+import org.jboss.galleon.universe.maven.MavenUniverseInstaller;
+import org.jboss.galleon.universe.maven.repo.SimplisticMavenRepoManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MavenUniverseReinstallTestCase extends UniverseRepoTestBase {
+
+    private MavenArtifact universeArtifact;
+
+    @Override
+    protected void doInit() throws Exception {
+        universeArtifact = new MavenArtifact();
+        universeArtifact.setGroupId(GROUP_ID);
+        universeArtifact.setArtifactId("test-universe");
+        universeArtifact.setVersion("1.0.0.Final");
+
+        for(String producer : new String[] {"producer1", "producer2"}) {
+            final MavenArtifact artifact = new MavenArtifact();
+            artifact.setGroupId(GROUP_ID);
+            artifact.setArtifactId(producer);
+            artifact.setVersion("1.0.0.Final");
+            final MavenProducerInstaller producerInstaller = new MavenProducerInstaller(producer, repo, artifact);
+            producerInstaller.addFrequencies("alpha", "beta");
+            producerInstaller.install();
+        }
+    }
+
+    @Test
+    public void testMain() throws Exception {
+        MavenUniverseInstaller universeInstaller = new MavenUniverseInstaller(repo, universeArtifact);
+        universeInstaller.addProducer("producer1", GROUP_ID, "producer1", "[1.0.0,2.0.0)");
+        universeInstaller.install();
+        // long enough ago for the producers of the universe to be shared
+        Files.setLastModifiedTime(universeArtifact.getPath(), FileTime.fromMillis(System.currentTimeMillis() - 60000));
+
+        universeArtifact.setPath(null);
+        MavenUniverse universe = new MavenUniverse(repo, universeArtifact);
+        Assert.assertEquals(1, universe.getProducers().size());
+        Assert.assertSame(repo, universe.getProducer("producer1").getRepo());
+
+        final SimplisticMavenRepoManager otherRepo = SimplisticMavenRepoManager.getInstance(repoHome);
+        universe = new MavenUniverse(otherRepo, new MavenArtifact().setGroupId(GROUP_ID).setArtifactId("test-universe").setVersion("1.0.0.Final"));
+        Assert.assertTrue(universe.hasProducer("producer1"));
+        Assert.assertFalse(universe.hasProducer("producer2"));
+        Assert.assertSame(otherRepo, universe.getProducer("producer1").getRepo());
+
+        universeArtifact.setPath(null);
+        universeInstaller = new MavenUniverseInstaller(repo, universeArtifact);
+        universeInstaller.addProducer("producer1", GROUP_ID, "producer1", "[1.0.0,2.0.0)");
+        universeInstaller.addProducer("producer2", GROUP_ID, "producer2", "[1.0.0,2.0.0)");
+        universeInstaller.install();
+        Files.setLastModifiedTime(universeArtifact.getPath(), FileTime.fromMillis(System.currentTimeMillis() - 30000));
+
+        universeArtifact.setPath(null);
+        universe = new MavenUniverse(repo, universeArtifact);
+        Assert.assertTrue(universe.hasProducer("producer2"));
+        Assert.assertEquals(2, universe.getProducers().size());
+    }
+}